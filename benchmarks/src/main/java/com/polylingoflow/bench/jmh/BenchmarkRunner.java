@@ -0,0 +1,33 @@
+package com.polylingoflow.bench.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试的入口点：接受与 {@code org.openjdk.jmh.Main} 相同的命令行参数，并总是加上GC分析器，
+ * 使每个结果都带有分配速率（{@code gc.alloc.rate.norm}，每次操作分配的字节数）。
+ *
+ * 用法：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar [JMH参数，例如 VadBenchmark -p chunkBytes=3200 -rf json]
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.polylingoflow.bench.jmh;
+
+import com.polylingoflow.export.Exporter;
+import com.polylingoflow.export.TimestampFormatter;
+import com.polylingoflow.export.TranscriptionSegment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SRT 导出（{@link Exporter#exportAsSrt}）和时间戳格式化的耗时与分配。
+ *
+ * 导出写入临时目录中的同一个文件，因此结果包含格式化和写文件两部分；
+ * {@link #formatTimestamps} 单独衡量格式化部分。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class ExportBenchmark {
+
+    /** 会话中的片段数。 */
+    @Param({"100", "1000", "10000"})
+    public int segmentCount;
+
+    /** 每个片段的文本长度（字符）。 */
+    @Param({"40", "200"})
+    public int textLength;
+
+    private final Exporter exporter = new Exporter();
+    private final StringBuilder line = new StringBuilder(64);
+    private List<TranscriptionSegment> segments;
+    private Path directory;
+    private Path destination;
+
+    @Setup
+    public void setUp() throws IOException {
+        String text = "这是一个用于基准测试的转录片段 the quick brown fox ".repeat(textLength / 20 + 1)
+                .substring(0, textLength);
+        segments = new ArrayList<>(segmentCount);
+        long time = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new TranscriptionSegment(i, time, time + 2_500, text));
+            time += 3_000;
+        }
+        directory = Files.createTempDirectory("export-bench");
+        destination = directory.resolve("bench.srt");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(destination);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void exportAsSrt() throws IOException {
+        exporter.exportAsSrt(segments, destination);
+    }
+
+    @Benchmark
+    public int formatTimestamps() {
+        int length = 0;
+        for (TranscriptionSegment segment : segments) {
+            line.setLength(0);
+            TimestampFormatter.append(line, segment.startTimeMillis(), ',');
+            line.append(" --> ");
+            TimestampFormatter.append(line, segment.endTimeMillis(), ',');
+            length += line.length();
+        }
+        return length;
+    }
+}
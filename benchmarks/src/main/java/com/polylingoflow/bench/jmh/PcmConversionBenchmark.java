@@ -0,0 +1,54 @@
+package com.polylingoflow.bench.jmh;
+
+import com.polylingoflow.whisper.PcmConversion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whisper 推理前的 PCM → float 转换（{@link PcmConversion#pcm16leToFloat32}），
+ * 分别针对堆内数组（实时录音）和直接缓冲区（内存映射的语音片段日志，回放时使用）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class PcmConversionBenchmark {
+
+    /** 语音片段长度（秒）。 */
+    @Param({"1", "5", "30"})
+    public int segmentSeconds;
+
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+
+    @Setup
+    public void setUp() {
+        byte[] pcm = Signals.speech(segmentSeconds * 16000, 0);
+        heap = ByteBuffer.wrap(pcm);
+        direct = ByteBuffer.allocateDirect(pcm.length).put(pcm).flip();
+    }
+
+    @Benchmark
+    public float[] heapBuffer() {
+        return PcmConversion.pcm16leToFloat32(heap);
+    }
+
+    @Benchmark
+    public float[] directBuffer() {
+        return PcmConversion.pcm16leToFloat32(direct);
+    }
+}
@@ -0,0 +1,30 @@
+package com.polylingoflow.bench.jmh;
+
+/**
+ * 基准测试使用的合成音频。
+ */
+final class Signals {
+
+    private Signals() {
+    }
+
+    /**
+     * 生成类似浊音的16位小端PCM：基频加两个谐波，振幅远高于 VAD 阈值。
+     *
+     * @param samples 采样点数。
+     * @param seed    相位偏移，使不同的块内容不同。
+     */
+    static byte[] speech(int samples, int seed) {
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            double t = (i + seed * 977L) / 16000.0;
+            double value = 6000 * Math.sin(2 * Math.PI * 140 * t)
+                    + 3000 * Math.sin(2 * Math.PI * 280 * t)
+                    + 1500 * Math.sin(2 * Math.PI * 2400 * t);
+            short sample = (short) value;
+            pcm[2 * i] = (byte) sample;
+            pcm[2 * i + 1] = (byte) (sample >> 8);
+        }
+        return pcm;
+    }
+}
@@ -0,0 +1,86 @@
+package com.polylingoflow.bench.jmh;
+
+import com.polylingoflow.translate.TranslatorService;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TranslatorService} 的请求构建、HTTP往返和JSON解析，使用进程内的模拟翻译服务器（JDK自带的 HttpServer），
+ * 不依赖网络和真实的翻译服务。
+ *
+ * 每次调用使用不同的源文本，以免命中结果缓存；{@link #cachedTranslation} 单独衡量缓存命中的路径。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// 关闭模拟服务器的 Nagle 算法，否则每次往返都会多出约40ms的延迟确认等待，掩盖被测代码的耗时
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dsun.net.httpserver.nodelay=true"})
+public class TranslationBenchmark {
+
+    /** 模拟服务器返回的译文长度（字符）。 */
+    @Param({"16", "256", "4096"})
+    public int responseChars;
+
+    private HttpServer server;
+    private TranslatorService translator;
+    private final AtomicLong counter = new AtomicLong();
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] response = ("{\"translatedText\":\"" + "译".repeat(responseChars) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/translate", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        translator = new TranslatorService("http://127.0.0.1:" + server.getAddress().getPort() + "/translate");
+        translator.translateAsync("cached", "en", "zh").join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public String translation() {
+        return translator.translateAsync("benchmark sentence number " + counter.incrementAndGet(), "en", "zh").join();
+    }
+
+    @Benchmark
+    public String cachedTranslation() {
+        return translator.translateAsync("cached", "en", "zh").join();
+    }
+}
@@ -0,0 +1,72 @@
+package com.polylingoflow.bench.jmh;
+
+import com.polylingoflow.audio.VadListener;
+import com.polylingoflow.audio.VadProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VadProcessor#process} 每个音频块的耗时和分配。
+ *
+ * 输入在语音和静音之间交替（每种若干个块），因此会经过语音开始、持续、静音宽限期和语音结束的所有分支。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class VadBenchmark {
+
+    // 每个语音/静音段包含的音频块数
+    private static final int RUN_LENGTH = 12;
+
+    /** 音频块大小（字节）：10ms、100ms 和 1s 的16kHz单声道音频。 */
+    @Param({"320", "3200", "32000"})
+    public int chunkBytes;
+
+    private byte[][] chunks;
+    private int next;
+    private VadProcessor vad;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        chunks = new byte[2 * RUN_LENGTH][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = i < RUN_LENGTH ? Signals.speech(chunkBytes / 2, i) : new byte[chunkBytes];
+        }
+        int frameMillis = chunkBytes / 32;
+        vad = new VadProcessor(new VadListener() {
+            @Override
+            public void onSpeechStart() {
+            }
+
+            @Override
+            public void onSpeech(byte[] audioData) {
+                blackhole.consume(audioData);
+            }
+
+            @Override
+            public void onSpeechEnd() {
+            }
+        }, frameMillis, 100, frameMillis * (RUN_LENGTH / 2));
+    }
+
+    @Benchmark
+    public void process() {
+        vad.process(chunks[next]);
+        next = (next + 1) % chunks.length;
+    }
+}
@@ -66,7 +66,7 @@ public class MainApplication {
         Thread.sleep(30000);
 
         // 优雅地停止录音
-        audioCapture.stopRecording();
+        audioCapture.close();
         System.out.println("程序结束。");
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.polylingoflow;
+
+import com.polylingoflow.bridge.Bridge;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 管理应用程序核心服务的生命周期。
+ * 负责初始化、连接和优雅地关闭所有后端组件。
+ * 核心流水线本身不依赖JavaFX，这里只负责把它和UI（Bridge）连接起来。
+ */
+public class ApplicationManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicationManager.class);
+
+    private final TranscriptionPipeline pipeline;
+    private final Bridge bridge = Bridge.getInstance();
+
+    public ApplicationManager() {
+        this.pipeline = new TranscriptionPipeline(PipelineConfig.defaults());
+    }
+
+    /**
+     * 启动所有后端服务并建立它们之间的连接。可以在后台线程上调用，界面此时可能已经显示。
+     */
+    public void start() {
+        log.info("正在启动 ApplicationManager...");
+
+        // 1. 将UI注册为流水线的订阅者
+        bridge.attach(pipeline.getTranscriptStore(), pipeline.getConfig().primaryTargetLang());
+        pipeline.getEventBus().subscribe("ui", bridge::onEvent);
+
+        // 2. 初始化 Whisper 引擎并启动音频处理
+        pipeline.start();
+
+        // 3. 在FX线程上监听来自UI的录音请求；后端就绪之前已经点击了开始录音的，现在开始
+        Platform.runLater(() -> {
+            bridge.recordingProperty().addListener((obs, wasRecording, isRecording) -> pipeline.setRecording(isRecording));
+            if (bridge.recordingProperty().get()) {
+                pipeline.setRecording(true);
+            }
+        });
+
+        log.info("ApplicationManager 启动完成。");
+    }
+
+    /**
+     * 优雅地关闭所有服务并释放资源。
+     */
+    public void shutdown() {
+        log.info("正在关闭 ApplicationManager...");
+        if (bridge.recordingProperty().get()) {
+            bridge.setRecording(false);
+        }
+        pipeline.shutdown();
+        log.info("ApplicationManager 关闭完成。");
+    }
+}
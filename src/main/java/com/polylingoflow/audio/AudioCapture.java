@@ -1,77 +1,124 @@
 package com.polylingoflow.audio;
 
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.tracing.CaptureChunkEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sound.sampled.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 /**
  * Handles audio recording from the microphone using javax.sound.sampled.
  * It captures PCM audio data and passes it to a consumer for further processing (e.g., VAD).
  */
-public class AudioCapture {
+public class AudioCapture implements AudioSource {
 
     private static final Logger log = LoggerFactory.getLogger(AudioCapture.class);
-    // 使用守护线程工厂，这样在主程序退出时不会因为这个线程而阻塞
+    private static final LongAdder capturedChunks = MetricsRegistry.global().counter(MetricNames.AUDIO_CAPTURE_CHUNKS);
+    private static final LatencyHistogram handoffTime = MetricsRegistry.global().histogram(MetricNames.AUDIO_CAPTURE_HANDOFF);
+    // 使用守护线程工厂，这样在主程序退出时不会因为这个线程而阻塞。
+    // 停止录音不会关闭它，因此同一个实例可以再次开始录音；close() 时才关闭
     private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
         Thread t = new Thread(r, "audio-capture-thread");
         t.setDaemon(true);
         return t;
     });
 
+    private final String mixerName;
+    private final int channels;
     private volatile boolean isRecording = false;
+    // 暂停时数据行继续运行（设备保持打开，缓冲区保持最新），捕获线程只是丢弃读到的音频块
+    private volatile boolean isPaused = false;
+    private Future<?> captureTask;
     private TargetDataLine targetDataLine;
 
+    /**
+     * 从系统默认的录音设备捕获单声道音频。
+     */
+    public AudioCapture() {
+        this(null, 1);
+    }
+
+    /**
+     * 从指定的录音设备捕获音频，用于同时转录多个输入。
+     * 多声道时音频块是交错的（每个采样依次包含各声道），可以用 {@link ChannelSplitter} 拆分为每个声道一路流。
+     *
+     * @param mixerName 录音设备（混音器）名称中包含的文本；为null时使用系统默认设备。
+     * @param channels  声道数，例如会议的立体声馈送为2。
+     */
+    public AudioCapture(String mixerName, int channels) {
+        if (channels < 1) {
+            throw new IllegalArgumentException("声道数必须至少为1: " + channels);
+        }
+        this.mixerName = mixerName;
+        this.channels = channels;
+    }
+
     /**
      * Starts capturing audio from the default microphone.
-     * The audio format is set to 16kHz, 16-bit, mono, signed PCM, which is common for speech recognition.
+     * The audio format is set to 16kHz, 16-bit, signed PCM (mono unless more channels were requested), which is common for speech recognition.
      *
      * @param audioConsumer A consumer that will receive the captured audio chunks (byte arrays).
      */
+    @Override
     public void startRecording(Consumer<byte[]> audioConsumer) {
         if (isRecording) {
             log.warn("Recording is already in progress.");
             return;
         }
+        isRecording = true;
 
-        executor.submit(() -> {
+        captureTask = executor.submit(() -> {
             try {
-                // 为语音识别定义通用音频格式 (16kHz, 16-bit, mono, PCM_SIGNED)
-                AudioFormat format = new AudioFormat(16000, 16, 1, true, false);
-                DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
-
-                if (!AudioSystem.isLineSupported(info)) {
-                    log.error("Audio line for format {} is not supported. Please check your microphone.", format);
+                // 为语音识别定义通用音频格式 (16kHz, 16-bit, PCM_SIGNED)，默认为单声道
+                AudioFormat format = new AudioFormat(16000, 16, channels, true, false);
+                targetDataLine = getLine(format);
+                if (targetDataLine == null) {
+                    isRecording = false;
                     return;
                 }
-
-                targetDataLine = (TargetDataLine) AudioSystem.getLine(info);
                 // 打开数据行并指定内部缓冲区大小，例如1秒的音频数据
-                // 16000 samples/sec * 2 bytes/sample = 32000 bytes/sec
-                targetDataLine.open(format, 32000);
+                // 16000 samples/sec * 2 bytes/sample = 32000 bytes/sec（每个声道）
+                targetDataLine.open(format, 32000 * channels);
                 targetDataLine.start();
-                isRecording = true;
-                log.info("Started audio recording.");
+                log.info("Started audio recording{}.", isPaused ? " (paused)" : "");
 
                 // 创建缓冲区以读取音频块，例如每次读取100毫秒的数据
                 // 16000 samples/sec * 2 bytes/sample * 0.1 sec = 3200 bytes
-                byte[] buffer = new byte[3200];
+                byte[] buffer = new byte[3200 * channels];
                 while (isRecording) {
+                    CaptureChunkEvent chunkEvent = new CaptureChunkEvent();
+                    chunkEvent.begin();
                     int bytesRead = targetDataLine.read(buffer, 0, buffer.length);
-                    if (bytesRead > 0) {
+                    if (chunkEvent.shouldCommit()) {
+                        chunkEvent.bytes = bytesRead;
+                        chunkEvent.commit();
+                    }
+                    if (bytesRead > 0 && !isPaused) {
                         // 创建一个缓冲区副本并传递给消费者
                         // 这对于防止消费者处理正在被覆盖的缓冲区至关重要
                         final byte[] data = new byte[bytesRead];
                         System.arraycopy(buffer, 0, data, 0, bytesRead);
+                        // 记录交给下游所花的时间：如果它变长，说明下游在阻塞捕获线程，音频可能溢出
+                        long handoffStart = System.nanoTime();
                         audioConsumer.accept(data);
+                        handoffTime.recordSince(handoffStart);
+                        capturedChunks.increment();
                     }
                 }
             } catch (LineUnavailableException e) {
                 log.error("Audio line is unavailable. It might be in use by another application.", e);
+                isRecording = false;
             } finally {
                 // 确保在录音停止或发生错误时正确关闭数据行
                 if (targetDataLine != null && targetDataLine.isOpen()) {
@@ -84,8 +131,51 @@ public class AudioCapture {
     }
 
     /**
-     * Stops the audio capture gracefully.
+     * 获取录音设备的数据行（尚未打开）。测试可以覆盖它，用不需要录音设备的数据行驱动真实的捕获循环。
+     *
+     * @param format 需要的音频格式。
+     * @return 数据行；没有合适的设备时记录错误并返回null。
      */
+    TargetDataLine getLine(AudioFormat format) throws LineUnavailableException {
+        DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+        Mixer.Info mixer = mixerName == null ? null : findMixer(mixerName, info);
+        if (mixerName != null && mixer == null) {
+            log.error("No audio device matching '{}' supports format {}.", mixerName, format);
+            return null;
+        }
+        if (mixer == null && !AudioSystem.isLineSupported(info)) {
+            log.error("Audio line for format {} is not supported. Please check your microphone.", format);
+            return null;
+        }
+        return mixer == null
+                ? (TargetDataLine) AudioSystem.getLine(info) : AudioSystem.getTargetDataLine(format, mixer);
+    }
+
+    /**
+     * 查找名称包含指定文本、且支持所需数据行的录音设备。
+     */
+    private static Mixer.Info findMixer(String name, DataLine.Info info) {
+        for (Mixer.Info candidate : AudioSystem.getMixerInfo()) {
+            if (candidate.getName().contains(name) && AudioSystem.getMixer(candidate).isLineSupported(info)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 暂停或恢复交付音频。暂停只翻转捕获循环中的一个标志：数据行保持打开并继续运行，
+     * 恢复后的下一个音频块（最多100毫秒）就会交给消费者，不需要重新打开设备。
+     */
+    @Override
+    public void setPaused(boolean paused) {
+        isPaused = paused;
+    }
+
+    /**
+     * Stops the audio capture and releases the line. The instance can start recording again afterwards.
+     */
+    @Override
     public void stopRecording() {
         if (!isRecording) {
             // 如果已经停止，这通常不是一个警告，所以使用 debug 级别
@@ -95,21 +185,29 @@ public class AudioCapture {
         log.info("Attempting to stop audio recording...");
         isRecording = false; // 向录音线程发送停止信号
 
-        // 录音线程将在其 finally 块中处理 TargetDataLine 的关闭
-        // 我们只需要关闭 executor
-        executor.shutdown();
+        // 录音线程将在其 finally 块中处理 TargetDataLine 的关闭，这里只等待它结束
         try {
-            // 等待录音线程优雅地完成其当前工作和清理
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                log.warn("Executor did not terminate in the specified time. Forcing shutdown.");
-                executor.shutdownNow();
-            }
+            captureTask.get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Capture thread did not finish in the specified time. Interrupting it.");
+            captureTask.cancel(true);
+        } catch (ExecutionException e) {
+            log.error("Capture thread failed.", e.getCause());
         } catch (InterruptedException e) {
             log.error("Interrupted while waiting for recording to stop.", e);
-            executor.shutdownNow();
+            captureTask.cancel(true);
             // 保持中断状态
             Thread.currentThread().interrupt();
         }
         log.info("Audio recording stopped successfully.");
     }
+
+    /**
+     * Stops the audio capture and shuts down the capture thread. The instance cannot record again afterwards.
+     */
+    @Override
+    public void close() {
+        stopRecording();
+        executor.shutdown();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.polylingoflow.audio;
+
+import java.util.function.Consumer;
+
+/**
+ * 流水线的音频来源：麦克风（{@link AudioCapture}）或者按指定速度回放的音频文件（{@link WavFileSource}）。
+ *
+ * 音频格式固定为 16kHz、16位、单声道、有符号小端PCM。多声道的 {@link AudioCapture} 需要先经过 {@link ChannelSplitter} 拆分。
+ */
+public interface AudioSource extends AutoCloseable {
+
+    /**
+     * 开始产生音频。音频块在来源自己的线程上交给消费者，消费者不应阻塞。
+     *
+     * @param audioConsumer 接收音频块的消费者。
+     */
+    void startRecording(Consumer<byte[]> audioConsumer);
+
+    /**
+     * 暂停或恢复交付音频。暂停时来源保持打开（设备、线程都不释放），只是不再把音频块交给消费者，
+     * 因此恢复几乎没有代价。可以在 {@link #startRecording} 之前调用，使来源以暂停状态开始。
+     *
+     * @param paused 是否暂停。
+     */
+    void setPaused(boolean paused);
+
+    /**
+     * 停止产生音频并释放资源。
+     */
+    void stopRecording();
+
+    /**
+     * 停止产生音频并释放来源持有的全部资源（包括线程），之后不能再开始录音。默认与 {@link #stopRecording} 相同。
+     */
+    @Override
+    default void close() {
+        stopRecording();
+    }
+}
@@ -0,0 +1,152 @@
+package com.polylingoflow.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 把一个多声道的音频来源拆分为每个声道一路单声道的 {@link AudioSource}，
+ * 例如会议的立体声馈送中左右声道分别是不同的发言人，各自需要独立的 VAD 状态和转录。
+ *
+ * 上游来源在第一个声道开始时启动，在最后一个声道停止时停止；每个交错的音频块在上游的线程上拆分后交给各声道。
+ * 各声道可以单独暂停；所有声道都暂停时上游来源也暂停。所有声道都关闭后上游来源也关闭。
+ */
+public class ChannelSplitter {
+
+    private static final Logger log = LoggerFactory.getLogger(ChannelSplitter.class);
+
+    private static final int BYTES_PER_SAMPLE = 2;
+
+    private final AudioSource source;
+    private final int channels;
+    private final List<Channel> outputs = new ArrayList<>();
+    private int running = 0;
+    private int open;
+
+    /**
+     * @param source   产生交错的16位PCM音频块的来源，例如 {@code new AudioCapture(null, 2)}。
+     * @param channels 来源的声道数。
+     */
+    public ChannelSplitter(AudioSource source, int channels) {
+        if (channels < 1) {
+            throw new IllegalArgumentException("声道数必须至少为1: " + channels);
+        }
+        this.source = source;
+        this.channels = channels;
+        this.open = channels;
+        for (int i = 0; i < channels; i++) {
+            outputs.add(new Channel(i));
+        }
+    }
+
+    /**
+     * @param index 声道序号，从0开始（立体声中0为左声道）。
+     * @return 该声道的单声道音频来源。
+     */
+    public AudioSource channel(int index) {
+        return outputs.get(index);
+    }
+
+    public int getChannelCount() {
+        return channels;
+    }
+
+    private synchronized void start(Channel channel, Consumer<byte[]> consumer) {
+        if (channel.consumer != null) {
+            log.warn("声道 {} 已在录音中。", channel.index);
+            return;
+        }
+        channel.consumer = consumer;
+        if (running++ == 0) {
+            source.startRecording(this::split);
+        }
+    }
+
+    private synchronized void pause(Channel channel, boolean paused) {
+        channel.paused = paused;
+        boolean all = true;
+        for (Channel output : outputs) {
+            all &= output.paused;
+        }
+        source.setPaused(all);
+    }
+
+    private synchronized void stop(Channel channel) {
+        if (channel.consumer == null) {
+            return;
+        }
+        channel.consumer = null;
+        if (--running == 0) {
+            source.stopRecording();
+        }
+    }
+
+    private synchronized void close(Channel channel) {
+        stop(channel);
+        if (channel.closed) {
+            return;
+        }
+        channel.closed = true;
+        if (--open == 0) {
+            source.close();
+        }
+    }
+
+    /**
+     * 把一个交错的音频块拆分为各声道的单声道音频块。
+     */
+    private void split(byte[] interleaved) {
+        int frameBytes = channels * BYTES_PER_SAMPLE;
+        int frames = interleaved.length / frameBytes;
+        for (Channel channel : outputs) {
+            Consumer<byte[]> consumer = channel.consumer;
+            if (consumer == null || channel.paused) {
+                continue;
+            }
+            byte[] mono = new byte[frames * BYTES_PER_SAMPLE];
+            for (int frame = 0, in = channel.index * BYTES_PER_SAMPLE; frame < frames; frame++, in += frameBytes) {
+                mono[frame * BYTES_PER_SAMPLE] = interleaved[in];
+                mono[frame * BYTES_PER_SAMPLE + 1] = interleaved[in + 1];
+            }
+            consumer.accept(mono);
+        }
+    }
+
+    /**
+     * 一个声道的单声道音频来源。
+     */
+    private final class Channel implements AudioSource {
+
+        final int index;
+        volatile Consumer<byte[]> consumer;
+        volatile boolean paused;
+        boolean closed;
+
+        Channel(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void startRecording(Consumer<byte[]> audioConsumer) {
+            start(this, audioConsumer);
+        }
+
+        @Override
+        public void setPaused(boolean paused) {
+            pause(this, paused);
+        }
+
+        @Override
+        public void stopRecording() {
+            stop(this);
+        }
+
+        @Override
+        public void close() {
+            ChannelSplitter.this.close(this);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.polylingoflow.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 纯Java的无损语音编解码器（FLAC风格：固定阶线性预测 + Rice编码），用于压缩持久化的16位单声道PCM。
+ *
+ * 音频被切分为最多 {@link #FRAME_SAMPLES} 个采样的帧。每帧从0到4阶的固定多项式预测器中选择残差最小的一个，
+ * 残差经 zigzag 映射后按每 {@link #PARTITION_SAMPLES} 个采样一个分区进行 Rice 编码，每个分区使用各自的最优参数；
+ * 如果压缩后反而更大，该帧以原始16位采样存储。编码结果是一个连续的比特流：
+ * <pre>
+ * 32位 采样总数
+ * 每帧：3位 预测阶数（7 = 原始存储）| 阶数个16位预热采样 | 每个分区：5位 Rice参数 + 残差
+ * </pre>
+ * 编码和解码都是单趟、不回溯的，复用内部缓冲区，因此此类的实例不是线程安全的。
+ */
+public final class LosslessAudioCodec {
+
+    public static final int FRAME_SAMPLES = 4096;
+    public static final int PARTITION_SAMPLES = 256;
+
+    private static final int MAX_ORDER = 4;
+    private static final int VERBATIM = 7;
+    private static final int MAX_RICE_PARAMETER = 30;
+
+    private final int[] samples = new int[FRAME_SAMPLES];
+    private final int[] residual = new int[FRAME_SAMPLES];
+    private final long[] orderCost = new long[MAX_ORDER + 1];
+    private final int[] parameters = new int[FRAME_SAMPLES / PARTITION_SAMPLES];
+
+    // 比特写入状态
+    private byte[] out = new byte[0];
+    private int outPos;
+    private long bitBuffer;
+    private int bitCount;
+
+    // 比特读取状态
+    private ByteBuffer in;
+    private long readBuffer;
+    private int readBits;
+
+    /**
+     * @param samples 采样数。
+     * @return 编码结果的最大字节数（所有帧都退化为原始存储时）。
+     */
+    public static int maxEncodedBytes(int samples) {
+        int frames = (samples + FRAME_SAMPLES - 1) / FRAME_SAMPLES;
+        return 4 + frames + samples * 2 + 1;
+    }
+
+    /**
+     * 压缩缓冲区中剩余的16位小端PCM。缓冲区的位置不会被修改。
+     *
+     * @param pcm16le 输入的PCM数据，字节数必须为偶数。
+     * @return 压缩后的字节。
+     */
+    public byte[] encode(ByteBuffer pcm16le) {
+        if ((pcm16le.remaining() & 1) != 0) {
+            throw new IllegalArgumentException("16位PCM数据的字节数必须为偶数: " + pcm16le.remaining());
+        }
+        ByteBuffer input = pcm16le.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int total = input.remaining() / 2;
+        int capacity = maxEncodedBytes(total);
+        if (out.length < capacity) {
+            out = new byte[capacity];
+        }
+        outPos = 0;
+        bitBuffer = 0;
+        bitCount = 0;
+
+        writeBits(total, 32);
+        for (int remaining = total; remaining > 0; ) {
+            int n = Math.min(remaining, FRAME_SAMPLES);
+            for (int i = 0; i < n; i++) {
+                samples[i] = input.getShort();
+            }
+            encodeFrame(n);
+            remaining -= n;
+        }
+        flushBits();
+        return Arrays.copyOf(out, outPos);
+    }
+
+    /**
+     * 解压 {@link #encode} 的结果。缓冲区的位置会前进到压缩数据之后。
+     *
+     * @param encoded 压缩数据。
+     * @return 16位小端PCM字节。
+     */
+    public byte[] decode(ByteBuffer encoded) {
+        in = encoded;
+        readBuffer = 0;
+        readBits = 0;
+        try {
+            int total = readBits(32);
+            byte[] pcm = new byte[total * 2];
+            int pos = 0;
+            for (int remaining = total; remaining > 0; ) {
+                int n = Math.min(remaining, FRAME_SAMPLES);
+                decodeFrame(n);
+                for (int i = 0; i < n; i++) {
+                    int sample = samples[i];
+                    pcm[pos++] = (byte) sample;
+                    pcm[pos++] = (byte) (sample >> 8);
+                }
+                remaining -= n;
+            }
+            return pcm;
+        } finally {
+            in = null;
+        }
+    }
+
+    // --- 编码 ---
+
+    private void encodeFrame(int n) {
+        int order = n > MAX_ORDER ? chooseOrder(n) : 0;
+        computeResidual(order, n);
+
+        // 先计算每个分区的最优参数和比特数，如果不比原始存储小则直接原始存储
+        long riceBits = 0;
+        int partitions = (n + PARTITION_SAMPLES - 1) / PARTITION_SAMPLES;
+        for (int p = 0; p < partitions; p++) {
+            int from = Math.max(p * PARTITION_SAMPLES, order);
+            int to = Math.min((p + 1) * PARTITION_SAMPLES, n);
+            parameters[p] = riceParameter(from, to);
+            riceBits += 5 + riceBits(from, to, parameters[p]);
+        }
+
+        if (16L * order + riceBits >= 16L * n) {
+            writeBits(VERBATIM, 3);
+            for (int i = 0; i < n; i++) {
+                writeBits(samples[i] & 0xFFFF, 16);
+            }
+            return;
+        }
+
+        writeBits(order, 3);
+        for (int i = 0; i < order; i++) {
+            writeBits(samples[i] & 0xFFFF, 16);
+        }
+        for (int p = 0; p < partitions; p++) {
+            int from = Math.max(p * PARTITION_SAMPLES, order);
+            int to = Math.min((p + 1) * PARTITION_SAMPLES, n);
+            int k = parameters[p];
+            writeBits(k, 5);
+            for (int i = from; i < to; i++) {
+                int u = residual[i];
+                writeUnary(u >>> k);
+                writeBits(u, k);
+            }
+        }
+    }
+
+    /**
+     * 通过逐阶差分一次性估计0到4阶预测的残差绝对值之和，返回最小的阶数。
+     */
+    private int chooseOrder(int n) {
+        Arrays.fill(orderCost, 0);
+        int last0 = samples[MAX_ORDER - 1];
+        int last1 = last0 - samples[MAX_ORDER - 2];
+        int last2 = last1 - (samples[MAX_ORDER - 2] - samples[MAX_ORDER - 3]);
+        int last3 = last2 - (samples[MAX_ORDER - 2] - 2 * samples[MAX_ORDER - 3] + samples[MAX_ORDER - 4]);
+        for (int i = MAX_ORDER; i < n; i++) {
+            int e0 = samples[i];
+            int e1 = e0 - last0;
+            int e2 = e1 - last1;
+            int e3 = e2 - last2;
+            int e4 = e3 - last3;
+            orderCost[0] += Math.abs(e0);
+            orderCost[1] += Math.abs(e1);
+            orderCost[2] += Math.abs(e2);
+            orderCost[3] += Math.abs(e3);
+            orderCost[4] += Math.abs(e4);
+            last0 = e0;
+            last1 = e1;
+            last2 = e2;
+            last3 = e3;
+        }
+        int best = 0;
+        for (int order = 1; order <= MAX_ORDER; order++) {
+            if (orderCost[order] < orderCost[best]) {
+                best = order;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 计算指定阶数的预测残差，并以 zigzag 形式（非负）存入 residual[order..n)。
+     */
+    private void computeResidual(int order, int n) {
+        int[] x = samples;
+        for (int i = order; i < n; i++) {
+            int prediction = switch (order) {
+                case 0 -> 0;
+                case 1 -> x[i - 1];
+                case 2 -> 2 * x[i - 1] - x[i - 2];
+                case 3 -> 3 * x[i - 1] - 3 * x[i - 2] + x[i - 3];
+                default -> 4 * x[i - 1] - 6 * x[i - 2] + 4 * x[i - 3] - x[i - 4];
+            };
+            int error = x[i] - prediction;
+            residual[i] = (error << 1) ^ (error >> 31);
+        }
+    }
+
+    private int riceParameter(int from, int to) {
+        int count = to - from;
+        if (count <= 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += residual[i];
+        }
+        long mean = sum / count;
+        int estimate = mean > 0 ? 63 - Long.numberOfLeadingZeros(mean) : 0;
+        // 估计值附近再精确比较一次
+        int best = Math.min(estimate, MAX_RICE_PARAMETER);
+        long bestBits = riceBits(from, to, best);
+        for (int k = Math.max(0, estimate - 1); k <= Math.min(estimate + 1, MAX_RICE_PARAMETER); k++) {
+            long bits = riceBits(from, to, k);
+            if (bits < bestBits) {
+                best = k;
+                bestBits = bits;
+            }
+        }
+        return best;
+    }
+
+    private long riceBits(int from, int to, int k) {
+        long bits = (long) (to - from) * (k + 1);
+        for (int i = from; i < to; i++) {
+            bits += residual[i] >>> k;
+        }
+        return bits;
+    }
+
+    private void writeBits(int value, int n) {
+        if (n == 0) {
+            return;
+        }
+        bitBuffer = (bitBuffer << n) | (value & ((1L << n) - 1));
+        bitCount += n;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            out[outPos++] = (byte) (bitBuffer >>> bitCount);
+        }
+    }
+
+    private void writeUnary(int zeros) {
+        while (zeros >= 32) {
+            writeBits(0, 32);
+            zeros -= 32;
+        }
+        writeBits(1, zeros + 1);
+    }
+
+    private void flushBits() {
+        if (bitCount > 0) {
+            out[outPos++] = (byte) (bitBuffer << (8 - bitCount));
+            bitCount = 0;
+        }
+    }
+
+    // --- 解码 ---
+
+    private void decodeFrame(int n) {
+        int order = readBits(3);
+        if (order == VERBATIM) {
+            for (int i = 0; i < n; i++) {
+                samples[i] = (short) readBits(16);
+            }
+            return;
+        }
+        if (order > MAX_ORDER) {
+            throw new IllegalStateException("压缩音频已损坏：无效的预测阶数 " + order);
+        }
+        for (int i = 0; i < order; i++) {
+            samples[i] = (short) readBits(16);
+        }
+
+        int[] x = samples;
+        int partitions = (n + PARTITION_SAMPLES - 1) / PARTITION_SAMPLES;
+        for (int p = 0; p < partitions; p++) {
+            int from = Math.max(p * PARTITION_SAMPLES, order);
+            int to = Math.min((p + 1) * PARTITION_SAMPLES, n);
+            int k = readBits(5);
+            for (int i = from; i < to; i++) {
+                int u = (readUnary() << k) | readBits(k);
+                int error = (u >>> 1) ^ -(u & 1);
+                int prediction = switch (order) {
+                    case 0 -> 0;
+                    case 1 -> x[i - 1];
+                    case 2 -> 2 * x[i - 1] - x[i - 2];
+                    case 3 -> 3 * x[i - 1] - 3 * x[i - 2] + x[i - 3];
+                    default -> 4 * x[i - 1] - 6 * x[i - 2] + 4 * x[i - 3] - x[i - 4];
+                };
+                x[i] = prediction + error;
+            }
+        }
+    }
+
+    private int readBits(int n) {
+        if (n == 0) {
+            return 0;
+        }
+        while (readBits < n) {
+            readBuffer = (readBuffer << 8) | (in.get() & 0xFF);
+            readBits += 8;
+        }
+        readBits -= n;
+        return (int) ((readBuffer >>> readBits) & ((1L << n) - 1));
+    }
+
+    private int readUnary() {
+        int zeros = 0;
+        while (true) {
+            if (readBits == 0) {
+                readBuffer = in.get() & 0xFF;
+                readBits = 8;
+            }
+            long pending = readBuffer & ((1L << readBits) - 1);
+            if (pending == 0) {
+                zeros += readBits;
+                readBits = 0;
+                continue;
+            }
+            int leading = Long.numberOfLeadingZeros(pending) - (64 - readBits);
+            readBits -= leading + 1;
+            return zeros + leading;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.polylingoflow.audio;
+
+import java.util.function.Consumer;
+
+/**
+ * 由外部推送音频的来源，例如流式服务器中客户端上传的 PCM。
+ *
+ * 推送的字节可以是任意长度，这里重新切分为与 {@link AudioCapture} 相同的100毫秒音频块后交给流水线。
+ * 客户端应按实时速度推送：流水线的 VAD 队列满时会丢弃音频块，而不会阻塞推送方。
+ * 停止时交出剩余的不完整音频块；最后一个语音片段由流水线在关闭时结束并转录。
+ * 暂停期间推送的音频被丢弃。
+ */
+public class PushAudioSource implements AudioSource {
+
+    private static final int CHUNK_BYTES = 3200;
+    private static final int BYTES_PER_MILLI = 32;
+
+    private final byte[] pending = new byte[CHUNK_BYTES];
+    private int pendingLength = 0;
+    private long pushedBytes = 0;
+    private Consumer<byte[]> consumer;
+    private boolean paused = false;
+
+    @Override
+    public synchronized void startRecording(Consumer<byte[]> audioConsumer) {
+        this.consumer = audioConsumer;
+    }
+
+    /**
+     * 推送一段 16kHz、16位、单声道、小端的 PCM。在 {@link #startRecording} 之前、暂停期间或 {@link #stopRecording()}
+     * 之后推送的音频被忽略。
+     *
+     * @param data   音频数据。
+     * @param offset 起始位置。
+     * @param length 字节数，不必是完整的采样或音频块。
+     */
+    public synchronized void write(byte[] data, int offset, int length) {
+        if (consumer == null || paused) {
+            return;
+        }
+        pushedBytes += length;
+        while (length > 0) {
+            int n = Math.min(length, CHUNK_BYTES - pendingLength);
+            System.arraycopy(data, offset, pending, pendingLength, n);
+            pendingLength += n;
+            offset += n;
+            length -= n;
+            if (pendingLength == CHUNK_BYTES) {
+                consumer.accept(pending.clone());
+                pendingLength = 0;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setPaused(boolean paused) {
+        if (paused && !this.paused) {
+            // 暂停前推送的不完整音频块不会与恢复后的音频拼接
+            pendingLength = 0;
+        }
+        this.paused = paused;
+    }
+
+    /**
+     * @return 已推送的音频时长（毫秒，不包括暂停期间被丢弃的音频）。
+     */
+    public synchronized long getPushedMillis() {
+        return pushedBytes / BYTES_PER_MILLI;
+    }
+
+    @Override
+    public synchronized void stopRecording() {
+        if (consumer == null) {
+            return;
+        }
+        // 只交出完整的采样
+        int complete = pendingLength & ~1;
+        if (complete > 0) {
+            byte[] rest = new byte[complete];
+            System.arraycopy(pending, 0, rest, 0, complete);
+            consumer.accept(rest);
+        }
+        pendingLength = 0;
+        consumer = null;
+    }
+}
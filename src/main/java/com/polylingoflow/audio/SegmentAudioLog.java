@@ -0,0 +1,267 @@
+package com.polylingoflow.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话语音片段的只追加日志，用于日后回放和重新转录。
+ *
+ * 每个语音片段的PCM（16kHz、16位、单声道、小端）依次追加到分段数据文件
+ * {@code audio-00000.dat}、{@code audio-00001.dat} …（单个文件达到上限后滚动到下一个），
+ * 默认先经 {@link LosslessAudioCodec} 无损压缩。同时在 {@code audio.idx} 中追加一个定长索引条目：
+ * <pre>
+ * long sequence | long startTimeMillis | long endTimeMillis | long sampleOffset
+ * | int file | long offset | int length | int samples | int codec
+ * </pre>
+ * 其中 sampleOffset 是该片段第一个采样在整个会话语音中的采样序号，codec 为 {@link #CODEC_RAW} 或 {@link #CODEC_LOSSLESS}。
+ * 索引条目总是在对应数据写入之后才写入，因此崩溃后索引始终指向完整的数据。
+ *
+ * {@link #append} 只把片段放入有界队列，由后台线程写盘，从不阻塞调用方（捕获/VAD线程）；
+ * 队列已满时丢弃该片段并计数。读取请使用 {@link SegmentAudioLogReader}。
+ *
+ * 一个日志目录只属于一个会话：每个会话的序列号都从0开始，而回放、重排序和归档都要求序列号递增。
+ * 新会话请用 {@link #openSession} 在日志根目录下创建自己的子目录；重新打开已有目录只用于崩溃后继续同一个会话。
+ */
+public class SegmentAudioLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentAudioLog.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final long DEFAULT_MAX_FILE_BYTES = 256L * 1024 * 1024;
+
+    static final String INDEX_FILE = "audio.idx";
+    static final int INDEX_ENTRY_BYTES = 8 * 4 + 4 + 8 + 4 + 4 + 4;
+    static final int BYTES_PER_SAMPLE = 2;
+    static final int CODEC_RAW = 0;
+    static final int CODEC_LOSSLESS = 1;
+
+    private record PendingSegment(long sequence, long startTimeMillis, long endTimeMillis, byte[] pcm) {}
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final boolean compress;
+    private final BlockingQueue<PendingSegment> queue;
+    private final Thread writerThread;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed = false;
+
+    // 以下状态只由写线程访问
+    private final FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+    private final LosslessAudioCodec codec = new LosslessAudioCodec();
+    private FileChannel dataChannel;
+    private int fileNumber;
+    private long sampleOffset;
+
+    public SegmentAudioLog(Path directory) throws IOException {
+        this(directory, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_FILE_BYTES, true);
+    }
+
+    /**
+     * 在日志根目录下为一个新会话创建子目录，并在其中打开日志。
+     * 同名目录已存在时（例如同一秒内启动的两个会话）在名称后加上数字后缀，不会追加到其他会话的日志中。
+     *
+     * @param root        日志根目录，不存在时会被创建。
+     * @param sessionName 会话名称，作为子目录名。
+     * @return 新会话的日志。
+     * @throws IOException 如果无法创建目录或打开日志文件。
+     */
+    public static SegmentAudioLog openSession(Path root, String sessionName) throws IOException {
+        Files.createDirectories(root);
+        for (int attempt = 0; ; attempt++) {
+            Path directory = root.resolve(attempt == 0 ? sessionName : sessionName + "-" + attempt);
+            try {
+                Files.createDirectory(directory);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            return new SegmentAudioLog(directory);
+        }
+    }
+
+    /**
+     * 打开（或在崩溃后继续追加）指定目录下的音频日志，并启动后台写线程。
+     * 继续追加时，调用方必须保证新的序列号大于日志中已有的序列号。
+     *
+     * @param directory     日志目录，不存在时会被创建。
+     * @param queueCapacity 等待写盘的最大片段数。
+     * @param maxFileBytes  单个数据文件的大小上限，超过后滚动到新文件。
+     * @param compress      是否在后台写线程上对音频进行无损压缩（语音通常可压缩到原始大小的一半左右）。
+     * @throws IOException 如果无法打开日志文件。
+     */
+    public SegmentAudioLog(Path directory, int queueCapacity, long maxFileBytes, boolean compress) throws IOException {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.compress = compress;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Files.createDirectories(directory);
+        this.indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+
+        this.writerThread = new Thread(this::writeLoop, "segment-audio-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("语音片段日志已打开: {}（文件 {}，采样偏移 {}）", directory, fileNumber, sampleOffset);
+    }
+
+    /**
+     * 将一个语音片段放入写盘队列。此方法从不阻塞。
+     *
+     * @param sequence        片段序列号。
+     * @param startTimeMillis 片段开始时间。
+     * @param endTimeMillis   片段结束时间。
+     * @param pcm             片段的PCM数据；调用方之后不得再修改此数组。
+     * @return 如果片段已入队则返回true；日志已关闭或队列已满时返回false。
+     */
+    public boolean append(long sequence, long startTimeMillis, long endTimeMillis, byte[] pcm) {
+        if (closed || !queue.offer(new PendingSegment(sequence, startTimeMillis, endTimeMillis, pcm))) {
+            long count = dropped.incrementAndGet();
+            log.warn("语音片段日志队列已满或已关闭，丢弃片段 {}（累计丢弃 {}）", sequence, count);
+            return false;
+        }
+        return true;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 写完队列中剩余的片段，然后将日志同步到磁盘并关闭。
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (dataChannel != null) {
+                dataChannel.force(false);
+                dataChannel.close();
+            }
+            indexChannel.force(false);
+            indexChannel.close();
+        } catch (IOException e) {
+            log.error("关闭语音片段日志失败: {}", directory, e);
+        }
+        log.info("语音片段日志已关闭：写入 {} 个片段，丢弃 {} 个。", written.get(), dropped.get());
+    }
+
+    private void writeLoop() {
+        while (!closed || !queue.isEmpty()) {
+            PendingSegment segment;
+            try {
+                segment = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (segment == null) {
+                continue;
+            }
+            try {
+                write(segment);
+                written.incrementAndGet();
+            } catch (IOException e) {
+                dropped.incrementAndGet();
+                log.error("写入语音片段 {} 失败", segment.sequence(), e);
+            }
+        }
+    }
+
+    private void write(PendingSegment segment) throws IOException {
+        int samples = segment.pcm().length / BYTES_PER_SAMPLE;
+        byte[] stored = compress ? codec.encode(ByteBuffer.wrap(segment.pcm(), 0, samples * BYTES_PER_SAMPLE))
+                : segment.pcm();
+
+        if (dataChannel == null || (dataChannel.size() > 0 && dataChannel.size() + stored.length > maxFileBytes)) {
+            rollDataFile(dataChannel == null ? fileNumber : fileNumber + 1);
+        }
+        long offset = dataChannel.size();
+        ByteBuffer data = ByteBuffer.wrap(stored);
+        while (data.hasRemaining()) {
+            dataChannel.write(data, offset + data.position());
+        }
+
+        indexEntry.clear();
+        indexEntry.putLong(segment.sequence()).putLong(segment.startTimeMillis()).putLong(segment.endTimeMillis())
+                .putLong(sampleOffset).putInt(fileNumber).putLong(offset).putInt(stored.length).putInt(samples)
+                .putInt(compress ? CODEC_LOSSLESS : CODEC_RAW).flip();
+        while (indexEntry.hasRemaining()) {
+            indexChannel.write(indexEntry, indexChannel.size());
+        }
+        sampleOffset += samples;
+    }
+
+    private void rollDataFile(int number) throws IOException {
+        if (dataChannel != null) {
+            dataChannel.force(false);
+            dataChannel.close();
+        }
+        fileNumber = number;
+        dataChannel = FileChannel.open(dataFile(directory, number), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 从已有的索引恢复追加位置：丢弃崩溃时写了一半的索引条目，
+     * 并从最后一个完整条目之后继续（其后未被索引的数据会被覆盖）。
+     */
+    private void recover() throws IOException {
+        long entries = indexChannel.size() / INDEX_ENTRY_BYTES;
+        indexChannel.truncate(entries * INDEX_ENTRY_BYTES);
+        if (entries == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        while (last.hasRemaining()) {
+            if (indexChannel.read(last, (entries - 1) * INDEX_ENTRY_BYTES + last.position()) < 0) {
+                throw new IOException("无法读取语音片段索引: " + directory);
+            }
+        }
+        last.flip();
+        last.position(8 * 3);
+        long lastSampleOffset = last.getLong();
+        int lastFile = last.getInt();
+        long lastOffset = last.getLong();
+        int lastLength = last.getInt();
+        int lastSamples = last.getInt();
+
+        sampleOffset = lastSampleOffset + lastSamples;
+        rollDataFile(lastFile);
+        dataChannel.truncate(lastOffset + lastLength);
+    }
+
+    static Path dataFile(Path directory, int number) {
+        return directory.resolve(String.format("audio-%05d.dat", number));
+    }
+}
@@ -0,0 +1,136 @@
+package com.polylingoflow.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 通过内存映射读取 {@link SegmentAudioLog} 写出的语音片段日志。
+ *
+ * 索引和每个数据文件各映射一次。未压缩片段的PCM是映射区上的只读切片，不复制音频数据；
+ * 压缩片段直接从映射区解码（解码速度远高于实时），因此回放可以全速把片段送回转录流水线。
+ * 打开后写入的新片段不可见。
+ */
+public class SegmentAudioLogReader implements AutoCloseable {
+
+    /**
+     * 日志中的一个语音片段。
+     *
+     * @param sequence        片段序列号。
+     * @param startTimeMillis 片段开始时间。
+     * @param endTimeMillis   片段结束时间。
+     * @param sampleOffset    片段第一个采样在会话语音中的采样序号。
+     * @param pcm             PCM数据（16位小端），位置为0、界限为片段长度。
+     */
+    public record SegmentAudio(long sequence, long startTimeMillis, long endTimeMillis, long sampleOffset,
+                               ByteBuffer pcm) {}
+
+    private final Path directory;
+    private final ByteBuffer index;
+    private final int size;
+    private final List<MappedByteBuffer> dataFiles = new ArrayList<>();
+    private final ThreadLocal<LosslessAudioCodec> codec = ThreadLocal.withInitial(LosslessAudioCodec::new);
+
+    /**
+     * 映射指定目录下的索引和所有数据文件。
+     *
+     * @param directory 日志目录。
+     * @throws IOException 如果索引不存在或无法映射。
+     */
+    public SegmentAudioLogReader(Path directory) throws IOException {
+        this.directory = directory;
+        try (FileChannel channel = FileChannel.open(directory.resolve(SegmentAudioLog.INDEX_FILE),
+                StandardOpenOption.READ)) {
+            // 忽略崩溃时写了一半的最后一个条目
+            this.size = (int) (channel.size() / SegmentAudioLog.INDEX_ENTRY_BYTES);
+            this.index = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    (long) size * SegmentAudioLog.INDEX_ENTRY_BYTES);
+        }
+        for (int number = 0; Files.exists(SegmentAudioLog.dataFile(directory, number)); number++) {
+            try (FileChannel channel = FileChannel.open(SegmentAudioLog.dataFile(directory, number),
+                    StandardOpenOption.READ)) {
+                dataFiles.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+    }
+
+    /**
+     * @return 日志中的片段数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i 片段索引，按写入（说话）顺序。
+     * @return 该片段；其PCM缓冲区是独立的视图，可以在任意线程中读取。
+     */
+    public SegmentAudio get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        int entry = i * SegmentAudioLog.INDEX_ENTRY_BYTES;
+        long sequence = index.getLong(entry);
+        long startTimeMillis = index.getLong(entry + 8);
+        long endTimeMillis = index.getLong(entry + 16);
+        long sampleOffset = index.getLong(entry + 24);
+        int file = index.getInt(entry + 32);
+        int offset = (int) index.getLong(entry + 36);
+        int length = index.getInt(entry + 44);
+        int codecId = index.getInt(entry + 52);
+
+        ByteBuffer stored = dataFiles.get(file).asReadOnlyBuffer();
+        stored.position(offset).limit(offset + length);
+        ByteBuffer pcm = switch (codecId) {
+            case SegmentAudioLog.CODEC_RAW -> stored.slice();
+            case SegmentAudioLog.CODEC_LOSSLESS -> ByteBuffer.wrap(codec.get().decode(stored));
+            default -> throw new IllegalStateException("未知的音频编码 " + codecId + ": " + directory);
+        };
+        return new SegmentAudio(sequence, startTimeMillis, endTimeMillis, sampleOffset,
+                pcm.order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * 二分查找包含某个采样的片段。
+     *
+     * @param sampleOffset 会话语音中的采样序号。
+     * @return 片段索引；如果采样超出日志范围则返回-1。
+     */
+    public int indexOfSample(long sampleOffset) {
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (index.getLong(mid * SegmentAudioLog.INDEX_ENTRY_BYTES + 24) <= sampleOffset) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return -1;
+        }
+        int entry = found * SegmentAudioLog.INDEX_ENTRY_BYTES;
+        long samples = index.getInt(entry + 48);
+        return sampleOffset < index.getLong(entry + 24) + samples ? found : -1;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        // 映射区在不再被引用时由GC释放；这里只清除引用
+        dataFiles.clear();
+    }
+}
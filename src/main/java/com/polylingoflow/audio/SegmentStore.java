@@ -0,0 +1,320 @@
+package com.polylingoflow.audio;
+
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 等待转录的语音片段的存储，有总内存预算。
+ *
+ * 片段的 PCM 复制到堆外的直接缓冲区中，不占用堆：积压再多，堆的大小也不变。
+ * 在内存中的片段总量超过预算时，把最旧的、尚未被读取的片段写入临时文件（溢出）；
+ * 转录工作线程读取它时（{@link Segment#pcm()}）再把文件映射回来，调用方看不出区别。
+ * 锁内只挑选要溢出的片段和更新计数，文件的创建、写入和映射都在锁外进行，磁盘慢时不会阻塞其他流的存入和读取。
+ * 片段用完后必须调用 {@link Segment#release()}，归还预算并删除溢出文件。
+ *
+ * 已释放的直接缓冲区和映射由 GC 回收，其本地内存随之归还；可以用 {@code -XX:MaxDirectMemorySize} 限制堆外内存的上限。
+ * 所有流水线默认共享 {@link #global()}，因此多路流的积压共用一个预算。
+ */
+public final class SegmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentStore.class);
+
+    /** 默认的内存预算：64MB，约35分钟的16kHz单声道语音。 */
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;
+
+    private static final SegmentStore GLOBAL = new SegmentStore(DEFAULT_MEMORY_BUDGET_BYTES, null);
+
+    private static final LongAdder spills = MetricsRegistry.global().counter(MetricNames.SEGMENT_STORE_SPILLS);
+
+    static {
+        MetricsRegistry.global().gauge(MetricNames.SEGMENT_STORE_MEMORY, () -> GLOBAL.getMemoryBytes());
+        MetricsRegistry.global().gauge(MetricNames.SEGMENT_STORE_SPILLED, () -> GLOBAL.getSpilledBytes());
+    }
+
+    private volatile long memoryBudgetBytes;
+    // 由 spillDirectoryLock 保护
+    private Path spillDirectory;
+    private final Object spillDirectoryLock = new Object();
+
+    // 在内存中且尚未被读取的片段，最旧的在前；只有它们会被溢出。以下字段都由 this 保护
+    private final Deque<Segment> resident = new ArrayDeque<>();
+    private long memoryBytes = 0;
+    private long spilledBytes = 0;
+    // 已选中、正在写入磁盘的片段总量；写完之前仍计入 memoryBytes
+    private long spillingBytes = 0;
+
+    /**
+     * @param memoryBudgetBytes 在内存中的片段总量上限（字节）。
+     * @param spillDirectory    溢出文件所在的目录；为null时在第一次溢出时创建一个临时目录。
+     */
+    public SegmentStore(long memoryBudgetBytes, Path spillDirectory) {
+        setMemoryBudget(memoryBudgetBytes);
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * @return 进程范围的存储，流水线默认使用它。
+     */
+    public static SegmentStore global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 调整内存预算。降低预算不会立即溢出，而是在下一次存入片段时生效。
+     *
+     * @param memoryBudgetBytes 在内存中的片段总量上限（字节）。
+     */
+    public void setMemoryBudget(long memoryBudgetBytes) {
+        if (memoryBudgetBytes < 0) {
+            throw new IllegalArgumentException("内存预算不能为负数: " + memoryBudgetBytes);
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * @return 在内存中的片段总量（字节），包括正在被转录的片段。
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * @return 溢出到磁盘、尚未释放的片段总量（字节）。
+     */
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * 存入一个片段。数据被复制到堆外，调用方可以立即重用 {@code pcm}；缓冲区的位置不会被修改。
+     * 超出预算时，最旧的尚未被读取的片段被溢出到磁盘（在调用线程上、锁外写入）；新存入的片段总是留在内存中。
+     *
+     * @param pcm 片段的 PCM 数据（缓冲区中剩余的字节）。
+     * @return 片段的句柄。
+     */
+    public Segment put(ByteBuffer pcm) {
+        ByteBuffer memory = ByteBuffer.allocateDirect(pcm.remaining());
+        memory.put(pcm.duplicate()).flip();
+        Segment segment = new Segment(memory);
+        List<Segment> victims = new ArrayList<>();
+        synchronized (this) {
+            resident.addLast(segment);
+            memoryBytes += segment.length;
+            // 正在被其他线程溢出的片段不再重复计算
+            while (memoryBytes - spillingBytes > memoryBudgetBytes && resident.size() > 1) {
+                Segment oldest = resident.pollFirst();
+                oldest.spilling = true;
+                spillingBytes += oldest.length;
+                victims.add(oldest);
+            }
+        }
+        for (int i = 0; i < victims.size(); i++) {
+            if (!spill(victims.get(i))) {
+                // 无法写入磁盘时宁可超出预算，也不丢弃音频：其余片段原样放回
+                restore(victims.subList(i, victims.size()));
+                break;
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * @see #put(ByteBuffer)
+     */
+    public Segment put(byte[] pcm) {
+        return put(ByteBuffer.wrap(pcm));
+    }
+
+    /**
+     * 把一个已选中的片段写入溢出文件，然后在锁内换掉它的内存。不能持有 this 调用。
+     * 写入期间片段被读取或释放时，写好的文件作废，片段保持原样。
+     *
+     * @return 是否成功写入；失败时片段的溢出标记保持不变，由调用方放回。
+     */
+    private boolean spill(Segment segment) {
+        ByteBuffer data;
+        synchronized (this) {
+            if (segment.released || segment.read) {
+                // 写入之前已被释放或读取
+                spillingBytes -= segment.length;
+                segment.spilling = false;
+                return true;
+            }
+            data = segment.memory.duplicate();
+        }
+        Path file;
+        try {
+            file = Files.createTempFile(spillDirectory(), "segment-", ".pcm");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+        } catch (IOException e) {
+            log.error("无法把片段（{} 字节）溢出到磁盘", segment.length, e);
+            return false;
+        }
+        boolean committed;
+        synchronized (this) {
+            spillingBytes -= segment.length;
+            segment.spilling = false;
+            committed = !segment.released && !segment.read;
+            if (committed) {
+                segment.spillFile = file;
+                segment.memory = null;
+                memoryBytes -= segment.length;
+                spilledBytes += segment.length;
+            }
+        }
+        if (!committed) {
+            deleteSpillFile(file);
+            return true;
+        }
+        spills.increment();
+        log.debug("片段（{} 字节）已溢出到 {}", segment.length, file);
+        return true;
+    }
+
+    /**
+     * 把溢出失败的片段放回队首，保持从旧到新的顺序；期间被读取或释放的片段不再放回。
+     */
+    private synchronized void restore(List<Segment> segments) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            spillingBytes -= segment.length;
+            segment.spilling = false;
+            if (!segment.released && !segment.read) {
+                resident.addFirst(segment);
+            }
+        }
+    }
+
+    private Path spillDirectory() throws IOException {
+        synchronized (spillDirectoryLock) {
+            if (spillDirectory == null) {
+                spillDirectory = Files.createTempDirectory("polylingoflow-segments");
+                spillDirectory.toFile().deleteOnExit();
+            }
+            return spillDirectory;
+        }
+    }
+
+    private static void deleteSpillFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("无法删除溢出文件: {}", file, e);
+        }
+    }
+
+    /**
+     * 存储中的一个片段。
+     */
+    public final class Segment {
+
+        private final int length;
+        // 在内存中时非null；溢出后为null，spillFile 非null
+        private ByteBuffer memory;
+        private Path spillFile;
+        private boolean released = false;
+        // 已被读取的片段不再溢出
+        private boolean read = false;
+        // 已被选中溢出、正在写入磁盘（此时不在 resident 中）
+        private boolean spilling = false;
+
+        private Segment(ByteBuffer memory) {
+            this.memory = memory;
+            this.length = memory.remaining();
+        }
+
+        /**
+         * @return PCM 数据的字节数。
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * 读取片段。读取过的片段不再被溢出；已溢出的片段从文件映射回来。
+         *
+         * @return 片段 PCM 数据的只读缓冲区（小端）。
+         * @throws IllegalStateException 如果片段已被释放，或者溢出文件无法读取。
+         */
+        public ByteBuffer pcm() {
+            Path file;
+            synchronized (SegmentStore.this) {
+                if (released) {
+                    throw new IllegalStateException("片段已被释放");
+                }
+                read = true;
+                if (memory != null) {
+                    if (!spilling) {
+                        resident.remove(this);
+                    }
+                    return memory.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+                }
+                file = spillFile;
+            }
+            // 在锁外映射；溢出文件只在释放时删除
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException e) {
+                throw new IllegalStateException("无法读取溢出的片段: " + file, e);
+            }
+        }
+
+        /**
+         * @return 片段是否已溢出到磁盘。
+         */
+        public boolean isSpilled() {
+            synchronized (SegmentStore.this) {
+                return spillFile != null;
+            }
+        }
+
+        /**
+         * 释放片段：归还内存预算并删除溢出文件。重复调用无效。之前由 {@link #pcm()} 返回的缓冲区仍然可读。
+         */
+        public void release() {
+            Path file;
+            synchronized (SegmentStore.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                if (memory != null) {
+                    if (!spilling) {
+                        resident.remove(this);
+                    }
+                    memoryBytes -= length;
+                    memory = null;
+                } else {
+                    spilledBytes -= length;
+                }
+                file = spillFile;
+            }
+            if (file != null) {
+                deleteSpillFile(file);
+            }
+        }
+    }
+}
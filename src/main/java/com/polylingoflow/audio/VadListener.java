@@ -10,6 +10,18 @@ public interface VadListener {
      */
     void onSpeechStart();
 
+    /**
+     * 与 {@link #onSpeechStart()} 相同，但额外提供片段的序列号和开始时间。
+     * 序列号在VAD阶段分配且单调递增，可用于在并发处理后恢复片段的说话顺序。
+     * 默认实现委托给 {@link #onSpeechStart()}。
+     *
+     * @param sequence        片段序列号。
+     * @param startTimeMillis 片段相对于录音开始的开始时间（毫秒）。
+     */
+    default void onSpeechStart(long sequence, long startTimeMillis) {
+        onSpeechStart();
+    }
+
     /**
      * 对于属于语音片段的每个音频块，都会调用此方法。
      * @param audioData PCM音频数据块。
@@ -21,4 +33,16 @@ public interface VadListener {
      * 在这里，你可以获得完整的语音数据并将其发送到识别引擎。
      */
     void onSpeechEnd();
+
+    /**
+     * 与 {@link #onSpeechEnd()} 相同，但额外提供片段的序列号和起止时间。
+     * 默认实现委托给 {@link #onSpeechEnd()}。
+     *
+     * @param sequence        片段序列号，与对应的 {@link #onSpeechStart(long, long)} 一致。
+     * @param startTimeMillis 片段的开始时间（毫秒）。
+     * @param endTimeMillis   片段的结束时间（毫秒）。
+     */
+    default void onSpeechEnd(long sequence, long startTimeMillis, long endTimeMillis) {
+        onSpeechEnd();
+    }
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.polylingoflow.audio;
 
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.tracing.TraceContext;
+import com.polylingoflow.tracing.VadSegmentEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.Objects;
 
 /**
@@ -12,6 +15,7 @@ import java.util.Objects;
  *
  * 此实现通过计算传入音频块的能量（均方根）并将其与阈值进行比较来检测语音。
  * 它是“有状态的”，意味着它会跟踪语音和静音的周期，以识别完整的语音片段。
+ * 每个片段分配一个递增的序列号，它同时作为整个流水线中该片段的关联ID（JFR 事件、流水线事件、导出记录都使用它）。
  *
  * 注意：这是一个适用于低噪音环境的基础实现。
  * 为了在嘈杂条件下获得稳健的性能，请考虑使用预训练的机器学习模型，
@@ -20,16 +24,27 @@ import java.util.Objects;
 public class VadProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(VadProcessor.class);
+    private static final LatencyHistogram processTime = MetricsRegistry.global().histogram(MetricNames.VAD_PROCESS);
+    private static final LatencyHistogram decisionDelay = MetricsRegistry.global().histogram(MetricNames.VAD_DECISION_DELAY);
+
+    // 16kHz、16位单声道PCM每毫秒的字节数，用于从已处理的字节数推算时间戳
+    private static final int BYTES_PER_MILLI = 32;
 
     // --- 配置参数 ---
     private final VadListener listener;
     private final double energyThreshold; // 用于语音检测的RMS能量阈值
-    private final int silenceMillisThreshold; // 必须持续多长时间的静音才能触发onSpeechEnd
+    private final int frameMillis;
+    private volatile int silenceMillisThreshold; // 必须持续多长时间的静音才能触发onSpeechEnd
 
     // --- 内部状态 ---
     private boolean isSpeaking = false;
     private int silentFrameCount = 0;
-    private final int silentFramesRequired;
+    private volatile int silentFramesRequired;
+    private long processedBytes = 0;      // 自开始处理以来的音频字节总数
+    private long segmentSequence = -1;    // 当前（或最近一个）语音片段的序列号
+    private long segmentStartMillis = 0;
+    private long lastSpeechNanos = 0;     // 最后一个语音块被处理的时刻，用于统计判定延迟
+    private VadSegmentEvent segmentEvent; // 当前片段的 JFR 事件，在语音结束时提交
 
     /**
      * 构造一个VadProcessor。
@@ -42,6 +57,7 @@ public class VadProcessor {
     public VadProcessor(VadListener listener, int frameMillis, double energyThreshold, int silenceMillisThreshold) {
         this.listener = Objects.requireNonNull(listener, "Listener cannot be null");
         this.energyThreshold = energyThreshold;
+        this.frameMillis = frameMillis;
         this.silenceMillisThreshold = silenceMillisThreshold;
         // 计算需要多少个静音帧才能确认语音结束
         this.silentFramesRequired = silenceMillisThreshold / frameMillis;
@@ -50,6 +66,21 @@ public class VadProcessor {
                 energyThreshold, silenceMillisThreshold, this.silentFramesRequired);
     }
 
+    /**
+     * 调整判定语音结束所需的静音时长，从下一个音频块开始生效（可以从任意线程调用，例如自动调优器）。
+     * 较长的窗口产生更少、更长的片段（每次推理的固定开销更少），较短的窗口降低延迟。
+     *
+     * @param silenceMillis 静音时长（毫秒）。
+     */
+    public void setSilenceMillisThreshold(int silenceMillis) {
+        this.silenceMillisThreshold = silenceMillis;
+        this.silentFramesRequired = Math.max(1, silenceMillis / frameMillis);
+    }
+
+    public int getSilenceMillisThreshold() {
+        return silenceMillisThreshold;
+    }
+
     /**
      * 处理一个音频块以检测语音。
      * 此方法应使用固定大小的音频块连续调用。
@@ -61,8 +92,18 @@ public class VadProcessor {
         if (pcmAudioData == null || pcmAudioData.length == 0) {
             return;
         }
+        long startNanos = System.nanoTime();
+        try {
+            detect(pcmAudioData, startNanos);
+        } finally {
+            processTime.recordSince(startNanos);
+        }
+    }
 
+    private void detect(byte[] pcmAudioData, long nowNanos) {
         double energy = calculateRmsEnergy(pcmAudioData);
+        long chunkStartMillis = processedBytes / BYTES_PER_MILLI;
+        processedBytes += pcmAudioData.length;
 
         boolean isCurrentlySpeech = energy > energyThreshold;
 
@@ -70,10 +111,17 @@ public class VadProcessor {
             // 检测到语音
             if (!isSpeaking) {
                 isSpeaking = true;
-                log.debug("Speech started (Energy: {})", String.format("%.2f", energy));
-                listener.onSpeechStart();
+                segmentSequence++;
+                segmentStartMillis = chunkStartMillis;
+                segmentEvent = new VadSegmentEvent();
+                segmentEvent.begin();
+                if (log.isDebugEnabled()) {
+                    log.debug("Speech started (Segment: {}, Energy: {})", segmentSequence, String.format("%.2f", energy));
+                }
+                listener.onSpeechStart(segmentSequence, segmentStartMillis);
             }
             silentFrameCount = 0;
+            lastSpeechNanos = nowNanos;
             listener.onSpeech(pcmAudioData);
         } else {
             // 检测到静音
@@ -82,8 +130,10 @@ public class VadProcessor {
                 if (silentFrameCount >= silentFramesRequired) {
                     isSpeaking = false;
                     log.debug("Speech ended (Silence frames: {})", silentFrameCount);
+                    decisionDelay.record(nowNanos - lastSpeechNanos);
+                    commitSegmentEvent(chunkStartMillis);
                     // 在触发 onSpeechEnd 之前，先将最后一个静音前的语音块发送出去
-                    listener.onSpeechEnd();
+                    listener.onSpeechEnd(segmentSequence, segmentStartMillis, chunkStartMillis);
                     silentFrameCount = 0; // 触发事件后重置
                 } else {
                     // 仍在静音的宽限期内，将其视作持续语音的一部分（例如，单词之间的短暂暂停）
@@ -94,6 +144,33 @@ public class VadProcessor {
         }
     }
 
+    /**
+     * 立即结束正在进行的语音片段（如果有），不等待静音窗口，例如暂停录音时。
+     * 与 {@link #process} 一样必须在处理音频块的线程上调用。
+     */
+    public void flush() {
+        if (!isSpeaking) {
+            return;
+        }
+        long endMillis = processedBytes / BYTES_PER_MILLI;
+        isSpeaking = false;
+        silentFrameCount = 0;
+        log.debug("Speech ended by flush (Segment: {})", segmentSequence);
+        commitSegmentEvent(endMillis);
+        listener.onSpeechEnd(segmentSequence, segmentStartMillis, endMillis);
+    }
+
+    private void commitSegmentEvent(long endMillis) {
+        if (segmentEvent.shouldCommit()) {
+            segmentEvent.stream = TraceContext.stream();
+            segmentEvent.correlationId = segmentSequence;
+            segmentEvent.startMillis = segmentStartMillis;
+            segmentEvent.endMillis = endMillis;
+            segmentEvent.commit();
+        }
+        segmentEvent = null;
+    }
+
     /**
      * 计算16位PCM音频块的均方根（RMS）能量。
      *
@@ -105,12 +182,9 @@ public class VadProcessor {
         // 音频是16位的，所以每个采样点2个字节。
         int sampleCount = pcmAudioData.length / 2;
 
-        // 使用ByteBuffer来正确处理字节序
-        ByteBuffer buffer = ByteBuffer.wrap(pcmAudioData).order(ByteOrder.LITTLE_ENDIAN);
-
         for (int i = 0; i < sampleCount; i++) {
-            // 读取2个字节组成一个short
-            short sample = buffer.getShort();
+            // 按小端字节序读取2个字节组成一个short（直接读数组，每个音频块不分配对象）
+            short sample = (short) ((pcmAudioData[2 * i] & 0xFF) | (pcmAudioData[2 * i + 1] << 8));
             sumOfSquares += (long) sample * sample;
         }
 
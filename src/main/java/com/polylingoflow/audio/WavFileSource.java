@@ -0,0 +1,201 @@
+package com.polylingoflow.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 把一组 WAV 文件当作麦克风输入，按指定的倍速依次送入流水线，用于回放测试和负载测试。
+ *
+ * 与 {@link AudioCapture} 一样每次产生100毫秒的音频块；第 n 个音频块在它的音频结束时刻（按倍速换算的墙钟时间）才交出，
+ * 因此音频时间 t 在墙钟时间 {@code 开始时刻 + t / 倍速} 可用，可以据此计算端到端延迟。
+ * 各文件首尾相接，如同一段连续的录音；最后一个语音片段在流水线暂停或关闭时结束。
+ *
+ * 暂停时回放停在当前位置，恢复后从该位置继续，暂停的时长不计入上述墙钟时间。
+ *
+ * 文件必须是 16kHz、16位、单声道的 PCM（JDK 不提供采样率转换）。
+ */
+public class WavFileSource implements AudioSource {
+
+    private static final Logger log = LoggerFactory.getLogger(WavFileSource.class);
+
+    private static final AudioFormat FORMAT = new AudioFormat(16000, 16, 1, true, false);
+    private static final int BYTES_PER_MILLI = 32;
+    private static final int CHUNK_BYTES = 3200;
+
+    private final List<Path> files;
+    private final double speedUp;
+    private final Runnable onFinished;
+    private volatile boolean running = false;
+    private volatile boolean paused = false;
+    private volatile long startNanos;
+    private volatile long fedMillis;
+    private Thread thread;
+
+    /**
+     * @param files      要依次回放的 WAV 文件。
+     * @param speedUp    相对实时的倍速，例如 1 表示实时，4 表示四倍速。
+     * @param onFinished 所有文件回放完毕后调用（在回放线程上）；被 {@link #stopRecording()} 中止时不调用。
+     */
+    public WavFileSource(List<Path> files, double speedUp, Runnable onFinished) {
+        if (!(speedUp > 0)) {
+            throw new IllegalArgumentException("倍速必须为正数: " + speedUp);
+        }
+        this.files = List.copyOf(files);
+        this.speedUp = speedUp;
+        this.onFinished = onFinished;
+    }
+
+    /**
+     * 读取一个 WAV 文件的全部 PCM 数据。
+     *
+     * @param file WAV 文件。
+     * @return 16kHz、16位、单声道、小端的 PCM 数据。
+     * @throws IOException 如果文件无法读取或格式不受支持。
+     */
+    public static byte[] readPcm(Path file) throws IOException {
+        try (AudioInputStream in = open(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * 打开一个 WAV 文件，以流的方式读取 PCM 数据，不必把整个文件读入内存。
+     *
+     * @param file WAV 文件。
+     * @return 16kHz、16位、单声道、小端的 PCM 数据流，由调用方关闭。
+     * @throws IOException 如果文件无法读取或格式不受支持。
+     */
+    public static AudioInputStream openPcm(Path file) throws IOException {
+        return open(file);
+    }
+
+    @Override
+    public void startRecording(Consumer<byte[]> audioConsumer) {
+        if (running) {
+            log.warn("WAV 回放已在进行中。");
+            return;
+        }
+        running = true;
+        thread = new Thread(() -> play(audioConsumer), "wav-source");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stopRecording() {
+        running = false;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        if (!paused && thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * @return 回放开始的时刻（{@link System#nanoTime()}，已按暂停的时长后移）；尚未开始时为0。
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return 音频时间 {@code audioMillis} 被交给流水线的墙钟时刻（{@link System#nanoTime()}）。
+     */
+    public long wallClockNanosOf(long audioMillis) {
+        return startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(audioMillis) / speedUp);
+    }
+
+    /**
+     * @return 到目前为止交出的音频时长（毫秒）。
+     */
+    public long getFedMillis() {
+        return fedMillis;
+    }
+
+    private void play(Consumer<byte[]> audioConsumer) {
+        startNanos = System.nanoTime();
+        try {
+            for (Path file : files) {
+                if (!running) {
+                    return;
+                }
+                try (AudioInputStream in = open(file)) {
+                    byte[] chunk;
+                    while (running && (chunk = in.readNBytes(CHUNK_BYTES)).length > 0) {
+                        feed(audioConsumer, chunk);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("WAV 回放失败", e);
+            return;
+        }
+        if (running && onFinished != null) {
+            onFinished.run();
+        }
+    }
+
+    private void feed(Consumer<byte[]> audioConsumer, byte[] chunk) {
+        awaitResume();
+        long audioEnd = fedMillis + chunk.length / BYTES_PER_MILLI;
+        // 等到这个音频块在“录音”中结束的时刻
+        long delay = wallClockNanosOf(audioEnd) - System.nanoTime();
+        if (delay > 0) {
+            LockSupport.parkNanos(delay);
+        }
+        fedMillis = audioEnd;
+        audioConsumer.accept(chunk);
+    }
+
+    /**
+     * 暂停时停在这里，恢复后把开始时刻后移暂停的时长，使后续音频块的墙钟时间不受暂停影响。
+     */
+    private void awaitResume() {
+        if (!paused) {
+            return;
+        }
+        long pausedAt = System.nanoTime();
+        while (paused && running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        startNanos += System.nanoTime() - pausedAt;
+    }
+
+    private static AudioInputStream open(Path file) throws IOException {
+        AudioInputStream in;
+        try {
+            in = AudioSystem.getAudioInputStream(file.toFile());
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("不支持的音频文件: " + file, e);
+        }
+        if (in.getFormat().matches(FORMAT)) {
+            return in;
+        }
+        if (AudioSystem.isConversionSupported(FORMAT, in.getFormat())) {
+            return AudioSystem.getAudioInputStream(FORMAT, in);
+        }
+        in.close();
+        throw new IOException("音频格式必须是 16kHz/16位/单声道 PCM: " + file + " (" + in.getFormat() + ")");
+    }
+}
@@ -0,0 +1,104 @@
+package com.polylingoflow.batch;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 批量转录任务的检查点：输出目录下的只追加 NDJSON 文件，每完成一个文件（所有输出都已写入）追加一行并刷到磁盘。
+ *
+ * 重新运行同一个任务时，路径、大小和修改时间都与检查点一致的文件被跳过；被修改过的文件重新处理。
+ * 中断时最多丢失正在处理的文件，最后一行写了一半时在加载时被忽略。
+ */
+final class BatchCheckpoint implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchCheckpoint.class);
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 一个已完成文件的记录。
+     *
+     * @param file          相对于输入目录的路径（以 / 分隔）。
+     * @param size          文件大小（字节）。
+     * @param modified      文件的修改时间（毫秒）。
+     * @param audioMillis   音频时长（毫秒）。
+     * @param wallMillis    从开始处理到输出写完的墙钟时间（毫秒）。
+     * @param asrMillis     语音识别的耗时总和（毫秒）。
+     * @param segments      转录出的片段数。
+     */
+    record Entry(String file, long size, long modified, long audioMillis, long wallMillis, long asrMillis,
+                 int segments) {}
+
+    private final Map<String, Entry> completed = new HashMap<>();
+    private final FileChannel channel;
+
+    /**
+     * 加载已有的检查点（如果存在），并打开它以追加新的记录。
+     *
+     * @param file 检查点文件。
+     * @throws IOException 如果无法读取或打开检查点。
+     */
+    BatchCheckpoint(Path file) throws IOException {
+        boolean endsWithNewline = true;
+        if (Files.exists(file)) {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            for (String line : content.split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Entry entry = GSON.fromJson(line, Entry.class);
+                    completed.put(entry.file(), entry);
+                } catch (JsonParseException e) {
+                    log.warn("忽略检查点中无法解析的一行（可能是中断时写了一半）: {}", line);
+                }
+            }
+            endsWithNewline = content.isEmpty() || content.endsWith("\n");
+            log.info("已从检查点加载 {} 个已完成的文件: {}", completed.size(), file);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        // 中断时写了一半的最后一行没有换行符，先补上，使新的记录从新的一行开始
+        if (!endsWithNewline) {
+            channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+    }
+
+    /**
+     * @return 如果文件已完成且此后未被修改，返回它的记录；否则返回null。
+     */
+    synchronized Entry find(String file, long size, long modified) {
+        Entry entry = completed.get(file);
+        return entry != null && entry.size() == size && entry.modified() == modified ? entry : null;
+    }
+
+    /**
+     * 记录一个已完成的文件，返回前刷到磁盘。
+     *
+     * @throws IOException 如果写入失败。
+     */
+    synchronized void record(Entry entry) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((GSON.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        channel.force(false);
+        completed.put(entry.file(), entry);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
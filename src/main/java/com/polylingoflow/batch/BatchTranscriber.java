@@ -0,0 +1,528 @@
+package com.polylingoflow.batch;
+
+import com.polylingoflow.audio.VadListener;
+import com.polylingoflow.audio.VadProcessor;
+import com.polylingoflow.audio.WavFileSource;
+import com.polylingoflow.export.Exporter;
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.translate.TranslatorService;
+import com.polylingoflow.whisper.SpeechRecognizer;
+import com.polylingoflow.whisper.WhisperEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 批量转录一个目录中的录音：扫描目录下的所有 WAV 文件，在工作窃取的线程池上转录，翻译为各目标语言，
+ * 并用 {@link Exporter} 写出每个文件的 TXT/SRT 字幕。
+ *
+ * 用法：
+ * <pre>
+ * java -cp ... com.polylingoflow.batch.BatchTranscriber --in recordings/ --out transcripts/ \
+ *     [--model models/ggml-base.en.bin] [--source en] [--targets zh,ja] [--workers 4]
+ * </pre>
+ * 识别引擎固定为与工作线程数相同的个数，转录片段时借出、用完归还（在第一次需要时加载模型）；线程池不创建补偿线程，
+ * 等待子任务的线程不会让池中的线程（以及模型）多于工作线程数。WAV 文件以流的方式切分，只有语音片段留在堆中。
+ * 工作线程数默认取CPU核数、可用物理内存能容纳的模型份数和堆能容纳的最大文件份数中的最小者。
+ * 每个文件先用 VAD 切分为语音片段，各片段作为子任务分叉出去，空闲的工作线程会窃取大文件的片段，
+ * 因此一个特别长的录音不会拖在最后由单个线程处理。文件按大小从大到小提交。翻译是异步的，不占用工作线程。
+ *
+ * 输出写入 {@code --out} 下与输入相同的相对路径（去掉扩展名）的目录中：{@code transcript.txt}、{@code transcript.srt}
+ * 和 {@code transcript.<语言>.srt}。每个文件的输出写完后记录到 {@code --out} 下的检查点（见 {@link BatchCheckpoint}），
+ * 中断后重新运行同一个命令会跳过已完成的文件。翻译失败的文件不记录检查点，下次运行时重试。
+ *
+ * 结束时报告每个文件的音频时长、墙钟时间和识别耗时，以及总吞吐量（每小时墙钟时间处理的音频小时数）。
+ */
+public final class BatchTranscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchTranscriber.class);
+
+    private static final String CHECKPOINT_FILE = "batch-checkpoint.ndjson";
+    // 16kHz、16位单声道PCM
+    private static final int BYTES_PER_MILLI = 32;
+    private static final int CHUNK_BYTES = 3200;
+    // 估算一个引擎的内存占用时，模型文件大小的倍数（模型权重加上推理缓冲区）
+    private static final double ENGINE_MEMORY_FACTOR = 1.5;
+    // 估算一个正在处理的文件的堆占用时，文件大小的倍数（语音片段的副本加上切分时正在累积的片段）
+    private static final double FILE_HEAP_FACTOR = 2.0;
+    private static final long POOL_KEEP_ALIVE_SECONDS = 60;
+
+    private final PipelineConfig config;
+    private final Path outputDir;
+    private final int workers;
+    private final Supplier<? extends SpeechRecognizer> recognizerFactory;
+    private final TranslatorService translatorService;
+    private final Exporter exporter = new Exporter();
+
+    // 最多 workers 个引擎：空闲的在 idleEngines 中，转录片段时借出；创建过的引擎都记在 engines 中，结束时释放
+    private final BlockingQueue<SpeechRecognizer> idleEngines = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<SpeechRecognizer> engines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger createdEngines = new AtomicInteger();
+    // 各文件进行中的翻译及其导出回调；检查点关闭前取消未完成的翻译并等待回调结束
+    private final ConcurrentLinkedQueue<PendingExport> pendingExports = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 一个文件的处理结果。
+     *
+     * @param file        相对于输入目录的路径。
+     * @param status      {@code done}、{@code skipped}（检查点中已完成）或 {@code failed}。
+     * @param audioMillis 音频时长（毫秒）。
+     * @param wallMillis  墙钟时间（毫秒）。
+     * @param asrMillis   语音识别耗时的总和（毫秒）。
+     * @param segments    片段数。
+     */
+    public record FileResult(String file, String status, long audioMillis, long wallMillis, long asrMillis,
+                             int segments) {}
+
+    /**
+     * 整个任务的结果。
+     *
+     * @param files      每个文件的结果，按路径排序。
+     * @param wallMillis 任务的墙钟时间（毫秒）。
+     */
+    public record Report(List<FileResult> files, long wallMillis) {
+
+        /**
+         * @return 本次运行处理的音频小时数 / 墙钟小时数（不计跳过的文件）。
+         */
+        public double audioHoursPerHour() {
+            long audio = files.stream().filter(file -> file.status().equals("done"))
+                    .mapToLong(FileResult::audioMillis).sum();
+            return wallMillis == 0 ? 0 : audio / (double) wallMillis;
+        }
+
+        public long count(String status) {
+            return files.stream().filter(file -> file.status().equals(status)).count();
+        }
+    }
+
+    /**
+     * 一个待转录的语音片段。
+     */
+    private record Speech(long sequence, long startTimeMillis, long endTimeMillis, byte[] pcm) {}
+
+    /**
+     * 一个文件的翻译，以及翻译完成（或失败、被取消）后导出并记录检查点的回调。
+     */
+    private record PendingExport(CompletableFuture<?> translation, CompletableFuture<?> export) {}
+
+    /**
+     * @param config            模型路径、源语言、目标语言和 VAD 参数。
+     * @param outputDir         输出目录（也保存检查点）。
+     * @param workers           工作线程数，也是识别引擎的个数。
+     * @param recognizerFactory 创建一个识别引擎，例如 {@code WhisperEngine::new}。
+     * @param translatorService 翻译服务。
+     */
+    public BatchTranscriber(PipelineConfig config, Path outputDir, int workers,
+                            Supplier<? extends SpeechRecognizer> recognizerFactory, TranslatorService translatorService) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("工作线程数必须至少为1: " + workers);
+        }
+        this.config = config;
+        this.outputDir = outputDir;
+        this.workers = workers;
+        this.recognizerFactory = recognizerFactory;
+        this.translatorService = translatorService;
+    }
+
+    /**
+     * 根据CPU核数、可用物理内存（模型在堆外）和最大堆（正在处理的文件的语音片段）估算工作线程数。
+     * 每个工作线程按同时处理一个文件估算。
+     *
+     * @param modelPath        模型文件；不存在时不按模型大小限制。
+     * @param largestFileBytes 最大的输入文件的字节数。
+     * @return 至少为1的工作线程数。
+     */
+    public static int defaultWorkers(Path modelPath, long largestFileBytes) {
+        long workers = Runtime.getRuntime().availableProcessors();
+        if (largestFileBytes > 0) {
+            workers = Math.min(workers,
+                    (long) (Runtime.getRuntime().maxMemory() / (largestFileBytes * FILE_HEAP_FACTOR)));
+        }
+        if (Files.isRegularFile(modelPath)
+                && ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            try {
+                long modelBytes = Files.size(modelPath);
+                workers = Math.min(workers, (long) (os.getFreeMemorySize() / (modelBytes * ENGINE_MEMORY_FACTOR)));
+            } catch (IOException e) {
+                log.warn("无法读取模型文件大小: {}", modelPath, e);
+            }
+        }
+        return (int) Math.max(1, workers);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("in") || !options.containsKey("out")) {
+            throw new IllegalArgumentException("必须用 --in 和 --out 指定输入和输出目录");
+        }
+        PipelineConfig defaults = PipelineConfig.defaults();
+        PipelineConfig config = new PipelineConfig(
+                options.containsKey("model") ? Paths.get(options.get("model")) : defaults.modelPath(),
+                options.getOrDefault("source", defaults.sourceLang()),
+                options.containsKey("targets") ? Arrays.asList(options.get("targets").split(",")) : defaults.targetLangs(),
+                defaults.vadFrameMillis(), defaults.vadEnergyThreshold(), defaults.vadSilenceMillis(), null,
+                defaults.vadStage(), defaults.asrStage(), defaults.translateStage());
+        Path inputDir = Paths.get(options.get("in"));
+        int workers = options.containsKey("workers") ? Integer.parseInt(options.get("workers"))
+                : defaultWorkers(config.modelPath(), largestFileSize(scan(inputDir)));
+
+        BatchTranscriber transcriber = new BatchTranscriber(config, Paths.get(options.get("out")), workers,
+                WhisperEngine::new, new TranslatorService());
+        Report report = transcriber.run(inputDir);
+        print(report);
+        System.exit(report.count("failed") > 0 ? 1 : 0);
+    }
+
+    /**
+     * 转录输入目录下的所有 WAV 文件，跳过检查点中已完成的文件。
+     *
+     * @param inputDir 输入目录（递归扫描）。
+     * @return 任务的结果。
+     * @throws IOException 如果无法扫描输入目录或打开检查点。
+     * @throws InterruptedException 如果等待被中断。
+     */
+    public Report run(Path inputDir) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        Files.createDirectories(outputDir);
+        List<Path> files = scan(inputDir);
+
+        List<FileResult> results = Collections.synchronizedList(new ArrayList<>());
+        try (BatchCheckpoint checkpoint = new BatchCheckpoint(outputDir.resolve(CHECKPOINT_FILE))) {
+            List<Path> pending = new ArrayList<>();
+            Map<Path, Long> sizes = new HashMap<>();
+            for (Path file : files) {
+                long size = Files.size(file);
+                BatchCheckpoint.Entry done = checkpoint.find(relative(inputDir, file), size,
+                        Files.getLastModifiedTime(file).toMillis());
+                if (done != null) {
+                    results.add(new FileResult(done.file(), "skipped", done.audioMillis(), done.wallMillis(),
+                            done.asrMillis(), done.segments()));
+                } else {
+                    pending.add(file);
+                    sizes.put(file, size);
+                }
+            }
+            log.info("共 {} 个文件：{} 个已完成，{} 个待处理，{} 个工作线程", files.size(), files.size() - pending.size(),
+                    pending.size(), workers);
+            // 大文件先开始，减少最后只剩一个长文件在处理的时间
+            pending.sort(Comparator.comparing(sizes::get, Comparator.reverseOrder()));
+
+            CountDownLatch finished = new CountDownLatch(pending.size());
+            // 线程数固定为 workers：等待子任务时不创建补偿线程，而是帮忙执行子任务或者等待
+            ForkJoinPool pool = new ForkJoinPool(workers, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null,
+                    false, 0, workers, 1, saturated -> true, POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            try {
+                for (Path file : pending) {
+                    pool.execute(() -> process(inputDir, file, checkpoint, results, finished));
+                }
+                finished.await();
+            } finally {
+                pool.shutdown();
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+                awaitExports();
+                engines.forEach(SpeechRecognizer::close);
+                engines.clear();
+                idleEngines.clear();
+                createdEngines.set(0);
+            }
+        }
+
+        List<FileResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparing(FileResult::file));
+        return new Report(sorted, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * 处理一个文件：切分、转录（片段作为子任务可被其他工作线程窃取），然后异步翻译、导出并记录检查点。
+     * 在工作线程上不等待翻译，完成（或失败）时计数 {@code finished}。
+     */
+    private void process(Path inputDir, Path file, BatchCheckpoint checkpoint, List<FileResult> results,
+                         CountDownLatch finished) {
+        String name = relative(inputDir, file);
+        long startNanos = System.nanoTime();
+        try {
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            List<Speech> speeches = new ArrayList<>();
+            long audioMillis = split(file, speeches) / BYTES_PER_MILLI;
+
+            List<ForkJoinTask<TranscriptionSegment>> tasks = new ArrayList<>();
+            long[] asrNanos = new long[speeches.size()];
+            for (int i = 0; i < speeches.size(); i++) {
+                Speech speech = speeches.get(i);
+                int index = i;
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    SpeechRecognizer recognizer = checkoutEngine();
+                    String text;
+                    long asrStart = System.nanoTime();
+                    try {
+                        text = recognizer.transcribe(ByteBuffer.wrap(speech.pcm()), speech.sequence(), false);
+                    } finally {
+                        idleEngines.add(recognizer);
+                    }
+                    asrNanos[index] = System.nanoTime() - asrStart;
+                    return new TranscriptionSegment(speech.sequence(), speech.startTimeMillis(),
+                            speech.endTimeMillis(), text == null ? "" : text.trim());
+                }));
+            }
+            // 在工作窃取池中等待子任务时，当前线程会帮忙执行它们
+            ForkJoinTask.invokeAll(tasks);
+            List<TranscriptionSegment> segments = new ArrayList<>();
+            for (ForkJoinTask<TranscriptionSegment> task : tasks) {
+                TranscriptionSegment segment = task.join();
+                if (!segment.text().isBlank()) {
+                    segments.add(segment);
+                }
+            }
+            long asrMillis = TimeUnit.NANOSECONDS.toMillis(Arrays.stream(asrNanos).sum());
+
+            CompletableFuture<Map<String, List<TranscriptionSegment>>> translation = translate(segments);
+            CompletableFuture<?> export = translation.whenComplete((translations, error) -> {
+                try {
+                    if (error != null) {
+                        throw new IOException("翻译失败: " + error.getMessage(), error);
+                    }
+                    export(name, segments, translations);
+                    long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    checkpoint.record(new BatchCheckpoint.Entry(name, size, modified, audioMillis, wallMillis,
+                            asrMillis, segments.size()));
+                    results.add(new FileResult(name, "done", audioMillis, wallMillis, asrMillis, segments.size()));
+                    log.info("完成 {}：音频 {} 秒，用时 {} 秒，{} 个片段", name, audioMillis / 1000, wallMillis / 1000,
+                            segments.size());
+                } catch (IOException | RuntimeException e) {
+                    fail(name, startNanos, results, e);
+                } finally {
+                    finished.countDown();
+                }
+            });
+            pendingExports.add(new PendingExport(translation, export));
+        } catch (IOException | RuntimeException e) {
+            fail(name, startNanos, results, e);
+            finished.countDown();
+        }
+    }
+
+    /**
+     * 取消尚未完成的翻译（正常结束时已全部完成；等待被中断时可能还有），并等待所有导出回调结束，
+     * 使之后关闭的检查点不会再被回调写入。被取消的文件记为失败，下次运行时重试。
+     */
+    private void awaitExports() {
+        for (PendingExport pending : pendingExports) {
+            pending.translation().cancel(false);
+        }
+        for (PendingExport pending : pendingExports) {
+            // 回调自己处理失败，这里只等待它结束
+            pending.export().handle((ignored, error) -> null).join();
+        }
+        pendingExports.clear();
+    }
+
+    private void fail(String name, long startNanos, List<FileResult> results, Exception e) {
+        log.error("处理 {} 失败", name, e);
+        results.add(new FileResult(name, "failed", 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                0, 0));
+    }
+
+    /**
+     * 用 VAD 把整个文件切分为语音片段，与实时流水线的切分方式相同。文件以流的方式读取，只有语音片段留在内存中。
+     *
+     * @param speeches 接收语音片段。
+     * @return 文件的 PCM 字节数。
+     */
+    private long split(Path file, List<Speech> speeches) throws IOException {
+        VadListener listener = new VadListener() {
+            private final ByteArrayOutputStream speechBuffer = new ByteArrayOutputStream();
+
+            @Override
+            public void onSpeechStart() {
+                speechBuffer.reset();
+            }
+
+            @Override
+            public void onSpeech(byte[] audioData) {
+                speechBuffer.writeBytes(audioData);
+            }
+
+            @Override
+            public void onSpeechEnd() {
+                // 由带序列号的重载处理
+            }
+
+            @Override
+            public void onSpeechEnd(long sequence, long startTimeMillis, long endTimeMillis) {
+                speeches.add(new Speech(sequence, startTimeMillis, endTimeMillis, speechBuffer.toByteArray()));
+            }
+        };
+        VadProcessor vad = new VadProcessor(listener, config.vadFrameMillis(), config.vadEnergyThreshold(),
+                config.vadSilenceMillis());
+        long pcmBytes = 0;
+        try (AudioInputStream in = WavFileSource.openPcm(file)) {
+            byte[] chunk;
+            while ((chunk = in.readNBytes(CHUNK_BYTES)).length > 0) {
+                pcmBytes += chunk.length;
+                vad.process(chunk);
+            }
+        }
+        // 文件末尾仍在说话时，片段在音频结束处结束
+        vad.flush();
+        return pcmBytes;
+    }
+
+    /**
+     * 把所有片段翻译为所有目标语言。
+     *
+     * @return 语言 → 与 {@code segments} 一一对应的译文片段。
+     */
+    private CompletableFuture<Map<String, List<TranscriptionSegment>>> translate(List<TranscriptionSegment> segments) {
+        Map<String, List<CompletableFuture<String>>> futures = new LinkedHashMap<>();
+        for (String lang : config.targetLangs()) {
+            List<CompletableFuture<String>> perLang = new ArrayList<>();
+            for (TranscriptionSegment segment : segments) {
+                perLang.add(translatorService.translateAsync(segment.text(), config.sourceLang(), lang,
+                        segment.sequence()));
+            }
+            futures.put(lang, perLang);
+        }
+        CompletableFuture<?>[] all = futures.values().stream().flatMap(List::stream).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(all).thenApply(ignored -> {
+            Map<String, List<TranscriptionSegment>> translations = new LinkedHashMap<>();
+            futures.forEach((lang, perLang) -> {
+                List<TranscriptionSegment> translated = new ArrayList<>();
+                for (int i = 0; i < segments.size(); i++) {
+                    TranscriptionSegment segment = segments.get(i);
+                    translated.add(new TranscriptionSegment(segment.sequence(), segment.startTimeMillis(),
+                            segment.endTimeMillis(), perLang.get(i).join()));
+                }
+                translations.put(lang, translated);
+            });
+            return translations;
+        });
+    }
+
+    private void export(String name, List<TranscriptionSegment> segments,
+                        Map<String, List<TranscriptionSegment>> translations) throws IOException {
+        Path dir = outputDir.resolve(name.replaceFirst("(?i)\\.wav$", ""));
+        Files.createDirectories(dir);
+        if (segments.isEmpty()) {
+            // 没有语音的录音只写一个空的 TXT，表示已处理
+            exporter.exportAsTxt("", dir.resolve("transcript.txt"));
+            return;
+        }
+        exporter.exportAsTxt(segments, dir.resolve("transcript.txt"));
+        exporter.exportAsSrt(segments, dir.resolve("transcript.srt"));
+        for (Map.Entry<String, List<TranscriptionSegment>> entry : translations.entrySet()) {
+            exporter.exportAsSrt(entry.getValue(), dir.resolve("transcript." + entry.getKey() + ".srt"));
+        }
+    }
+
+    /**
+     * 借出一个空闲的引擎；没有空闲引擎时，未达到 {@code workers} 个就创建一个，否则等待其他片段归还。
+     * 用完后必须放回 {@link #idleEngines}。
+     */
+    private SpeechRecognizer checkoutEngine() throws InterruptedException {
+        SpeechRecognizer recognizer = idleEngines.poll();
+        if (recognizer != null) {
+            return recognizer;
+        }
+        if (createdEngines.incrementAndGet() <= workers) {
+            try {
+                return newEngine();
+            } catch (RuntimeException e) {
+                createdEngines.decrementAndGet();
+                throw e;
+            }
+        }
+        createdEngines.decrementAndGet();
+        return idleEngines.take();
+    }
+
+    private SpeechRecognizer newEngine() {
+        SpeechRecognizer recognizer = recognizerFactory.get();
+        log.info("工作线程 {} 正在加载识别模型（第 {} 个，共 {} 个）...", Thread.currentThread().getName(),
+                createdEngines.get(), workers);
+        recognizer.initialize(config.modelPath());
+        engines.add(recognizer);
+        return recognizer;
+    }
+
+    /**
+     * @return 输入目录下（递归）的所有 WAV 文件。
+     */
+    private static List<Path> scan(Path inputDir) throws IOException {
+        try (Stream<Path> paths = Files.walk(inputDir)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".wav"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long largestFileSize(List<Path> files) throws IOException {
+        long largest = 0;
+        for (Path file : files) {
+            largest = Math.max(largest, Files.size(file));
+        }
+        return largest;
+    }
+
+    private static String relative(Path inputDir, Path file) {
+        return inputDir.relativize(file).toString().replace('\\', '/');
+    }
+
+    /**
+     * 打印每个文件的结果和总吞吐量。
+     */
+    public static void print(Report report) {
+        System.out.printf("%-40s %-8s %10s %10s %10s %6s %9s%n", "file", "status", "audio s", "wall s", "asr s",
+                "RTF", "segments");
+        for (FileResult file : report.files()) {
+            System.out.printf("%-40s %-8s %10.1f %10.1f %10.1f %6.2f %9d%n", file.file(), file.status(),
+                    file.audioMillis() / 1000.0, file.wallMillis() / 1000.0, file.asrMillis() / 1000.0,
+                    file.audioMillis() == 0 ? 0 : file.asrMillis() / (double) file.audioMillis(), file.segments());
+        }
+        System.out.printf("完成 %d，跳过 %d，失败 %d；用时 %.1f 秒；吞吐量 %.2f 音频小时/小时%n", report.count("done"),
+                report.count("skipped"), report.count("failed"), report.wallMillis() / 1000.0,
+                report.audioHoursPerHour());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("无法解析的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -1,16 +1,27 @@
 package com.polylingoflow.bridge;
 
-import javafx.application.Platform;
+import com.polylingoflow.pipeline.PipelineEvent;
+import com.polylingoflow.transcript.TranscriptEntry;
+import com.polylingoflow.transcript.TranscriptStore;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 应用程序的中央状态管理类。
  * 它充当后端服务（音频、Whisper、翻译）和UI之间的桥梁。
  * 它使用JavaFX属性，以便与UI轻松进行数据绑定。
  * 此类是一个单例，以确保应用程序状态的唯一真实来源。
+ * 后端线程的更新通过 {@link CoalescingPublisher} 合并后再应用到FX线程。
+ *
+ * Bridge 是转录流水线事件流的一个可选订阅者（见 {@link #onEvent}）；无界面模式下不会加载它。
  */
 public class Bridge {
 
@@ -21,15 +32,35 @@ public class Bridge {
     // 用于保存Whisper原始转录文本的属性
     private final StringProperty transcribedText = new SimpleStringProperty("");
 
-    // 用于保存翻译后文本的属性
+    // 用于保存翻译后文本的属性（主目标语言）
     private final StringProperty translatedText = new SimpleStringProperty("");
 
+    // 按目标语言保存的翻译文本（语言代码 → 译文），用于同时显示多个目标语言
+    private final ObservableMap<String, String> translations = FXCollections.observableHashMap();
+
     // 用于显示应用程序当前状态的属性 (例如, "正在聆听...", "正在转录...")
     private final StringProperty statusText = new SimpleStringProperty("准备就绪");
 
+    // 状态栏中的指标摘要（实时率、识别和翻译延迟、队列长度）
+    private final StringProperty metricsSummary = new SimpleStringProperty("");
+
     // 用于控制和反映录音状态的属性
     private final BooleanProperty recording = new SimpleBooleanProperty(false);
 
+    // --- 合并发布 ---
+    private final CoalescingPublisher publisher = new CoalescingPublisher();
+    private final CoalescingPublisher.Slot<String> transcribedTextSlot = publisher.register(transcribedText::set);
+    private final CoalescingPublisher.Slot<String> translatedTextSlot = publisher.register(translatedText::set);
+    private final CoalescingPublisher.Slot<String> statusTextSlot = publisher.register(statusText::set);
+    private final CoalescingPublisher.Slot<String> metricsSummarySlot = publisher.register(metricsSummary::set);
+    private final CoalescingPublisher.Slot<Boolean> recordingSlot = publisher.register(recording::set);
+    private final Map<String, CoalescingPublisher.Slot<String>> translationSlots = new ConcurrentHashMap<>();
+
+    // 流水线的转录记录（只追加），以及供ListView使用的零复制列表视图。
+    // 列表实例不变，界面可以在后端连接之前绑定到它；attach 之后条目在FX线程上出现
+    private volatile TranscriptStore transcriptStore;
+    private final TranscriptListModel transcriptItems = new TranscriptListModel(publisher);
+    private volatile String primaryTargetLang;
 
     private Bridge() {
         // 私有构造函数以强制执行单例模式
@@ -42,20 +73,78 @@ public class Bridge {
         return INSTANCE;
     }
 
+    /**
+     * 将UI连接到流水线的转录记录。可以在任何线程上调用，也可以在加载界面之后调用：
+     * 已绑定的转录列表随后在FX线程上显示记录中的条目。只能调用一次。
+     *
+     * @param store             流水线的转录记录。
+     * @param primaryTargetLang 主目标语言，其翻译显示在主翻译属性中。
+     */
+    public void attach(TranscriptStore store, String primaryTargetLang) {
+        this.primaryTargetLang = primaryTargetLang;
+        this.transcriptStore = store;
+        transcriptItems.attach(store);
+    }
+
+    // --- 流水线事件 ---
+
+    /**
+     * 处理一个流水线事件，将其映射到对应的UI属性。
+     * 在事件流的订阅者线程上调用；属性更新会被合并后应用到FX线程。
+     *
+     * @param event 流水线事件。
+     */
+    public void onEvent(PipelineEvent event) {
+        if (event instanceof PipelineEvent.StatusChanged status) {
+            setStatusText(status.status());
+        } else if (event instanceof PipelineEvent.FinalTranscript transcript) {
+            setTranscribedText(transcript.segment().text());
+        } else if (event instanceof PipelineEvent.Translated translated) {
+            setTranslation(translated.targetLang(), translated.text());
+            if (translated.targetLang().equals(primaryTargetLang)) {
+                setTranslatedText(translated.text());
+            }
+        } else if (event instanceof PipelineEvent.PipelineError error) {
+            setStatusText("错误（" + error.stage() + "）: " + error.message());
+        }
+    }
+
     // --- 用于UI绑定的属性访问器 ---
 
     public StringProperty transcribedTextProperty() {
         return transcribedText;
     }
 
+    /**
+     * @return 会话的转录记录（由流水线写入），导出器直接从中读取；尚未连接时为null。
+     */
+    public TranscriptStore getTranscriptStore() {
+        return transcriptStore;
+    }
+
+    /**
+     * @return 转录记录的只读可观察视图，只能在FX线程上使用。
+     */
+    public ObservableList<TranscriptEntry> getTranscriptItems() {
+        return transcriptItems;
+    }
+
     public StringProperty translatedTextProperty() {
         return translatedText;
     }
 
+    public ObservableMap<String, String> getTranslations() {
+        return translations;
+    }
+
     public StringProperty statusTextProperty() {
         return statusText;
     }
 
+    public StringProperty metricsSummaryProperty() {
+        return metricsSummary;
+    }
+
     public BooleanProperty recordingProperty() {
         return recording;
     }
@@ -68,8 +157,8 @@ public class Bridge {
      * @param text 新的转录文本。
      */
     public void setTranscribedText(String text) {
-        // 确保UI更新在JavaFX应用程序线程上运行
-        Platform.runLater(() -> transcribedText.set(text));
+        // 合并后在JavaFX应用程序线程上应用
+        transcribedTextSlot.publish(text);
     }
 
     /**
@@ -78,7 +167,18 @@ public class Bridge {
      * @param text 新的翻译文本。
      */
     public void setTranslatedText(String text) {
-        Platform.runLater(() -> translatedText.set(text));
+        translatedTextSlot.publish(text);
+    }
+
+    /**
+     * 更新某个目标语言的翻译文本。此方法是线程安全的。
+     *
+     * @param targetLang 目标语言代码。
+     * @param text       该语言的翻译文本。
+     */
+    public void setTranslation(String targetLang, String text) {
+        translationSlots.computeIfAbsent(targetLang,
+                lang -> publisher.register(value -> translations.put(lang, value))).publish(text);
     }
 
     /**
@@ -87,7 +187,16 @@ public class Bridge {
      * @param text 新的状态消息。
      */
     public void setStatusText(String text) {
-        Platform.runLater(() -> statusText.set(text));
+        statusTextSlot.publish(text);
+    }
+
+    /**
+     * 更新状态栏中的指标摘要。此方法是线程安全的。
+     *
+     * @param summary 一行指标摘要（见 {@code MetricsSnapshot.summary()}）。
+     */
+    public void setMetricsSummary(String summary) {
+        metricsSummarySlot.publish(summary);
     }
 
     /**
@@ -96,6 +205,13 @@ public class Bridge {
      * @param isRecording 新的录音状态。
      */
     public void setRecording(boolean isRecording) {
-        Platform.runLater(() -> recording.set(isRecording));
+        recordingSlot.publish(isRecording);
+    }
+
+    /**
+     * @return 合并发布器，可用于查询被合并的更新数量等统计信息。
+     */
+    public CoalescingPublisher getPublisher() {
+        return publisher;
     }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.polylingoflow.bridge;
+
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 将后端线程的UI更新合并后再发布到JavaFX应用程序线程。
+ *
+ * 每个属性对应一个 {@link Slot}，槽中只保存最新的待发布值（原子引用）。
+ * 后端在一帧内的多次更新只会保留最后一个值，并且无论有多少槽被更新，
+ * 每个帧间隔内最多只调度一次 {@link Platform#runLater}，避免突发事件淹没FX线程。
+ * 每个值从首次发布到被应用的延迟记录在 {@link MetricNames#UI_PUBLISH_DELAY} 中。
+ */
+public class CoalescingPublisher {
+
+    // 约60fps的帧间隔
+    private static final long DEFAULT_FRAME_INTERVAL_MILLIS = 16;
+
+    // 表示槽中没有待发布值的哨兵对象（null是合法的属性值）
+    private static final Object EMPTY = new Object();
+
+    private final long frameIntervalNanos;
+    private final List<Slot<?>> slots = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean pulseScheduled = new AtomicBoolean(false);
+    private volatile long lastPulseNanos = 0;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "fx-coalescing-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // --- 统计 ---
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong pulses = new AtomicLong();
+    private final LatencyHistogram publishDelay = MetricsRegistry.global().histogram(MetricNames.UI_PUBLISH_DELAY);
+
+    public CoalescingPublisher() {
+        this(DEFAULT_FRAME_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param frameIntervalMillis 两次FX脉冲之间的最小间隔（毫秒）。
+     */
+    public CoalescingPublisher(long frameIntervalMillis) {
+        this.frameIntervalNanos = TimeUnit.MILLISECONDS.toNanos(frameIntervalMillis);
+    }
+
+    /**
+     * 一个属性的待发布槽。
+     *
+     * @param <T> 属性值类型。
+     */
+    public final class Slot<T> {
+        private final AtomicReference<Object> pending = new AtomicReference<>(EMPTY);
+        private final Consumer<T> applier;
+        // 槽由空变为非空的时刻；被合并的后续值沿用它，因此统计的是最旧待发布值的等待时间
+        private volatile long pendingSinceNanos;
+
+        private Slot(Consumer<T> applier) {
+            this.applier = applier;
+        }
+
+        /**
+         * 从任意线程发布一个新值。若上一个值尚未被应用，它会被此值覆盖（合并）。
+         *
+         * @param value 新值。
+         */
+        public void publish(T value) {
+            published.incrementAndGet();
+            long now = System.nanoTime();
+            if (pending.getAndSet(value) != EMPTY) {
+                coalesced.incrementAndGet();
+            } else {
+                pendingSinceNanos = now;
+            }
+            schedulePulse();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void flush() {
+            Object value = pending.getAndSet(EMPTY);
+            if (value != EMPTY) {
+                publishDelay.recordSince(pendingSinceNanos);
+                applier.accept((T) value);
+            }
+        }
+    }
+
+    /**
+     * 注册一个新槽。
+     *
+     * @param applier 在FX线程上应用最新值的回调（通常是属性的set方法）。
+     * @return 用于发布值的槽。
+     */
+    public <T> Slot<T> register(Consumer<T> applier) {
+        Slot<T> slot = new Slot<>(applier);
+        slots.add(slot);
+        return slot;
+    }
+
+    private void schedulePulse() {
+        if (!pulseScheduled.compareAndSet(false, true)) {
+            return; // 本帧已有脉冲待执行，它会带上最新值
+        }
+        long delayNanos = lastPulseNanos + frameIntervalNanos - System.nanoTime();
+        if (delayNanos <= 0) {
+            Platform.runLater(this::pulse);
+        } else {
+            timer.schedule(() -> Platform.runLater(this::pulse), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 在FX线程上执行：应用所有槽中的最新值。
+     */
+    private void pulse() {
+        // 先清除标志，之后到达的更新会调度下一次脉冲，而不会丢失
+        pulseScheduled.set(false);
+        lastPulseNanos = System.nanoTime();
+        pulses.incrementAndGet();
+        for (Slot<?> slot : slots) {
+            slot.flush();
+        }
+    }
+
+    /**
+     * @return 发布的更新总数。
+     */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * @return 因被更新的值覆盖而从未应用到UI的更新数。
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return 实际调度到FX线程的脉冲次数。
+     */
+    public long getPulseCount() {
+        return pulses.get();
+    }
+}
@@ -0,0 +1,103 @@
+package com.polylingoflow.bridge;
+
+import com.polylingoflow.transcript.TranscriptEntry;
+import com.polylingoflow.transcript.TranscriptStore;
+import javafx.collections.ObservableListBase;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 将 {@link TranscriptStore} 以只读 {@code ObservableList} 的形式暴露给JavaFX控件（如ListView）。
+ *
+ * 列表不复制任何条目，{@link #get(int)} 直接读取存储。后端的追加和翻译更新
+ * 通过 {@link CoalescingPublisher} 合并，在FX线程上以一次“新增区间”或“条目更新”变更通知，
+ * 因此虚拟化的ListView只需渲染可见的单元格。
+ *
+ * 列表可以先于存储创建（此时为空），界面绑定到它之后再用 {@link #attach} 连接存储，
+ * 已有的条目同样在FX线程上以一次“新增区间”通知。
+ */
+public class TranscriptListModel extends ObservableListBase<TranscriptEntry> {
+
+    private volatile TranscriptStore store;
+
+    // 仅在FX线程上访问：已通知给观察者的条目数量
+    private int visibleSize = 0;
+
+    private final Queue<Integer> updatedIndices = new ConcurrentLinkedQueue<>();
+    private final CoalescingPublisher.Slot<Integer> appendSlot;
+    private final CoalescingPublisher.Slot<Boolean> updateSlot;
+
+    public TranscriptListModel(CoalescingPublisher publisher) {
+        this.appendSlot = publisher.register(ignored -> syncAppends());
+        this.updateSlot = publisher.register(ignored -> syncUpdates());
+    }
+
+    public TranscriptListModel(TranscriptStore store, CoalescingPublisher publisher) {
+        this(publisher);
+        attach(store);
+    }
+
+    /**
+     * 连接要显示的转录记录，只能调用一次。可以在任何线程上调用。
+     *
+     * @param store 转录记录。
+     */
+    public void attach(TranscriptStore store) {
+        if (this.store != null) {
+            throw new IllegalStateException("转录列表已连接到转录记录");
+        }
+        this.store = store;
+        store.addListener(new TranscriptStore.Listener() {
+            @Override
+            public void onAppended(int index, TranscriptEntry entry) {
+                appendSlot.publish(index);
+            }
+
+            @Override
+            public void onTranslated(int index, TranscriptEntry entry, String lang) {
+                updatedIndices.add(index);
+                updateSlot.publish(Boolean.TRUE);
+            }
+        });
+        // 连接之前已追加的条目
+        appendSlot.publish(store.size());
+    }
+
+    private void syncAppends() {
+        TranscriptStore store = this.store;
+        int storeSize = store == null ? 0 : store.size();
+        if (storeSize <= visibleSize) {
+            return;
+        }
+        beginChange();
+        nextAdd(visibleSize, storeSize);
+        visibleSize = storeSize;
+        endChange();
+    }
+
+    private void syncUpdates() {
+        syncAppends(); // 保证更新的条目已对观察者可见
+        Integer index;
+        beginChange();
+        while ((index = updatedIndices.poll()) != null) {
+            if (index < visibleSize) {
+                nextUpdate(index);
+            }
+        }
+        endChange();
+    }
+
+    @Override
+    public TranscriptEntry get(int index) {
+        if (index >= visibleSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + visibleSize);
+        }
+        return store.get(index);
+    }
+
+    @Override
+    public int size() {
+        return visibleSize;
+    }
+}
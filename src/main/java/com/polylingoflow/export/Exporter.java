@@ -1,13 +1,16 @@
 package com.polylingoflow.export;
 
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 处理将转录和翻译结果导出为多种文件格式。
@@ -15,6 +18,7 @@ import java.util.concurrent.TimeUnit;
 public class Exporter {
 
     private static final Logger log = LoggerFactory.getLogger(Exporter.class);
+    private static final LatencyHistogram exportTime = MetricsRegistry.global().histogram(MetricNames.EXPORT_FILE);
 
     /**
      * 将纯文本内容导出为 .txt 文件。
@@ -28,6 +32,26 @@ public class Exporter {
         log.info("成功将内容导出到 {}", destination);
     }
 
+    /**
+     * 将转录片段列表逐行导出为 .txt 文件，每个片段一行。
+     * 片段直接流式写入文件，不会先拼接成一个完整的字符串。
+     *
+     * @param segments    转录片段列表（例如，{@code TranscriptStore.segments()} 视图）。
+     * @param destination 目标文件的路径。
+     * @throws IOException 如果写入文件时发生 I/O 错误。
+     */
+    public void exportAsTxt(List<TranscriptionSegment> segments, Path destination) throws IOException {
+        long startNanos = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(destination)) {
+            for (TranscriptionSegment segment : segments) {
+                writer.write(segment.text());
+                writer.newLine();
+            }
+        }
+        exportTime.recordSince(startNanos);
+        log.info("成功将 {} 个片段导出到 {}", segments.size(), destination);
+    }
+
     /**
      * 将转录片段列表导出为 SRT (SubRip) 字幕格式。
      *
@@ -36,6 +60,7 @@ public class Exporter {
      * @throws IOException 如果写入文件时发生 I/O 错误。
      */
     public void exportAsSrt(List<TranscriptionSegment> segments, Path destination) throws IOException {
+        long startNanos = System.nanoTime();
         if (segments == null || segments.isEmpty()) {
             log.warn("片段列表为空或为null。无法导出为 SRT。");
             return;
@@ -45,17 +70,18 @@ public class Exporter {
         for (int i = 0; i < segments.size(); i++) {
             TranscriptionSegment segment = segments.get(i);
             srtContent.append(i + 1) // 字幕序号
-                    .append(System.lineSeparator())
-                    .append(formatTimestamp(segment.startTimeMillis(), ","))
-                    .append(" --> ")
-                    .append(formatTimestamp(segment.endTimeMillis(), ","))
-                    .append(System.lineSeparator())
+                    .append(System.lineSeparator());
+            TimestampFormatter.append(srtContent, segment.startTimeMillis(), ',');
+            srtContent.append(" --> ");
+            TimestampFormatter.append(srtContent, segment.endTimeMillis(), ',');
+            srtContent.append(System.lineSeparator())
                     .append(segment.text())
                     .append(System.lineSeparator())
                     .append(System.lineSeparator());
         }
 
         Files.writeString(destination, srtContent.toString());
+        exportTime.recordSince(startNanos);
         log.info("成功将 {} 个片段导出到 SRT 文件: {}", segments.size(), destination);
     }
 
@@ -67,6 +93,7 @@ public class Exporter {
      * @throws IOException 如果写入文件时发生 I/O 错误。
      */
     public void exportAsVtt(List<TranscriptionSegment> segments, Path destination) throws IOException {
+        long startNanos = System.nanoTime();
         if (segments == null || segments.isEmpty()) {
             log.warn("片段列表为空或为null。无法导出为 VTT。");
             return;
@@ -76,32 +103,53 @@ public class Exporter {
         vttContent.append(System.lineSeparator()).append(System.lineSeparator());
 
         for (TranscriptionSegment segment : segments) {
-            vttContent.append(formatTimestamp(segment.startTimeMillis(), "."))
-                    .append(" --> ")
-                    .append(formatTimestamp(segment.endTimeMillis(), "."))
-                    .append(System.lineSeparator())
+            TimestampFormatter.append(vttContent, segment.startTimeMillis(), '.');
+            vttContent.append(" --> ");
+            TimestampFormatter.append(vttContent, segment.endTimeMillis(), '.');
+            vttContent.append(System.lineSeparator())
                     .append(segment.text())
                     .append(System.lineSeparator())
                     .append(System.lineSeparator());
         }
 
         Files.writeString(destination, vttContent.toString());
+        exportTime.recordSince(startNanos);
         log.info("成功将 {} 个片段导出到 VTT 文件: {}", segments.size(), destination);
     }
 
     /**
-     * 将毫秒格式化为 HH:MM:SS,ms 或 HH:MM:SS.ms 格式。
+     * 从二进制归档中导出与时间范围 [fromMillis, toMillis) 重叠的片段为 SRT 字幕。
+     * 范围通过归档的块索引二分定位，只解码与范围重叠的块，不需要重新解析整个会话。
      *
-     * @param millis    毫秒时间。
-     * @param separator 毫秒部分之前使用的分隔符（SRT为","，VTT为"."）。
-     * @return 格式化的时间戳字符串。
+     * @param archive     已打开的归档。
+     * @param fromMillis  范围起点（含）。
+     * @param toMillis    范围终点（不含）。
+     * @param lang        目标语言代码；为null时导出原文。
+     * @param destination 目标 .srt 文件的路径。
+     * @throws IOException 如果写入文件时发生 I/O 错误。
      */
-    private String formatTimestamp(long millis, String separator) {
-        long hours = TimeUnit.MILLISECONDS.toHours(millis);
-        long minutes = TimeUnit.MILLISECONDS.toMinutes(millis) % 60;
-        long seconds = TimeUnit.MILLISECONDS.toSeconds(millis) % 60;
-        long ms = millis % 1000;
+    public void exportRangeAsSrt(TranscriptArchiveReader archive, long fromMillis, long toMillis, String lang,
+                                 Path destination) throws IOException {
+        exportAsSrt(readRange(archive, fromMillis, toMillis, lang), destination);
+    }
+
+    /**
+     * 从二进制归档中导出与时间范围 [fromMillis, toMillis) 重叠的片段为 VTT 字幕。
+     *
+     * @param archive     已打开的归档。
+     * @param fromMillis  范围起点（含）。
+     * @param toMillis    范围终点（不含）。
+     * @param lang        目标语言代码；为null时导出原文。
+     * @param destination 目标 .vtt 文件的路径。
+     * @throws IOException 如果写入文件时发生 I/O 错误。
+     */
+    public void exportRangeAsVtt(TranscriptArchiveReader archive, long fromMillis, long toMillis, String lang,
+                                 Path destination) throws IOException {
+        exportAsVtt(readRange(archive, fromMillis, toMillis, lang), destination);
+    }
 
-        return String.format("%02d:%02d:%02d%s%03d", hours, minutes, seconds, separator, ms);
+    private static List<TranscriptionSegment> readRange(TranscriptArchiveReader archive, long fromMillis,
+                                                        long toMillis, String lang) {
+        return lang == null ? archive.range(fromMillis, toMillis) : archive.range(fromMillis, toMillis, lang);
     }
-}
\ No newline at end of file
+}
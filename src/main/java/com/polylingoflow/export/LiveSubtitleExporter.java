@@ -0,0 +1,343 @@
+package com.polylingoflow.export;
+
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.tracing.ExportWriteEvent;
+import com.polylingoflow.tracing.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 录音期间的实时字幕导出器。
+ *
+ * 每个最终转录片段一到达就被追加到已打开的 SRT/VTT/TXT/NDJSON 文件中，
+ * 翻译以单独的记录追加到 NDJSON 文件。与 {@link Exporter} 不同，这里不会在内存中拼接整个文档：
+ * 每个片段被直接编码到一个可复用的直接缓冲区中并写入文件通道，时间戳和UTF-8编码都不分配临时对象，
+ * 因此内存占用与会话长度无关。
+ *
+ * 每个片段写入后即进入操作系统缓存（进程崩溃不会丢失），并按固定间隔 {@code fsync}
+ * 到磁盘，因此即使掉电也最多丢失最后一个同步间隔内的片段。
+ * 此类是线程安全的。
+ */
+public class LiveSubtitleExporter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveSubtitleExporter.class);
+    private static final LatencyHistogram appendTime = MetricsRegistry.global().histogram(MetricNames.EXPORT_LIVE_APPEND);
+
+    /**
+     * 支持的实时导出格式。
+     */
+    public enum Format {
+        SRT("srt"), VTT("vtt"), TXT("txt"), NDJSON("ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ARROW = " --> ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VTT_HEADER = "WEBVTT".getBytes(StandardCharsets.US_ASCII);
+    // 单个字符编码后的最大字节数（JSON转义的 \\uXXXX 为6字节）
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<Format, FileChannel> channels = new EnumMap<>(Format.class);
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(16 * 1024);
+    private final ScheduledExecutorService syncTimer;
+    private FileChannel current;
+    private int srtIndex = 0;
+    private volatile boolean dirty = false;
+    private volatile boolean closed = false;
+
+    /**
+     * 在指定目录下创建（或截断）导出文件，例如 {@code <baseName>.srt}。
+     *
+     * @param directory           输出目录，不存在时会被创建。
+     * @param baseName            文件名（不含扩展名）。
+     * @param formats             要写入的格式。
+     * @param fsyncIntervalMillis 两次 fsync 之间的间隔（毫秒）。
+     * @throws IOException 如果无法创建文件。
+     */
+    public LiveSubtitleExporter(Path directory, String baseName, Set<Format> formats, long fsyncIntervalMillis)
+            throws IOException {
+        Files.createDirectories(directory);
+        try {
+            for (Format format : formats) {
+                Path file = directory.resolve(baseName + "." + format.extension());
+                channels.put(format, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING));
+            }
+            if (channels.containsKey(Format.VTT)) {
+                beginRecord(Format.VTT);
+                buffer.put(VTT_HEADER).put(NEWLINE).put(NEWLINE);
+                endRecord();
+            }
+        } catch (IOException e) {
+            closeChannels();
+            throw e;
+        }
+
+        this.syncTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-export-fsync");
+            t.setDaemon(true);
+            return t;
+        });
+        syncTimer.scheduleWithFixedDelay(this::syncQuietly, fsyncIntervalMillis, fsyncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        log.info("实时导出已开始: {}/{}.{}", directory, baseName, formats);
+    }
+
+    /**
+     * 将一个最终转录片段追加到所有已打开的文件。
+     *
+     * @param segment 转录片段。
+     * @throws IOException 如果写入失败。
+     */
+    public synchronized void append(TranscriptionSegment segment) throws IOException {
+        ensureOpen();
+        long startNanos = System.nanoTime();
+        ExportWriteEvent event = new ExportWriteEvent();
+        event.begin();
+        srtIndex++;
+
+        if (beginRecord(Format.SRT)) {
+            TimestampFormatter.putDecimal(buffer, srtIndex);
+            buffer.put(NEWLINE);
+            putTimeRange(segment, (byte) ',');
+            putUtf8(segment.text(), false);
+            buffer.put(NEWLINE).put(NEWLINE);
+            endRecord();
+        }
+        if (beginRecord(Format.VTT)) {
+            putTimeRange(segment, (byte) '.');
+            putUtf8(segment.text(), false);
+            buffer.put(NEWLINE).put(NEWLINE);
+            endRecord();
+        }
+        if (beginRecord(Format.TXT)) {
+            putUtf8(segment.text(), false);
+            buffer.put(NEWLINE);
+            endRecord();
+        }
+        if (beginRecord(Format.NDJSON)) {
+            putAscii("{\"seq\":");
+            TimestampFormatter.putDecimal(buffer, segment.sequence());
+            putAscii(",\"start\":");
+            TimestampFormatter.putDecimal(buffer, segment.startTimeMillis());
+            putAscii(",\"end\":");
+            TimestampFormatter.putDecimal(buffer, segment.endTimeMillis());
+            putAscii(",\"text\":\"");
+            putUtf8(segment.text(), true);
+            putAscii("\"}\n");
+            endRecord();
+        }
+        dirty = true;
+        appendTime.recordSince(startNanos);
+        commit(event, segment.sequence(), "");
+    }
+
+    /**
+     * 将一个片段的翻译作为单独的记录追加到 NDJSON 文件（其他格式只包含原文）。
+     *
+     * @param sequence   片段序列号。
+     * @param targetLang 目标语言代码。
+     * @param text       翻译文本。
+     * @throws IOException 如果写入失败。
+     */
+    public synchronized void appendTranslation(long sequence, String targetLang, String text) throws IOException {
+        ensureOpen();
+        ExportWriteEvent event = new ExportWriteEvent();
+        event.begin();
+        if (beginRecord(Format.NDJSON)) {
+            putAscii("{\"seq\":");
+            TimestampFormatter.putDecimal(buffer, sequence);
+            putAscii(",\"lang\":\"");
+            putUtf8(targetLang, true);
+            putAscii("\",\"text\":\"");
+            putUtf8(text, true);
+            putAscii("\"}\n");
+            endRecord();
+            dirty = true;
+        }
+        commit(event, sequence, targetLang);
+    }
+
+    private static void commit(ExportWriteEvent event, long sequence, String lang) {
+        if (event.shouldCommit()) {
+            event.stream = TraceContext.stream();
+            event.correlationId = sequence;
+            event.lang = lang;
+            event.commit();
+        }
+    }
+
+    /**
+     * 将所有文件强制同步到磁盘。
+     *
+     * @throws IOException 如果同步失败。
+     */
+    public void sync() throws IOException {
+        if (!dirty || closed) {
+            return;
+        }
+        dirty = false;
+        // FileChannel.force 可以与写入并发执行，不需要持有写入锁
+        for (FileChannel channel : channels.values()) {
+            channel.force(false);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            log.warn("实时导出 fsync 失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        // 不能中断正在执行的 fsync：被中断的 FileChannel.force 会关闭通道，最后一次同步随之失败
+        syncTimer.shutdown();
+        boolean interrupted = false;
+        try {
+            if (!syncTimer.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("等待定时 fsync 结束超时");
+            }
+        } catch (InterruptedException e) {
+            // 中断状态在最后一次同步之后再恢复，否则 force 同样会被中断
+            interrupted = true;
+        }
+        try {
+            dirty = true;
+            sync();
+        } finally {
+            closed = true;
+            closeChannels();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("实时导出已结束，共写入 {} 个片段。", srtIndex);
+    }
+
+    // --- 编码辅助方法（调用方持有锁） ---
+
+    private boolean beginRecord(Format format) {
+        current = channels.get(format);
+        buffer.clear();
+        return current != null;
+    }
+
+    private void endRecord() throws IOException {
+        drain();
+        current = null;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void putTimeRange(TranscriptionSegment segment, byte separator) throws IOException {
+        ensureCapacity(64);
+        TimestampFormatter.put(buffer, segment.startTimeMillis(), separator);
+        buffer.put(ARROW);
+        TimestampFormatter.put(buffer, segment.endTimeMillis(), separator);
+        buffer.put(NEWLINE);
+    }
+
+    private void putAscii(String ascii) throws IOException {
+        ensureCapacity(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            buffer.put((byte) ascii.charAt(i));
+        }
+    }
+
+    /**
+     * 将字符串直接以UTF-8编码写入缓冲区，可选地进行JSON字符串转义。
+     */
+    private void putUtf8(String text, boolean jsonEscape) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            ensureCapacity(MAX_CHAR_BYTES);
+            char c = text.charAt(i);
+            if (jsonEscape && (c == '"' || c == '\\')) {
+                buffer.put((byte) '\\').put((byte) c);
+            } else if (jsonEscape && c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)))
+                        .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                        .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // 孤立的代理字符
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("实时导出器已关闭");
+        }
+    }
+
+    private void closeChannels() {
+        for (FileChannel channel : channels.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭导出文件失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.polylingoflow.export;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 无分配的字幕时间戳格式化工具，输出 HH:MM:SS,mmm（SRT）或 HH:MM:SS.mmm（VTT）。
+ * 与 {@code String.format} 不同，这里直接把ASCII数字写入调用方提供的缓冲区，不创建任何临时对象。
+ */
+public final class TimestampFormatter {
+
+    private TimestampFormatter() {
+    }
+
+    /**
+     * 将时间戳追加到 StringBuilder。
+     *
+     * @param out       目标。
+     * @param millis    毫秒时间。
+     * @param separator 毫秒部分之前使用的分隔符（SRT为','，VTT为'.'）。
+     */
+    public static void append(StringBuilder out, long millis, char separator) {
+        long hours = millis / 3_600_000;
+        int minutes = (int) (millis / 60_000 % 60);
+        int seconds = (int) (millis / 1000 % 60);
+        int ms = (int) (millis % 1000);
+
+        if (hours < 10) {
+            out.append('0');
+        }
+        out.append(hours).append(':');
+        out.append((char) ('0' + minutes / 10)).append((char) ('0' + minutes % 10)).append(':');
+        out.append((char) ('0' + seconds / 10)).append((char) ('0' + seconds % 10)).append(separator);
+        out.append((char) ('0' + ms / 100)).append((char) ('0' + ms / 10 % 10)).append((char) ('0' + ms % 10));
+    }
+
+    /**
+     * 将时间戳以ASCII字节写入 ByteBuffer。
+     *
+     * @param out       目标缓冲区，至少需要12个字节（小时数超过99时更多）的剩余空间。
+     * @param millis    毫秒时间。
+     * @param separator 毫秒部分之前使用的分隔符（SRT为','，VTT为'.'）。
+     */
+    public static void put(ByteBuffer out, long millis, byte separator) {
+        long hours = millis / 3_600_000;
+        int minutes = (int) (millis / 60_000 % 60);
+        int seconds = (int) (millis / 1000 % 60);
+        int ms = (int) (millis % 1000);
+
+        if (hours < 10) {
+            out.put((byte) '0');
+        }
+        putDecimal(out, hours);
+        out.put((byte) ':');
+        out.put((byte) ('0' + minutes / 10)).put((byte) ('0' + minutes % 10)).put((byte) ':');
+        out.put((byte) ('0' + seconds / 10)).put((byte) ('0' + seconds % 10)).put(separator);
+        out.put((byte) ('0' + ms / 100)).put((byte) ('0' + ms / 10 % 10)).put((byte) ('0' + ms % 10));
+    }
+
+    /**
+     * 将一个非负整数的十进制ASCII表示写入 ByteBuffer。
+     */
+    public static void putDecimal(ByteBuffer out, long value) {
+        if (value >= 10) {
+            putDecimal(out, value / 10);
+        }
+        out.put((byte) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,70 @@
+package com.polylingoflow.export;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 二进制转录归档（.plfa）的格式常量和变长整数编解码，由 {@link TranscriptArchiveWriter}
+ * 和 {@link TranscriptArchiveReader} 共享。
+ *
+ * 文件布局（多字节定长整数均为大端序）：
+ * <pre>
+ * 文件头   magic "PLFA" | 版本(1字节) | 保留(3字节)
+ * 数据块*  每块最多 {@link #BLOCK_SIZE} 个片段，每个片段：
+ *            varint   序列号增量（相对上一片段；块内第一个片段相对索引中的 firstSequence）
+ *            varint   开始时间增量（相对上一片段；块内第一个片段相对索引中的 firstStart）
+ *            varint   时长（结束时间 - 开始时间）
+ *            varint   原文UTF-8字节数，随后是原文字节
+ *            varint   翻译数，随后每条翻译：varint 语言编号 | varint 字节数 | UTF-8字节
+ * 语言表   varint 语言数，随后每种语言：varint 字节数 | UTF-8字节
+ * 索引     每块一个定长条目（{@link #INDEX_ENTRY_BYTES} 字节）：
+ *            long firstSequence | long firstStart | long maxEnd | long offset | int count
+ *          maxEnd 是截至该块（含）的最大结束时间，因此随块号单调不减，可直接二分查找。
+ * 文件尾   long 语言表偏移 | long 索引偏移 | int 块数 | long 片段总数 | magic "PLFA"
+ * </pre>
+ */
+final class TranscriptArchiveFormat {
+
+    static final int MAGIC = 0x504C4641; // "PLFA"
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int BLOCK_SIZE = 128;
+    static final int INDEX_ENTRY_BYTES = 8 * 4 + 4;
+    static final int FOOTER_BYTES = 8 + 8 + 4 + 8 + 4;
+
+    // 单个变长整数的最大字节数
+    static final int MAX_VARINT_BYTES = 10;
+
+    private TranscriptArchiveFormat() {
+    }
+
+    /**
+     * 写入一个无符号变长整数（每字节7位，最高位表示后面还有字节）。
+     */
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static int getVarInt(ByteBuffer in) {
+        long value = getVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("归档数据损坏：长度越界 " + value);
+        }
+        return (int) value;
+    }
+}
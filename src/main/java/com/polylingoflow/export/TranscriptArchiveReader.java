@@ -0,0 +1,218 @@
+package com.polylingoflow.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.polylingoflow.export.TranscriptArchiveFormat.*;
+
+/**
+ * 通过内存映射读取 {@link TranscriptArchiveWriter} 写出的二进制归档。
+ *
+ * 打开时只解析文件尾和语言表；块索引是定长条目，直接在映射区上二分查找，
+ * 因此定位任意时间点是 O(log n)，读取一个时间范围只解码与该范围重叠的块。
+ * 单个归档文件最大为2GB（一次映射的上限）。此类是线程安全的。
+ */
+public class TranscriptArchiveReader implements AutoCloseable {
+
+    private final Path source;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final List<String> languages;
+    private final long indexOffset;
+    private final int blockCount;
+    private final long segmentCount;
+
+    /**
+     * 打开并映射一个归档文件。
+     *
+     * @param source 归档文件路径。
+     * @throws IOException 如果文件不存在、过大或不是有效的归档。
+     */
+    public TranscriptArchiveReader(Path source) throws IOException {
+        this.source = source;
+        this.channel = FileChannel.open(source, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("归档文件过大（超过2GB）: " + source);
+            }
+            if (size < HEADER_BYTES + FOOTER_BYTES) {
+                throw new IOException("不是有效的归档文件: " + source);
+            }
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (mapped.getInt(0) != MAGIC || mapped.getInt((int) size - 4) != MAGIC) {
+                throw new IOException("不是有效的归档文件: " + source);
+            }
+            if (mapped.get(4) != VERSION) {
+                throw new IOException("不支持的归档版本 " + mapped.get(4) + ": " + source);
+            }
+            int footer = (int) size - FOOTER_BYTES;
+            long languageTableOffset = mapped.getLong(footer);
+            this.indexOffset = mapped.getLong(footer + 8);
+            this.blockCount = mapped.getInt(footer + 16);
+            this.segmentCount = mapped.getLong(footer + 20);
+
+            ByteBuffer table = view((int) languageTableOffset);
+            int languageCount = getVarInt(table);
+            List<String> names = new ArrayList<>(languageCount);
+            for (int i = 0; i < languageCount; i++) {
+                names.add(getString(table));
+            }
+            this.languages = Collections.unmodifiableList(names);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return 归档中的片段总数。
+     */
+    public long segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * @return 归档中出现过的翻译语言代码。
+     */
+    public List<String> languages() {
+        return languages;
+    }
+
+    /**
+     * 定位到某个时间点：返回第一个在该时间之后结束的片段（即正在进行或紧随其后的片段）。
+     *
+     * @param timeMillis 会话内的毫秒时间。
+     * @return 该片段；如果时间点在所有片段之后则返回null。
+     */
+    public TranscriptionSegment seek(long timeMillis) {
+        List<TranscriptionSegment> found = collect(timeMillis, Long.MAX_VALUE, null, 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * 读取与时间范围 [fromMillis, toMillis) 重叠的所有原文片段。
+     *
+     * @param fromMillis 范围起点（含）。
+     * @param toMillis   范围终点（不含）。
+     * @return 按说话顺序排列的片段。
+     */
+    public List<TranscriptionSegment> range(long fromMillis, long toMillis) {
+        return collect(fromMillis, toMillis, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 读取与时间范围 [fromMillis, toMillis) 重叠的片段，并将文本替换为指定语言的翻译
+     * （没有该语言翻译的片段为空字符串）。
+     *
+     * @param fromMillis 范围起点（含）。
+     * @param toMillis   范围终点（不含）。
+     * @param lang       目标语言代码。
+     * @return 按说话顺序排列的片段。
+     */
+    public List<TranscriptionSegment> range(long fromMillis, long toMillis, String lang) {
+        return collect(fromMillis, toMillis, lang, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<TranscriptionSegment> collect(long fromMillis, long toMillis, String lang, int limit) {
+        List<TranscriptionSegment> result = new ArrayList<>();
+        int languageId = lang == null ? -1 : languages.indexOf(lang);
+
+        for (int blockIndex = firstBlockEndingAfter(fromMillis); blockIndex < blockCount; blockIndex++) {
+            int entry = (int) indexOffset + blockIndex * INDEX_ENTRY_BYTES;
+            long sequence = mapped.getLong(entry);
+            long start = mapped.getLong(entry + 8);
+            if (start >= toMillis) {
+                break;
+            }
+            ByteBuffer block = view((int) mapped.getLong(entry + 24));
+            int count = mapped.getInt(entry + 32);
+
+            for (int i = 0; i < count; i++) {
+                sequence += getVarLong(block);
+                start += getVarLong(block);
+                long end = start + getVarLong(block);
+                if (start >= toMillis) {
+                    return result;
+                }
+                boolean include = end > fromMillis;
+
+                String text = lang == null && include ? getString(block) : skipString(block);
+                int translationCount = getVarInt(block);
+                for (int t = 0; t < translationCount; t++) {
+                    int id = getVarInt(block);
+                    if (include && id == languageId) {
+                        text = getString(block);
+                    } else {
+                        skipString(block);
+                    }
+                }
+
+                if (include) {
+                    result.add(new TranscriptionSegment(sequence, start, end, text != null ? text : ""));
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在块索引上二分查找第一个累计最大结束时间晚于指定时间的块。
+     */
+    private int firstBlockEndingAfter(long timeMillis) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long maxEnd = mapped.getLong((int) indexOffset + mid * INDEX_ENTRY_BYTES + 16);
+            if (maxEnd > timeMillis) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return 映射区从指定偏移开始的独立视图，拥有自己的读取位置，因此可以并发读取。
+     */
+    private ByteBuffer view(int offset) {
+        return mapped.duplicate().position(offset);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = getVarInt(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String skipString(ByteBuffer in) {
+        int length = getVarInt(in);
+        in.position(in.position() + length);
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "TranscriptArchiveReader[" + source + ", " + segmentCount + " segments]";
+    }
+}
@@ -0,0 +1,198 @@
+package com.polylingoflow.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.polylingoflow.export.TranscriptArchiveFormat.*;
+
+/**
+ * 将按说话顺序排列的转录片段（及其各语言翻译）写成紧凑的二进制归档，格式见 {@link TranscriptArchiveFormat}。
+ *
+ * 时间戳和序列号以增量变长整数存储，语言代码存入一次性的语言表，文本以原始UTF-8字节存储。
+ * 片段按块写出，关闭时写入语言表、定长的块索引和文件尾，读取方据此在 O(log n) 时间内定位任意时间点。
+ * 此类不是线程安全的。
+ */
+public class TranscriptArchiveWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptArchiveWriter.class);
+
+    private final FileChannel channel;
+    private final Path destination;
+    private ByteBuffer block = ByteBuffer.allocate(64 * 1024);
+
+    private final Map<String, Integer> languageIds = new HashMap<>();
+    private final List<String> languages = new ArrayList<>();
+    private ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_ENTRY_BYTES * 64);
+
+    private long offset;
+    private long segmentCount = 0;
+    private int blockCount = 0;
+
+    // 当前块的状态
+    private int blockSegments = 0;
+    private long blockFirstSequence;
+    private long blockFirstStart;
+    private long previousSequence;
+    private long previousStart;
+    private long maxEnd = Long.MIN_VALUE;
+    private boolean closed = false;
+
+    /**
+     * 创建（或截断）归档文件并写入文件头。
+     *
+     * @param destination 归档文件路径，通常以 .plfa 结尾。
+     * @throws IOException 如果无法创建文件。
+     */
+    public TranscriptArchiveWriter(Path destination) throws IOException {
+        this.destination = destination;
+        this.channel = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).put(VERSION).put((byte) 0).put((byte) 0).put((byte) 0).flip();
+        writeFully(header);
+    }
+
+    /**
+     * 追加一个片段。片段必须按序列号递增、开始时间不减的顺序追加。
+     *
+     * @param segment      转录片段。
+     * @param translations 该片段已有的翻译（语言代码 → 译文），可以为空。
+     * @throws IOException 如果写入失败。
+     */
+    public void append(TranscriptionSegment segment, Map<String, String> translations) throws IOException {
+        if (closed) {
+            throw new IOException("归档已关闭: " + destination);
+        }
+        if (segment.endTimeMillis() < segment.startTimeMillis()) {
+            throw new IllegalArgumentException("片段 " + segment.sequence() + " 的结束时间早于开始时间");
+        }
+        if (segmentCount > 0 && (segment.sequence() <= previousSequence || segment.startTimeMillis() < previousStart)) {
+            throw new IllegalArgumentException("片段 " + segment.sequence() + " 未按说话顺序追加");
+        }
+
+        if (blockSegments == 0) {
+            blockFirstSequence = segment.sequence();
+            blockFirstStart = segment.startTimeMillis();
+            previousSequence = blockFirstSequence;
+            previousStart = blockFirstStart;
+        }
+
+        byte[] text = segment.text().getBytes(StandardCharsets.UTF_8);
+        ensureBlockCapacity(3 * MAX_VARINT_BYTES + MAX_VARINT_BYTES + text.length);
+        putVarLong(block, segment.sequence() - previousSequence);
+        putVarLong(block, segment.startTimeMillis() - previousStart);
+        putVarLong(block, segment.endTimeMillis() - segment.startTimeMillis());
+        putVarLong(block, text.length);
+        block.put(text);
+
+        ensureBlockCapacity(MAX_VARINT_BYTES);
+        putVarLong(block, translations.size());
+        for (Map.Entry<String, String> translation : translations.entrySet()) {
+            byte[] translated = translation.getValue().getBytes(StandardCharsets.UTF_8);
+            ensureBlockCapacity(2 * MAX_VARINT_BYTES + translated.length);
+            putVarLong(block, languageId(translation.getKey()));
+            putVarLong(block, translated.length);
+            block.put(translated);
+        }
+
+        previousSequence = segment.sequence();
+        previousStart = segment.startTimeMillis();
+        maxEnd = Math.max(maxEnd, segment.endTimeMillis());
+        segmentCount++;
+        if (++blockSegments == BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * 写出最后一个块、语言表、索引和文件尾，然后关闭文件。
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockSegments > 0) {
+                flushBlock();
+            }
+
+            long languageTableOffset = offset;
+            block.clear();
+            putVarLong(block, languages.size());
+            for (String language : languages) {
+                byte[] bytes = language.getBytes(StandardCharsets.UTF_8);
+                ensureBlockCapacity(MAX_VARINT_BYTES + bytes.length);
+                putVarLong(block, bytes.length);
+                block.put(bytes);
+            }
+            block.flip();
+            writeFully(block);
+
+            long indexOffset = offset;
+            indexBuffer.flip();
+            writeFully(indexBuffer);
+
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            footer.putLong(languageTableOffset).putLong(indexOffset).putInt(blockCount).putLong(segmentCount)
+                    .putInt(MAGIC).flip();
+            writeFully(footer);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+        log.info("已将 {} 个片段（{} 个块）写入归档: {}", segmentCount, blockCount, destination);
+    }
+
+    private int languageId(String language) {
+        Integer id = languageIds.get(language);
+        if (id == null) {
+            id = languages.size();
+            languageIds.put(language, id);
+            languages.add(language);
+        }
+        return id;
+    }
+
+    private void flushBlock() throws IOException {
+        if (indexBuffer.remaining() < INDEX_ENTRY_BYTES) {
+            ByteBuffer grown = ByteBuffer.allocate(indexBuffer.capacity() * 2);
+            indexBuffer.flip();
+            indexBuffer = grown.put(indexBuffer);
+        }
+        indexBuffer.putLong(blockFirstSequence).putLong(blockFirstStart).putLong(maxEnd).putLong(offset)
+                .putInt(blockSegments);
+
+        block.flip();
+        writeFully(block);
+        block.clear();
+        blockSegments = 0;
+        blockCount++;
+    }
+
+    private void ensureBlockCapacity(int bytes) {
+        if (block.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(block.capacity() * 2, block.position() + bytes));
+            block.flip();
+            block = grown.put(block);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer);
+        }
+    }
+}
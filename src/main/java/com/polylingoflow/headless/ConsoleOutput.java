@@ -0,0 +1,36 @@
+package com.polylingoflow.headless;
+
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.pipeline.PipelineEvent;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+
+/**
+ * 把流水线的转录、翻译和错误实时打印到标准输出（错误打印到标准错误）。多路流时每行以流名称开头。
+ */
+final class ConsoleOutput {
+
+    private ConsoleOutput() {
+    }
+
+    /**
+     * 订阅一路流的事件流。
+     */
+    static void attach(TranscriptionPipeline pipeline) {
+        String streamName = pipeline.getStreamName();
+        pipeline.getEventBus().subscribe("console", event -> print(streamName, event));
+    }
+
+    private static void print(String streamName, PipelineEvent event) {
+        String stream = streamName == null ? "" : streamName + " ";
+        if (event instanceof PipelineEvent.FinalTranscript transcript) {
+            TranscriptionSegment segment = transcript.segment();
+            System.out.printf("%s[%d] %d-%dms: %s%n", stream, segment.sequence(), segment.startTimeMillis(),
+                    segment.endTimeMillis(), segment.text());
+        } else if (event instanceof PipelineEvent.Translated translated) {
+            System.out.printf("%s[%d] (%s) %s%n", stream, translated.sequence(), translated.targetLang(),
+                    translated.text());
+        } else if (event instanceof PipelineEvent.PipelineError error) {
+            System.err.printf("%s[%d] 错误（%s）: %s%n", stream, error.sequence(), error.stage(), error.message());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.polylingoflow.headless;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * 无界面模式的 {@code --jfr}：在整个会话期间以默认配置进行飞行记录，结束时写入目标文件。
+ * 流水线的自定义事件按流名称和片段关联ID组成每个片段的瀑布图（也可以直接使用 {@code -XX:StartFlightRecording}）。
+ */
+final class FlightRecording implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecording.class);
+
+    private final Recording recording;
+    private final Path destination;
+
+    /**
+     * 开始记录。
+     *
+     * @param destination 记录结束时写入的文件。
+     * @throws IOException 如果无法读取 JFR 的默认配置。
+     */
+    FlightRecording(Path destination) throws IOException {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration("default");
+        } catch (ParseException e) {
+            throw new IOException("无法读取 JFR 默认配置", e);
+        }
+        this.destination = destination;
+        this.recording = new Recording(configuration);
+        recording.setName("polylingoflow");
+        recording.setDestination(destination);
+        recording.start();
+        log.info("飞行记录已开始，将写入 {}", destination);
+    }
+
+    /**
+     * 停止记录并写入目标文件。
+     */
+    @Override
+    public void close() {
+        recording.stop(); // 停止时写入目标文件
+        recording.close();
+        log.info("飞行记录已写入 {}", destination);
+    }
+}
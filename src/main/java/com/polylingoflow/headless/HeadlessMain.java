@@ -0,0 +1,294 @@
+package com.polylingoflow.headless;
+
+import com.polylingoflow.audio.AudioCapture;
+import com.polylingoflow.audio.AudioSource;
+import com.polylingoflow.audio.ChannelSplitter;
+import com.polylingoflow.audio.SegmentStore;
+import com.polylingoflow.metrics.MetricsJmx;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.metrics.MetricsReporter;
+import com.polylingoflow.metrics.StartupTimeline;
+import com.polylingoflow.pipeline.MultiStreamSession;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.server.StreamingServer;
+import com.polylingoflow.tuning.AutoTuner;
+import com.polylingoflow.translate.TranslatorService;
+import com.polylingoflow.whisper.RecognizerPool;
+import com.polylingoflow.whisper.WhisperEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 无界面（headless）模式的入口点，适用于服务器、容器或作为守护进程运行。
+ * 此类及其使用的流水线不引用任何JavaFX类，因此不会加载JavaFX工具包。
+ *
+ * 用法：
+ * <pre>
+ * java -cp ... com.polylingoflow.headless.HeadlessMain \
+ *     [--model models/ggml-base.en.bin] [--source en] [--targets zh,ja] \
+ *     [--out exports/] [--duration 3600] [--audio-log sessions/audio/] [--replay sessions/audio/20250101-120000/] \
+ *     [--index history.idx] [--search "关键词 \"exact phrase\" prefix*"] [--metrics metrics.json] \
+ *     [--jfr session.jfr] [--inputs "USB Audio,Headset"] [--channels 2] [--engines 2] \
+ *     [--serve 8080 [--max-sessions 64]] [--auto-tune off] [--segment-memory 64]
+ * </pre>
+ * {@code --index} 在启动时加载跨会话的搜索索引，把本次会话加入其中并在退出时保存；
+ * 与 {@code --search} 一起使用时只执行查询后退出（见 {@link TranscriptSearch}）。
+ * {@code --audio-log} 将每个语音片段的原始音频记录到只追加日志，每个会话（多路流时每路流）写入以会话标识命名的子目录；
+ * {@code --replay} 不捕获音频，而是以最快速度重新转录这样一个会话目录，完成后退出。
+ * 转录和翻译结果实时打印到标准输出（见 {@link ConsoleOutput}）；{@code --out} 的导出见 {@link SessionExporter}。
+ * 流水线指标通过 JMX 暴露，并定期以一行摘要写入日志；指定 {@code --metrics} 时还会把完整的 JSON 写入该文件。
+ * {@code --jfr} 见 {@link FlightRecording}。
+ *
+ * {@code --inputs} 和 {@code --channels} 在一个进程中同时转录多路音频：{@code --inputs} 列出录音设备名称中包含的文本，
+ * {@code --channels} 把每个设备的多声道输入（例如会议的立体声馈送）按声道拆分，每个声道一路流。
+ * 各路流命名为 {@code in0}、{@code ch1} 或 {@code in0-ch1}，输出打印时带有流名称前缀，导出文件写入 {@code --out} 下的同名子目录；
+ * 所有流共享 {@code --engines} 个语音识别引擎（默认1个，每个引擎加载一份模型）。
+ *
+ * {@code --serve} 不捕获本机音频，而是在指定端口上运行 {@link StreamingServer}：客户端通过 HTTP 上传 PCM 并接收 NDJSON 事件，
+ * 所有会话共享 {@code --engines} 个引擎，同时存在的会话数不超过 {@code --max-sessions}。
+ *
+ * 录音和服务模式下，{@link AutoTuner} 根据实时率、识别积压和CPU利用率自动调整活动引擎数、VAD 静音窗口和部分转录间隔，
+ * 并通过 JMX（{@code com.polylingoflow:type=AutoTuner}）暴露当前值和手动覆盖；{@code --auto-tune off} 时只观测不调整。
+ *
+ * 等待转录的语音片段保存在堆外，所有流共用 {@code --segment-memory} MB 的内存预算（默认64），
+ * 超出的最旧片段溢出到临时文件，轮到转录时再读回（见 {@link SegmentStore}）。
+ */
+public final class HeadlessMain {
+
+    private static final Logger log = LoggerFactory.getLogger(HeadlessMain.class);
+
+    private static final long REPLAY_TRANSLATION_TIMEOUT_MILLIS = 60_000;
+    private static final long METRICS_INTERVAL_MILLIS = 10_000;
+    private static final int DEFAULT_ENGINES = 1;
+    private static final int DEFAULT_MAX_SESSIONS = 64;
+    private static final long SERVER_IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final long AUTO_TUNE_INTERVAL_MILLIS = 5_000;
+
+    private HeadlessMain() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        StartupTimeline.mark(StartupTimeline.MAIN);
+        Map<String, String> options = parseOptions(args);
+        PipelineConfig defaults = PipelineConfig.defaults();
+        PipelineConfig config = new PipelineConfig(
+                options.containsKey("model") ? Paths.get(options.get("model")) : defaults.modelPath(),
+                options.getOrDefault("source", defaults.sourceLang()),
+                options.containsKey("targets") ? Arrays.asList(options.get("targets").split(",")) : defaults.targetLangs(),
+                defaults.vadFrameMillis(),
+                defaults.vadEnergyThreshold(),
+                defaults.vadSilenceMillis(),
+                options.containsKey("audio-log") ? Paths.get(options.get("audio-log")) : null,
+                defaults.vadStage(),
+                defaults.asrStage(),
+                defaults.translateStage());
+        Path outputDir = options.containsKey("out") ? Paths.get(options.get("out")) : null;
+        Path indexFile = options.containsKey("index") ? Paths.get(options.get("index")) : null;
+        TranscriptIndex searchIndex = indexFile != null && Files.exists(indexFile)
+                ? TranscriptIndex.load(indexFile) : new TranscriptIndex();
+
+        if (options.containsKey("segment-memory")) {
+            SegmentStore.global().setMemoryBudget(Long.parseLong(options.get("segment-memory")) * 1024 * 1024);
+        }
+
+        if (options.containsKey("search")) {
+            TranscriptSearch.run(searchIndex, options.get("search"));
+            return;
+        }
+
+        if (options.containsKey("serve")) {
+            serve(options, config);
+            return;
+        }
+
+        boolean multiStream = options.containsKey("inputs") || options.containsKey("channels");
+        if (multiStream && options.containsKey("replay")) {
+            throw new IllegalArgumentException("--replay 只支持单路流");
+        }
+        MultiStreamSession session = multiStream
+                ? new MultiStreamSession(config, searchIndex, openSources(options),
+                        new RecognizerPool(Integer.parseInt(options.getOrDefault("engines", String.valueOf(DEFAULT_ENGINES))),
+                                WhisperEngine::new),
+                        new TranslatorService())
+                : null;
+        List<TranscriptionPipeline> pipelines = session != null
+                ? List.copyOf(session.getPipelines().values())
+                : List.of(new TranscriptionPipeline(config, searchIndex));
+
+        SessionExporter sessionExporter = outputDir != null ? new SessionExporter(outputDir) : null;
+        for (TranscriptionPipeline pipeline : pipelines) {
+            ConsoleOutput.attach(pipeline);
+            if (sessionExporter != null) {
+                sessionExporter.attach(pipeline);
+            }
+        }
+
+        FlightRecording recording = startRecording(options);
+        MetricsReporter metricsReporter = startMetrics(options);
+        AutoTuner autoTuner = startAutoTuner(options, () -> pipelines,
+                session != null ? session.getRecognizerPool() : null, config);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            autoTuner.close();
+            stop(session, pipelines, sessionExporter, indexFile);
+            metricsReporter.close();
+            finishRecording(recording);
+            stopped.countDown();
+        }, "headless-shutdown"));
+
+        if (options.containsKey("replay")) {
+            TranscriptionPipeline pipeline = pipelines.get(0);
+            pipeline.replay(Paths.get(options.get("replay")));
+            if (!pipeline.awaitTranslations(REPLAY_TRANSLATION_TIMEOUT_MILLIS)) {
+                log.warn("部分翻译在 {} 毫秒内未完成。", REPLAY_TRANSLATION_TIMEOUT_MILLIS);
+            }
+            System.exit(0); // 触发关闭钩子
+        }
+
+        if (session != null) {
+            session.start();
+            session.setRecording(true);
+        } else {
+            pipelines.get(0).start();
+            pipelines.get(0).setRecording(true);
+        }
+        log.info("无界面模式已启动，正在聆听...");
+
+        if (options.containsKey("duration")) {
+            stopped.await(Long.parseLong(options.get("duration")), TimeUnit.SECONDS);
+            System.exit(0); // 触发关闭钩子
+        } else {
+            stopped.await();
+        }
+    }
+
+    /**
+     * 以流式服务模式运行，直到进程收到 SIGTERM。
+     */
+    private static void serve(Map<String, String> options, PipelineConfig config)
+            throws IOException, InterruptedException {
+        FlightRecording recording = startRecording(options);
+        MetricsReporter metricsReporter = startMetrics(options);
+        StreamingServer server = new StreamingServer(new InetSocketAddress(Integer.parseInt(options.get("serve"))),
+                config,
+                new RecognizerPool(Integer.parseInt(options.getOrDefault("engines", String.valueOf(DEFAULT_ENGINES))),
+                        WhisperEngine::new),
+                new TranslatorService(),
+                Integer.parseInt(options.getOrDefault("max-sessions", String.valueOf(DEFAULT_MAX_SESSIONS))),
+                SERVER_IDLE_TIMEOUT_MILLIS);
+        AutoTuner autoTuner = startAutoTuner(options, server::getPipelines, server.getRecognizerPool(), config);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            autoTuner.close();
+            server.close();
+            metricsReporter.close();
+            finishRecording(recording);
+            stopped.countDown();
+        }, "headless-shutdown"));
+        server.start();
+        stopped.await();
+    }
+
+    private static MetricsReporter startMetrics(Map<String, String> options) {
+        MetricsJmx.register(MetricsRegistry.global());
+        return new MetricsReporter(MetricsRegistry.global(), METRICS_INTERVAL_MILLIS,
+                options.containsKey("metrics") ? Paths.get(options.get("metrics")) : null,
+                summary -> log.info("指标: {}", summary));
+    }
+
+    private static AutoTuner startAutoTuner(Map<String, String> options,
+                                            Supplier<? extends Collection<TranscriptionPipeline>> pipelines,
+                                            RecognizerPool recognizerPool, PipelineConfig config) {
+        AutoTuner autoTuner = new AutoTuner(pipelines, recognizerPool, config.vadSilenceMillis(),
+                AUTO_TUNE_INTERVAL_MILLIS, !"off".equals(options.get("auto-tune")));
+        autoTuner.registerJmx();
+        return autoTuner;
+    }
+
+    private static FlightRecording startRecording(Map<String, String> options) throws IOException {
+        return options.containsKey("jfr") ? new FlightRecording(Paths.get(options.get("jfr"))) : null;
+    }
+
+    private static void finishRecording(FlightRecording recording) {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private static void stop(MultiStreamSession session, List<TranscriptionPipeline> pipelines,
+                             SessionExporter sessionExporter, Path indexFile) {
+        if (session != null) {
+            session.setRecording(false);
+            session.shutdown();
+        } else {
+            pipelines.get(0).setRecording(false);
+            pipelines.get(0).shutdown();
+        }
+        if (sessionExporter != null) {
+            sessionExporter.finish();
+        }
+        if (indexFile != null) {
+            // 各路流共享同一个索引
+            try {
+                pipelines.get(0).getSearchIndex().save(indexFile);
+            } catch (IOException e) {
+                log.error("保存搜索索引失败: {}", indexFile, e);
+            }
+        }
+    }
+
+    /**
+     * 按 {@code --inputs} 和 {@code --channels} 打开各路音频来源。
+     */
+    private static Map<String, AudioSource> openSources(Map<String, String> options) {
+        List<String> inputs = options.containsKey("inputs")
+                ? Arrays.asList(options.get("inputs").split(",")) : List.of();
+        int channels = Integer.parseInt(options.getOrDefault("channels", "1"));
+        Map<String, AudioSource> sources = new LinkedHashMap<>();
+        // 未指定设备时使用系统默认设备
+        int deviceCount = Math.max(1, inputs.size());
+        for (int i = 0; i < deviceCount; i++) {
+            String device = inputs.isEmpty() ? null : inputs.get(i).trim();
+            String deviceName = inputs.isEmpty() ? "" : "in" + i;
+            if (channels == 1) {
+                sources.put("in" + i, new AudioCapture(device, 1));
+                continue;
+            }
+            ChannelSplitter splitter = new ChannelSplitter(new AudioCapture(device, channels), channels);
+            for (int c = 0; c < channels; c++) {
+                sources.put(deviceName.isEmpty() ? "ch" + c : deviceName + "-ch" + c, splitter.channel(c));
+            }
+        }
+        return sources;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("无法解析的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
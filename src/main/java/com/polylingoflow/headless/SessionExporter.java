@@ -0,0 +1,95 @@
+package com.polylingoflow.headless;
+
+import com.polylingoflow.export.Exporter;
+import com.polylingoflow.export.LiveSubtitleExporter;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.transcript.LiveExportListener;
+import com.polylingoflow.transcript.TranscriptStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * 无界面模式的 {@code --out}：录音期间把原文实时追加到 TXT/SRT/VTT/NDJSON 文件（崩溃时最多丢失最后一个片段），
+ * 会话结束时再导出各目标语言的 SRT 文件，以及包含原文和全部译文的二进制归档（见 {@link TranscriptArchiver}）。
+ * 单路流写入输出目录本身，多路流时每路流写入以流名称命名的子目录。
+ */
+final class SessionExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionExporter.class);
+
+    private final Path outputDir;
+    private final List<TranscriptionPipeline> pipelines = new ArrayList<>();
+    private final List<LiveSubtitleExporter> liveExporters = new ArrayList<>();
+
+    /**
+     * @param outputDir 输出目录。
+     */
+    SessionExporter(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * 开始实时导出一路流的原文。
+     *
+     * @param pipeline 流水线，尚未开始录音。
+     * @throws IOException 如果无法创建导出文件。
+     */
+    void attach(TranscriptionPipeline pipeline) throws IOException {
+        LiveSubtitleExporter exporter = new LiveSubtitleExporter(streamDir(pipeline), "transcript",
+                EnumSet.allOf(LiveSubtitleExporter.Format.class), LiveSubtitleExporter.DEFAULT_FSYNC_INTERVAL_MILLIS);
+        pipelines.add(pipeline);
+        liveExporters.add(exporter);
+        // 事件流在订阅者落后时会丢弃事件，关闭时也不等待交付，因此直接在转录记录的写入线程上导出
+        pipeline.getTranscriptStore().addListener(new LiveExportListener(exporter));
+    }
+
+    /**
+     * 关闭实时导出，再导出译文和归档。必须在流水线关闭之后调用，此时转录记录不再变化。
+     */
+    void finish() {
+        for (LiveSubtitleExporter liveExporter : liveExporters) {
+            try {
+                liveExporter.close();
+            } catch (IOException e) {
+                log.error("关闭实时导出失败", e);
+            }
+        }
+        for (TranscriptionPipeline pipeline : pipelines) {
+            exportTranslations(pipeline.getTranscriptStore(), pipeline.getConfig().targetLangs(), streamDir(pipeline));
+        }
+    }
+
+    /**
+     * 将各目标语言的译文和会话归档导出到输出目录（原文字幕已由实时导出写入）。
+     */
+    private static void exportTranslations(TranscriptStore store, List<String> targetLangs, Path dir) {
+        if (store.isEmpty()) {
+            log.info("会话中没有转录片段，跳过导出。");
+            return;
+        }
+        Exporter exporter = new Exporter();
+        try {
+            Files.createDirectories(dir);
+            for (String lang : targetLangs) {
+                exporter.exportAsSrt(store.translatedSegments(lang), dir.resolve("transcript." + lang + ".srt"));
+            }
+            TranscriptArchiver.write(store, dir);
+        } catch (IOException e) {
+            log.error("导出会话失败: {}", dir, e);
+        }
+    }
+
+    /**
+     * @return 一路流的导出目录：单路流时为输出目录本身，多路流时为以流名称命名的子目录。
+     */
+    private Path streamDir(TranscriptionPipeline pipeline) {
+        return pipeline.getStreamName() == null ? outputDir : outputDir.resolve(pipeline.getStreamName());
+    }
+}
@@ -0,0 +1,78 @@
+package com.polylingoflow.headless;
+
+import com.polylingoflow.export.TranscriptArchiveWriter;
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.transcript.TranscriptEntry;
+import com.polylingoflow.transcript.TranscriptStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 把一个会话的转录记录（原文和全部译文）写成二进制归档 {@code transcript.plfa}，格式见
+ * {@link com.polylingoflow.export.TranscriptArchiveFormat}。
+ *
+ * 归档先写入同一目录下的临时文件，完整写出后才移动到目标位置，因此写入失败时不会留下截断的归档，
+ * 也不会覆盖上一次成功写出的归档。归档要求片段按说话顺序排列；结束时间早于开始时间或未按顺序排列的片段被跳过并记录警告。
+ */
+final class TranscriptArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptArchiver.class);
+
+    static final String FILE_NAME = "transcript.plfa";
+
+    private TranscriptArchiver() {
+    }
+
+    /**
+     * @param store     会话的转录记录。
+     * @param outputDir 归档所在的目录，必须已存在。
+     * @return 跳过的片段数。
+     * @throws IOException 如果写入失败；此时目标位置的文件保持不变。
+     */
+    static int write(TranscriptStore store, Path outputDir) throws IOException {
+        Path target = outputDir.resolve(FILE_NAME);
+        Path temp = Files.createTempFile(outputDir, FILE_NAME, ".tmp");
+        int skipped = 0;
+        try {
+            try (TranscriptArchiveWriter archive = new TranscriptArchiveWriter(temp)) {
+                TranscriptionSegment previous = null;
+                for (int i = 0; i < store.size(); i++) {
+                    TranscriptEntry entry = store.get(i);
+                    TranscriptionSegment segment = entry.segment();
+                    if (!isArchivable(segment, previous)) {
+                        log.warn("片段 {} 的时间或顺序无效（{}-{}ms），不写入归档。", segment.sequence(),
+                                segment.startTimeMillis(), segment.endTimeMillis());
+                        skipped++;
+                        continue;
+                    }
+                    archive.append(segment, entry.translations());
+                    previous = segment;
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (skipped > 0) {
+            log.warn("归档 {} 跳过了 {} 个无效片段。", target, skipped);
+        }
+        return skipped;
+    }
+
+    /**
+     * @return 片段能否接在 {@code previous} 之后写入归档（与 {@link TranscriptArchiveWriter#append} 的校验一致）。
+     */
+    private static boolean isArchivable(TranscriptionSegment segment, TranscriptionSegment previous) {
+        if (segment.endTimeMillis() < segment.startTimeMillis()) {
+            return false;
+        }
+        return previous == null || (segment.sequence() > previous.sequence()
+                && segment.startTimeMillis() >= previous.startTimeMillis());
+    }
+}
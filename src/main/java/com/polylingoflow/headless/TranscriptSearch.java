@@ -0,0 +1,37 @@
+package com.polylingoflow.headless;
+
+import com.polylingoflow.export.TimestampFormatter;
+import com.polylingoflow.search.SearchHit;
+import com.polylingoflow.search.TranscriptIndex;
+
+import java.util.List;
+
+/**
+ * 无界面模式的 {@code --search}：在跨会话的搜索索引中执行一次查询，把命中的会话和时间戳打印到标准输出。
+ * 查询语法见 {@link TranscriptIndex#search}。
+ */
+final class TranscriptSearch {
+
+    private static final int SEARCH_LIMIT = 1000;
+
+    private TranscriptSearch() {
+    }
+
+    static void run(TranscriptIndex index, String query) {
+        List<SearchHit> hits = index.search(query, SEARCH_LIMIT);
+        StringBuilder line = new StringBuilder();
+        for (SearchHit hit : hits) {
+            line.setLength(0);
+            line.append(hit.sessionId()).append(" [");
+            TimestampFormatter.append(line, hit.startTimeMillis(), '.');
+            line.append(" - ");
+            TimestampFormatter.append(line, hit.endTimeMillis(), '.');
+            line.append("] #").append(hit.sequence());
+            if (hit.lang() != null) {
+                line.append(" (").append(hit.lang()).append(')');
+            }
+            System.out.println(line);
+        }
+        System.out.printf("共 %d 条结果%n", hits.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.polylingoflow.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图，记录纳秒级的耗时。
+ *
+ * 采用与 HdrHistogram 相同的对数-线性分桶：每个2的幂区间再均分为32个子桶，
+ * 因此任何值的相对误差不超过约3%，而整个非负 long 范围只需要固定的1888个桶（约15KB）。
+ * {@link #record} 只做一次原子自增（外加总和与最大值的更新），可以在热路径上从任意线程调用。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 直方图在某一时刻的统计摘要（单位：毫秒）。
+     *
+     * @param count      记录的样本数。
+     * @param meanMillis 平均值。
+     * @param p50Millis  中位数。
+     * @param p90Millis  90分位数。
+     * @param p99Millis  99分位数。
+     * @param maxMillis  最大值。
+     */
+    public record Snapshot(long count, double meanMillis, double p50Millis, double p90Millis, double p99Millis,
+                           double maxMillis) {}
+
+    /**
+     * 记录一个耗时。负值按0处理。
+     *
+     * @param nanos 耗时（纳秒）。
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 其他线程同时更新了最大值，重试
+        }
+    }
+
+    /**
+     * 记录从 {@code startNanos}（{@link System#nanoTime()} 的返回值）到现在的耗时。
+     *
+     * @param startNanos 开始时刻。
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 计算统计摘要。与并发的 {@link #record} 之间不加锁，因此结果是近似一致的。
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0);
+        }
+        long maxNanos = max.get();
+        return new Snapshot(total, toMillis(sum.sum() / (double) count.sum()),
+                toMillis(percentile(counts, total, 0.50, maxNanos)),
+                toMillis(percentile(counts, total, 0.90, maxNanos)),
+                toMillis(percentile(counts, total, 0.99, maxNanos)),
+                toMillis(maxNanos));
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxNanos) {
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // 取桶的上界，但不超过实际观察到的最大值
+                return Math.min(bucketUpperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.polylingoflow.metrics;
+
+/**
+ * 流水线各组件使用的指标名称。
+ *
+ * 延迟类指标是 {@link LatencyHistogram}，计数类指标是 {@link java.util.concurrent.atomic.LongAdder}，
+ * 其余为在读取时计算的仪表（gauge）。
+ */
+public final class MetricNames {
+
+    /** 捕获的音频块数（计数）。 */
+    public static final String AUDIO_CAPTURE_CHUNKS = "audio.capture.chunks";
+    /** 捕获线程把一个音频块交给下游所花的时间（直方图），应接近0。 */
+    public static final String AUDIO_CAPTURE_HANDOFF = "audio.capture.handoff";
+    /** 从恢复录音到第一个音频块交给流水线的时间（直方图）。 */
+    public static final String AUDIO_RESUME_LATENCY = "audio.resume-latency";
+
+    /** 等待转录的语音片段在内存（堆外）中的总字节数（仪表）。 */
+    public static final String SEGMENT_STORE_MEMORY = "segments.memory-bytes";
+    /** 溢出到磁盘、尚未转录的语音片段的总字节数（仪表）。 */
+    public static final String SEGMENT_STORE_SPILLED = "segments.spilled-bytes";
+    /** 超出内存预算而被溢出到磁盘的片段数（计数）。 */
+    public static final String SEGMENT_STORE_SPILLS = "segments.spills";
+
+    /** VAD 处理一个音频块的耗时（直方图）。 */
+    public static final String VAD_PROCESS = "vad.process";
+    /** 从最后一个语音块到判定语音结束的墙钟时间（直方图），包含静音等待窗口。 */
+    public static final String VAD_DECISION_DELAY = "vad.decision-delay";
+
+    /** 一次 Whisper 推理的耗时（直方图）。 */
+    public static final String WHISPER_INFERENCE = "whisper.inference";
+    /** 已转录音频的总时长（纳秒，计数）。 */
+    public static final String WHISPER_AUDIO_NANOS = "whisper.audio-nanos";
+    /** Whisper 推理的总耗时（纳秒，计数）。 */
+    public static final String WHISPER_INFERENCE_NANOS = "whisper.inference-nanos";
+    /** 实时率：推理耗时 / 音频时长（仪表），小于1才能跟上实时音频。 */
+    public static final String WHISPER_REAL_TIME_FACTOR = "whisper.real-time-factor";
+    /** 转录请求在共享引擎池中等待空闲引擎的时间（直方图）。 */
+    public static final String WHISPER_POOL_WAIT = "whisper.pool.wait";
+    /** 共享引擎池中等待空闲引擎的请求数（仪表）。 */
+    public static final String WHISPER_POOL_WAITING = "whisper.pool.waiting";
+
+    /** 一次翻译请求的往返时间（直方图）。 */
+    public static final String TRANSLATE_RTT = "translate.rtt";
+    /** 失败的翻译请求数（计数）。 */
+    public static final String TRANSLATE_FAILURES = "translate.failures";
+
+    /** 所在序列号已被跳过（超时或缓冲区已满）之后才到达、因此被丢弃的结果数（计数）。 */
+    public static final String REORDER_DROPPED_LATE = "reorder.dropped-late";
+
+    /** 实时字幕导出器追加一条记录的耗时（直方图）。 */
+    public static final String EXPORT_LIVE_APPEND = "export.live.append";
+    /** 导出一个完整文件的耗时（直方图）。 */
+    public static final String EXPORT_FILE = "export.file";
+
+    /** UI 更新从发布到在FX线程上应用的延迟（直方图）。 */
+    public static final String UI_PUBLISH_DELAY = "ui.publish-delay";
+
+    /** 流式服务中当前的会话数（仪表）。 */
+    public static final String SERVER_SESSIONS = "server.sessions";
+
+    private static final String STAGE_PREFIX = "stage.";
+
+    private MetricNames() {
+    }
+
+    /** 输入在阶段队列中等待的时间（直方图）。 */
+    public static String stageQueueWait(String stage) {
+        return STAGE_PREFIX + stage + ".queue-wait";
+    }
+
+    /** 阶段处理一个输入的耗时（直方图）。 */
+    public static String stageService(String stage) {
+        return STAGE_PREFIX + stage + ".service";
+    }
+
+    /** 阶段队列当前的长度（仪表）。 */
+    public static String stageQueueDepth(String stage) {
+        return STAGE_PREFIX + stage + ".queue-depth";
+    }
+
+    /**
+     * @return 一路流（见 {@code TranscriptionPipeline} 的流名称）所有阶段指标的名称前缀。
+     */
+    public static String streamStagePrefix(String stream) {
+        return STAGE_PREFIX + stream + ".";
+    }
+
+    /**
+     * @return 如果名称是阶段队列长度仪表，返回阶段名称；否则返回null。
+     */
+    static String queueDepthStage(String name) {
+        String suffix = ".queue-depth";
+        if (name.startsWith(STAGE_PREFIX) && name.endsWith(suffix)) {
+            return name.substring(STAGE_PREFIX.length(), name.length() - suffix.length());
+        }
+        return null;
+    }
+}
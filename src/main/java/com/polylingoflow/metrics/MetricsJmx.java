@@ -0,0 +1,101 @@
+package com.polylingoflow.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * 通过 JMX 暴露注册表中的指标（对象名 {@value #OBJECT_NAME}），可以用 JConsole / VisualVM 查看。
+ *
+ * 指标集合在运行中会增长（例如新的阶段或语言），因此实现为动态 MBean：
+ * 每次读取属性时从注册表取最新的值，属性名即 {@link MetricsSnapshot#flatten()} 中的键。所有属性只读。
+ */
+public final class MetricsJmx implements DynamicMBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsJmx.class);
+
+    public static final String OBJECT_NAME = "com.polylingoflow:type=Metrics";
+
+    private final MetricsRegistry registry;
+
+    private MetricsJmx(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 把注册表注册到平台 MBean 服务器。重复注册会被忽略。
+     *
+     * @param registry 要暴露的注册表。
+     */
+    public static void register(MetricsRegistry registry) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsJmx(registry), name);
+                log.info("指标已通过 JMX 暴露: {}", OBJECT_NAME);
+            }
+        } catch (JMException e) {
+            log.warn("无法注册指标 MBean: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = registry.snapshot().flatten().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> values = registry.snapshot().flatten();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Number value = values.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("指标属性是只读的: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Number> values = registry.snapshot().flatten();
+        MBeanAttributeInfo[] attributes = values.entrySet().stream()
+                .map(entry -> new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                        entry.getKey(), true, false, false))
+                .toArray(MBeanAttributeInfo[]::new);
+        return new MBeanInfo(MetricsJmx.class.getName(), "PolylingoFlow 流水线指标", attributes, null, null, null);
+    }
+}
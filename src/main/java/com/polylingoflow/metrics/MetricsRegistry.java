@@ -0,0 +1,89 @@
+package com.polylingoflow.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 按名称保存直方图、计数器和仪表的注册表。
+ *
+ * 各组件在类或对象初始化时取得自己的指标对象并保存在字段中，热路径上只做无锁的记录，不查找名称。
+ * 同名指标在所有调用方之间共享（例如多个流水线实例的同名阶段会合并统计）。
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * @return 进程范围的注册表，流水线各组件的指标都注册在这里。
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @return 指定名称的直方图，不存在时创建。
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * @return 指定名称的计数器，不存在时创建。
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * 注册一个仪表。同名的仪表会被替换。
+     *
+     * @param name  名称。
+     * @param gauge 在读取指标时调用，必须是线程安全且廉价的。
+     */
+    public void gauge(String name, DoubleSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * 移除一个仪表，前提是注册的仍是这个实例（同名的仪表可能已被新的组件替换）。
+     * 仪表持有被测对象的引用，组件关闭时应移除它，以免注册表使已关闭的组件无法被回收。
+     *
+     * @param name  名称。
+     * @param gauge 注册时传入的实例。
+     */
+    public void removeGauge(String name, DoubleSupplier gauge) {
+        gauges.remove(name, gauge);
+    }
+
+    /**
+     * 移除名称以指定前缀开头的所有指标，例如已关闭的流的阶段指标，使注册表不随流的数量无限增长。
+     * 仍持有这些指标对象的组件可以继续记录，但它们不再被报告。
+     *
+     * @param prefix 名称前缀。
+     */
+    public void removeByPrefix(String prefix) {
+        histograms.keySet().removeIf(name -> name.startsWith(prefix));
+        counters.keySet().removeIf(name -> name.startsWith(prefix));
+        gauges.keySet().removeIf(name -> name.startsWith(prefix));
+    }
+
+    /**
+     * @return 所有指标的当前值，按名称排序。
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, LatencyHistogram.Snapshot> histogramValues = new TreeMap<>();
+        histograms.forEach((name, histogram) -> histogramValues.put(name, histogram.snapshot()));
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+        Map<String, Double> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.getAsDouble()));
+        return new MetricsSnapshot(System.currentTimeMillis(), histogramValues, counterValues, gaugeValues);
+    }
+}
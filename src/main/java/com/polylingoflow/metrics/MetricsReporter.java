@@ -0,0 +1,84 @@
+package com.polylingoflow.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 周期性地对注册表取样：把一行摘要交给回调（日志或状态栏），并可选地把完整的 JSON 写入文件。
+ *
+ * JSON 文件通过先写临时文件再原子替换的方式更新，外部工具随时读取都能得到完整的内容。
+ */
+public class MetricsReporter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsReporter.class);
+
+    private final MetricsRegistry registry;
+    private final Path jsonFile;
+    private final Consumer<String> summaryListener;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "metrics-reporter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 创建并启动报告器。
+     *
+     * @param registry        要报告的注册表。
+     * @param intervalMillis  取样间隔（毫秒）。
+     * @param jsonFile        每次取样后写入的 JSON 文件；为null时不写文件。
+     * @param summaryListener 接收每次取样的一行摘要（在报告线程上调用）；摘要为空（还没有数据）时不调用。
+     */
+    public MetricsReporter(MetricsRegistry registry, long intervalMillis, Path jsonFile,
+                           Consumer<String> summaryListener) {
+        this.registry = Objects.requireNonNull(registry);
+        this.jsonFile = jsonFile;
+        this.summaryListener = Objects.requireNonNull(summaryListener);
+        timer.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止周期报告，并做最后一次报告，使文件中包含会话结束时的最终值。
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        report();
+    }
+
+    private void report() {
+        try {
+            MetricsSnapshot snapshot = registry.snapshot();
+            String summary = snapshot.summary();
+            if (!summary.isEmpty()) {
+                summaryListener.accept(summary);
+            }
+            if (jsonFile != null) {
+                writeJson(snapshot);
+            }
+        } catch (RuntimeException e) {
+            // 不能让异常终止周期任务
+            log.warn("报告指标失败", e);
+        }
+    }
+
+    private synchronized void writeJson(MetricsSnapshot snapshot) {
+        Path temp = jsonFile.resolveSibling(jsonFile.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, snapshot.toJson());
+            Files.move(temp, jsonFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入指标文件 {} 失败: {}", jsonFile, e.getMessage());
+        }
+    }
+}
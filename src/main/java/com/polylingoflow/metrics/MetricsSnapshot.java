@@ -0,0 +1,86 @@
+package com.polylingoflow.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 注册表中所有指标在某一时刻的值。
+ *
+ * @param timestampMillis 采样时间（纪元毫秒）。
+ * @param histograms      直方图摘要（单位：毫秒）。
+ * @param counters        计数器的值。
+ * @param gauges          仪表的值。
+ */
+public record MetricsSnapshot(long timestampMillis, Map<String, LatencyHistogram.Snapshot> histograms,
+                              Map<String, Long> counters, Map<String, Double> gauges) {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+
+    /**
+     * @return JSON 表示。
+     */
+    public String toJson() {
+        return GSON.toJson(this);
+    }
+
+    /**
+     * 把所有指标展开为扁平的 "名称.字段" → 数值 映射（直方图展开为多个字段），供 JMX 等只支持简单类型的接口使用。
+     */
+    public Map<String, Number> flatten() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        histograms.forEach((name, h) -> {
+            values.put(name + ".count", h.count());
+            values.put(name + ".meanMillis", h.meanMillis());
+            values.put(name + ".p50Millis", h.p50Millis());
+            values.put(name + ".p90Millis", h.p90Millis());
+            values.put(name + ".p99Millis", h.p99Millis());
+            values.put(name + ".maxMillis", h.maxMillis());
+        });
+        values.putAll(counters);
+        values.putAll(gauges);
+        return values;
+    }
+
+    /**
+     * 适合状态栏或日志的一行摘要，只包含已经有数据的部分，例如
+     * {@code RTF 0.42 · 识别 p50 380ms p99 1.2s · 翻译 p50 140ms · UI p99 17ms · 队列 vad 0 asr 1 translate 0}。
+     */
+    public String summary() {
+        StringJoiner parts = new StringJoiner(" · ");
+        Double realTimeFactor = gauges.get(MetricNames.WHISPER_REAL_TIME_FACTOR);
+        if (realTimeFactor != null && realTimeFactor > 0) {
+            parts.add(String.format("RTF %.2f", realTimeFactor));
+        }
+        LatencyHistogram.Snapshot inference = histograms.get(MetricNames.WHISPER_INFERENCE);
+        if (inference != null && inference.count() > 0) {
+            parts.add("识别 p50 " + formatMillis(inference.p50Millis()) + " p99 " + formatMillis(inference.p99Millis()));
+        }
+        LatencyHistogram.Snapshot translation = histograms.get(MetricNames.TRANSLATE_RTT);
+        if (translation != null && translation.count() > 0) {
+            parts.add("翻译 p50 " + formatMillis(translation.p50Millis()));
+        }
+        LatencyHistogram.Snapshot publish = histograms.get(MetricNames.UI_PUBLISH_DELAY);
+        if (publish != null && publish.count() > 0) {
+            parts.add("UI p99 " + formatMillis(publish.p99Millis()));
+        }
+        StringJoiner queues = new StringJoiner(" ", "队列 ", "").setEmptyValue("");
+        gauges.forEach((name, depth) -> {
+            String stage = MetricNames.queueDepthStage(name);
+            if (stage != null) {
+                queues.add(stage + " " + depth.longValue());
+            }
+        });
+        if (queues.length() > 0) {
+            parts.add(queues.toString());
+        }
+        return parts.toString();
+    }
+
+    private static String formatMillis(double millis) {
+        return millis < 1000 ? String.format("%.0fms", millis) : String.format("%.1fs", millis / 1000);
+    }
+}
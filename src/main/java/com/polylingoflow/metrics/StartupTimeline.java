@@ -0,0 +1,91 @@
+package com.polylingoflow.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录启动过程中各个里程碑第一次发生的时刻：进程启动 → {@link #MAIN} → {@link #FIRST_FRAME} →
+ * {@link #FIRST_CHUNK} → {@link #FIRST_TRANSCRIPT}。
+ *
+ * 每个里程碑只记录第一次，之后的调用只是一次查表，可以放在热路径上。记录时写一条日志，
+ * 并注册仪表 {@code startup.<里程碑>}（距进程启动的毫秒数）。启动基准测试用墙钟时刻（{@link #epochMillis}）
+ * 在进程之外计算各段耗时。
+ */
+public final class StartupTimeline {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeline.class);
+
+    /** 进入 main 方法（此前是 JVM 启动和类加载）。 */
+    public static final String MAIN = "main";
+    /** 界面的第一帧已经显示。 */
+    public static final String FIRST_FRAME = "first-frame";
+    /** 第一个音频块进入流水线。 */
+    public static final String FIRST_CHUNK = "first-chunk";
+    /** 第一个最终转录被发布。 */
+    public static final String FIRST_TRANSCRIPT = "first-transcript";
+
+    private static final String METRIC_PREFIX = "startup.";
+
+    private static final Map<String, Long> marks = new ConcurrentHashMap<>();
+    private static final Map<String, CountDownLatch> waiters = new ConcurrentHashMap<>();
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * 记录一个里程碑。只有第一次调用生效。
+     *
+     * @param milestone 里程碑名称。
+     */
+    public static void mark(String milestone) {
+        if (marks.containsKey(milestone)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (marks.putIfAbsent(milestone, now) != null) {
+            return;
+        }
+        long sinceStart = now - processStartMillis();
+        MetricsRegistry.global().gauge(METRIC_PREFIX + milestone, () -> sinceStart);
+        log.info("启动里程碑 {}: 进程启动后 {} 毫秒", milestone, sinceStart);
+        latch(milestone).countDown();
+    }
+
+    /**
+     * @return 里程碑发生时的墙钟时刻（{@link System#currentTimeMillis()}）；尚未发生时为-1。
+     */
+    public static long epochMillis(String milestone) {
+        return marks.getOrDefault(milestone, -1L);
+    }
+
+    /**
+     * 等待一个里程碑发生。
+     *
+     * @param milestone 里程碑名称。
+     * @param timeout   最长等待时间。
+     * @param unit      时间单位。
+     * @return 如果里程碑已发生则返回true；超时则返回false。
+     * @throws InterruptedException 如果等待被中断。
+     */
+    public static boolean await(String milestone, long timeout, TimeUnit unit) throws InterruptedException {
+        return latch(milestone).await(timeout, unit);
+    }
+
+    private static CountDownLatch latch(String milestone) {
+        return waiters.computeIfAbsent(milestone, m -> new CountDownLatch(1));
+    }
+
+    /**
+     * 进程的启动时刻。只在记录里程碑时读取一次，不为此加载 JMX 的 RuntimeMXBean。
+     */
+    private static long processStartMillis() {
+        return ProcessHandle.current().info().startInstant().map(Instant::toEpochMilli)
+                .orElse(System.currentTimeMillis());
+    }
+}
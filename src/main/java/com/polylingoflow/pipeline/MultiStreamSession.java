@@ -0,0 +1,79 @@
+package com.polylingoflow.pipeline;
+
+import com.polylingoflow.audio.AudioSource;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.translate.TranslatorService;
+import com.polylingoflow.whisper.RecognizerPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 在一个进程中同时转录多路音频：多个录音设备、会议立体声馈送按声道拆分出的各个发言人，或多个文件/网络来源。
+ *
+ * 每路流是一条独立的 {@link TranscriptionPipeline}，有自己的 VAD 状态、转录记录和事件流；
+ * 所有流共享一个 {@link RecognizerPool}（模型只按引擎数加载，而不是按流数）和一个 {@link TranslatorService}（共享连接池）。
+ * 引擎池在各路流之间轮转调度，一路流的积压不会让其他流饿死。
+ * 语音片段日志（{@link PipelineConfig#audioLogDir()}）按会话标识分目录，会话标识包含流名称，因此各路流写入各自的目录。
+ */
+public class MultiStreamSession {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiStreamSession.class);
+
+    private final RecognizerPool recognizerPool;
+    private final Map<String, TranscriptionPipeline> pipelines = new LinkedHashMap<>();
+
+    /**
+     * @param config            所有流共用的流水线配置。
+     * @param searchIndex       搜索索引，各路流以各自的会话标识加入其中。
+     * @param sources           按流名称排列的音频来源。
+     * @param recognizerPool    共享的语音识别引擎池，由本会话在 {@link #shutdown()} 中关闭。
+     * @param translatorService 共享的翻译服务。
+     */
+    public MultiStreamSession(PipelineConfig config, TranscriptIndex searchIndex, Map<String, AudioSource> sources,
+                              RecognizerPool recognizerPool, TranslatorService translatorService) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一路音频来源");
+        }
+        this.recognizerPool = Objects.requireNonNull(recognizerPool);
+        sources.forEach((name, source) -> pipelines.put(name, new TranscriptionPipeline(config, searchIndex, name,
+                source, recognizerPool.forStream(name), translatorService)));
+    }
+
+    /**
+     * @return 按流名称排列的各路流水线，供订阅事件和导出使用。
+     */
+    public Map<String, TranscriptionPipeline> getPipelines() {
+        return Collections.unmodifiableMap(pipelines);
+    }
+
+    public RecognizerPool getRecognizerPool() {
+        return recognizerPool;
+    }
+
+    /**
+     * 加载模型（每个引擎一次）并启动所有流。
+     */
+    public void start() {
+        log.info("正在启动 {} 路流，共享 {} 个语音识别引擎: {}", pipelines.size(), recognizerPool.getSize(),
+                pipelines.keySet());
+        pipelines.values().forEach(TranscriptionPipeline::start);
+    }
+
+    public void setRecording(boolean recording) {
+        pipelines.values().forEach(pipeline -> pipeline.setRecording(recording));
+    }
+
+    /**
+     * 关闭所有流，然后关闭共享的引擎池。
+     */
+    public void shutdown() {
+        pipelines.values().forEach(TranscriptionPipeline::shutdown);
+        recognizerPool.close();
+        log.info("多路转录会话已关闭。");
+    }
+}
@@ -0,0 +1,63 @@
+package com.polylingoflow.pipeline;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 转录流水线的配置。这是一个不可变的数据类。
+ *
+ * @param modelPath              Whisper 模型文件的路径。
+ * @param sourceLang             源语言代码（例如, "en"）。
+ * @param targetLangs            目标语言代码列表，第一个为主目标语言。
+ * @param vadFrameMillis         VAD 处理的音频块时长（毫秒）。
+ * @param vadEnergyThreshold     VAD 的 RMS 能量阈值。
+ * @param vadSilenceMillis       标记语音片段结束所需的静音时长（毫秒）。
+ * @param audioLogDir            语音片段日志的根目录，用于日后回放和重新转录，每个会话写入以会话标识命名的子目录；
+ *                               为null时不记录音频。
+ * @param vadStage               VAD 阶段的输入队列（音频块）和线程数。
+ * @param asrStage               语音识别阶段的输入队列（语音片段）和线程数。
+ * @param translateStage         翻译阶段的输入队列（转录文本）和并发请求数。
+ */
+public record PipelineConfig(Path modelPath,
+                             String sourceLang,
+                             List<String> targetLangs,
+                             int vadFrameMillis,
+                             double vadEnergyThreshold,
+                             int vadSilenceMillis,
+                             Path audioLogDir,
+                             StageSettings vadStage,
+                             StageSettings asrStage,
+                             StageSettings translateStage) {
+
+    public PipelineConfig {
+        if (targetLangs == null || targetLangs.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个目标语言");
+        }
+        targetLangs = List.copyOf(targetLangs);
+        Objects.requireNonNull(vadStage, "vadStage");
+        Objects.requireNonNull(asrStage, "asrStage");
+        Objects.requireNonNull(translateStage, "translateStage");
+    }
+
+    /**
+     * @return 默认配置。
+     */
+    public static PipelineConfig defaults() {
+        // 模型路径相对于工作目录，无界面模式可用 --model 覆盖；VAD 静音窗口运行时由 AutoTuner 调整
+        return new PipelineConfig(Paths.get("models/ggml-base.en.bin"), "en", List.of("zh", "ja", "ko"),
+                100, 75.0, 700, null,
+                // 约25秒的100毫秒音频块；同一个Whisper上下文是串行的，多个ASR线程只会互相等待
+                new StageSettings(256, 1),
+                new StageSettings(16, 1),
+                new StageSettings(64, 8));
+    }
+
+    /**
+     * @return 主目标语言。
+     */
+    public String primaryTargetLang() {
+        return targetLangs.get(0);
+    }
+}
@@ -0,0 +1,58 @@
+package com.polylingoflow.pipeline;
+
+import com.polylingoflow.export.TranscriptionSegment;
+
+/**
+ * 转录流水线发布的类型化事件。
+ * 所有事件都是不可变的，可以安全地在多个订阅者之间共享。
+ */
+public sealed interface PipelineEvent {
+
+    /**
+     * VAD 检测到一个新的语音片段开始。
+     *
+     * @param sequence        片段序列号。
+     * @param startTimeMillis 片段的开始时间（毫秒）。
+     */
+    record SegmentStarted(long sequence, long startTimeMillis) implements PipelineEvent {}
+
+    /**
+     * 一个尚未结束的语音片段的部分转录。部分转录不保证顺序，也可能被后续结果取代。
+     *
+     * @param sequence 片段序列号。
+     * @param text     部分转录文本。
+     */
+    record PartialTranscript(long sequence, String text) implements PipelineEvent {}
+
+    /**
+     * 一个语音片段的最终转录，按说话顺序发布。
+     *
+     * @param segment 转录片段。
+     */
+    record FinalTranscript(TranscriptionSegment segment) implements PipelineEvent {}
+
+    /**
+     * 一个片段在某个目标语言上的翻译，在每个语言内按说话顺序发布。
+     *
+     * @param sequence   片段序列号。
+     * @param targetLang 目标语言代码。
+     * @param text       翻译文本。
+     */
+    record Translated(long sequence, String targetLang, String text) implements PipelineEvent {}
+
+    /**
+     * 流水线状态变化（例如, "正在聆听...", "正在转录..."）。
+     *
+     * @param status 状态消息。
+     */
+    record StatusChanged(String status) implements PipelineEvent {}
+
+    /**
+     * 流水线某个阶段处理片段时出错。
+     *
+     * @param sequence 片段序列号，与具体片段无关时为-1。
+     * @param stage    出错的阶段（例如, "transcribe", "translate"）。
+     * @param message  错误描述。
+     */
+    record PipelineError(long sequence, String stage, String message) implements PipelineEvent {}
+}
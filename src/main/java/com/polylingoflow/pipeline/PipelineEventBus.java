@@ -0,0 +1,308 @@
+package com.polylingoflow.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 基于 {@link java.util.concurrent.Flow} 的多订阅者流水线事件流。
+ *
+ * 每个订阅者拥有自己的有界缓冲区，并通过 {@code request(n)} 实现背压。
+ * 发布永远不会阻塞：当某个订阅者的缓冲区已满时，该事件只对这个订阅者丢弃并计数，
+ * 因此缓慢的下游（UI、文件导出、网络客户端）不会拖慢音频捕获和推理路径。
+ * 每个订阅者的接收数、丢弃数和滞后量（已发布但尚未处理的事件数）都可以通过 {@link SubscriberStats} 查询。
+ */
+public class PipelineEventBus implements Flow.Publisher<PipelineEvent>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineEventBus.class);
+
+    // 每个订阅者的默认缓冲区容量
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+    // 关闭时等待订阅者处理完已缓冲事件的默认时长
+    public static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 5000;
+
+    // 当前线程正在向哪个事件流的订阅者交付事件；在订阅者回调中关闭事件流时不能等待自己
+    private static final ThreadLocal<PipelineEventBus> DELIVERING = new ThreadLocal<>();
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "pipeline-event-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private final SubmissionPublisher<PipelineEvent> publisher;
+    private final AtomicLong published = new AtomicLong();
+    private final List<MeteredSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public PipelineEventBus() {
+        this(DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * @param bufferCapacity 每个订阅者的缓冲区容量（SubmissionPublisher 会向上取整为2的幂）。
+     */
+    public PipelineEventBus(int bufferCapacity) {
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+    }
+
+    /**
+     * 非阻塞地向所有订阅者发布一个事件。
+     *
+     * @param event 事件。
+     */
+    public void publish(PipelineEvent event) {
+        Objects.requireNonNull(event, "Event cannot be null");
+        if (publisher.isClosed()) {
+            return;
+        }
+        published.incrementAndGet();
+        try {
+            publisher.offer(event, (subscriber, dropped) -> {
+                if (subscriber instanceof MeteredSubscriber metered) {
+                    metered.dropped.incrementAndGet();
+                }
+                return false; // 不重试
+            });
+        } catch (IllegalStateException e) {
+            log.debug("事件流已关闭，丢弃事件: {}", event);
+        }
+    }
+
+    /**
+     * 订阅事件流。订阅者自行通过 {@code request(n)} 控制背压。
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super PipelineEvent> subscriber) {
+        subscribe(subscriber.getClass().getSimpleName(), subscriber);
+    }
+
+    /**
+     * 以指定名称订阅事件流。
+     *
+     * @param name       订阅者名称，用于统计和日志。
+     * @param subscriber Flow 订阅者。
+     * @return 该订阅者的统计信息。
+     */
+    public SubscriberStats subscribe(String name, Flow.Subscriber<? super PipelineEvent> subscriber) {
+        MeteredSubscriber metered = new MeteredSubscriber(name, subscriber, published.get());
+        subscribers.add(metered);
+        publisher.subscribe(metered);
+        return metered;
+    }
+
+    /**
+     * 以一个简单的回调订阅事件流。回调一次处理一个事件，处理完成后才请求下一个。
+     *
+     * @param name     订阅者名称。
+     * @param consumer 事件回调。
+     * @return 该订阅者的统计信息。
+     */
+    public SubscriberStats subscribe(String name, Consumer<? super PipelineEvent> consumer) {
+        return subscribe(name, new Flow.Subscriber<PipelineEvent>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(PipelineEvent event) {
+                try {
+                    consumer.accept(event);
+                } catch (RuntimeException e) {
+                    log.error("订阅者 {} 处理事件 {} 时出错", name, event, e);
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                log.error("订阅者 {} 的事件流异常终止", name, throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                log.debug("订阅者 {} 的事件流已结束。", name);
+            }
+        });
+    }
+
+    /**
+     * @return 所有订阅者（包括已取消的）的统计信息。
+     */
+    public List<SubscriberStats> getSubscriberStats() {
+        return List.copyOf(subscribers);
+    }
+
+    /**
+     * @return 已发布的事件总数。
+     */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * 结束事件流：已缓冲的事件仍会被交付，随后每个订阅者收到 {@code onComplete}。
+     * 最多等待 {@link #DEFAULT_CLOSE_TIMEOUT_MILLIS}，直到所有订阅者处理完已缓冲的事件。
+     */
+    @Override
+    public void close() {
+        close(DEFAULT_CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 结束事件流，并等待所有订阅者处理完已缓冲的事件（收到 {@code onComplete}、出错或已取消订阅）。
+     * 在订阅者的回调中调用时不等待。
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）。
+     * @return 如果所有订阅者都在超时前结束则返回true。
+     */
+    public boolean close(long timeoutMillis) {
+        publisher.close();
+        try {
+            // 交付剩余事件和 onComplete 可能还要在执行器上调度任务，等待结束后再关闭执行器
+            return DELIVERING.get() != this && awaitSubscribers(timeoutMillis);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private boolean awaitSubscribers(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            for (MeteredSubscriber subscriber : subscribers) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (!subscriber.finished.await(Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+                    log.warn("订阅者 {} 在 {} 毫秒内未处理完事件（滞后 {}）", subscriber.name, timeoutMillis,
+                            subscriber.lag());
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 单个订阅者的统计信息。
+     */
+    public interface SubscriberStats {
+        String name();
+
+        /**
+         * @return 已交付给该订阅者的事件数。
+         */
+        long received();
+
+        /**
+         * @return 因该订阅者缓冲区已满而丢弃的事件数。
+         */
+        long dropped();
+
+        /**
+         * @return 订阅之后发布、但尚未交付也未丢弃的事件数。
+         */
+        long lag();
+    }
+
+    /**
+     * 包装订阅者以统计接收、丢弃和滞后量。
+     */
+    private final class MeteredSubscriber implements Flow.Subscriber<PipelineEvent>, SubscriberStats {
+        private final String name;
+        private final Flow.Subscriber<? super PipelineEvent> delegate;
+        private final long publishedAtSubscribe;
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        MeteredSubscriber(String name, Flow.Subscriber<? super PipelineEvent> delegate, long publishedAtSubscribe) {
+            this.name = name;
+            this.delegate = delegate;
+            this.publishedAtSubscribe = publishedAtSubscribe;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            // 取消订阅后不会再收到 onComplete，关闭时也不必等待它
+            delegate.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    finished.countDown();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(PipelineEvent item) {
+            received.incrementAndGet();
+            DELIVERING.set(PipelineEventBus.this);
+            try {
+                delegate.onNext(item);
+            } finally {
+                DELIVERING.remove();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            try {
+                delegate.onError(throwable);
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                delegate.onComplete();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public long received() {
+            return received.get();
+        }
+
+        @Override
+        public long dropped() {
+            return dropped.get();
+        }
+
+        @Override
+        public long lag() {
+            return Math.max(0, published.get() - publishedAtSubscribe - received.get() - dropped.get());
+        }
+    }
+}
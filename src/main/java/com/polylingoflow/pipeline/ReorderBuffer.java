@@ -0,0 +1,208 @@
+package com.polylingoflow.pipeline;
+
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 一个有界的重排序缓冲区，按序列号顺序将并发处理完成的结果交付给下游。
+ *
+ * 每个结果都带有一个在VAD阶段分配的单调递增序列号。乱序到达的结果会暂存，
+ * 直到它之前的所有序列号都已交付或被跳过。为了防止某个缓慢的片段无限期阻塞输出流：
+ * <ul>
+ *     <li>队首缺失的序列号等待超过 {@code timeoutMillis} 后会被跳过；</li>
+ *     <li>暂存的结果超过 {@code capacity} 个时，会立即跳过缺失的序列号。</li>
+ * </ul>
+ * 被跳过的序列号之后若再到达，结果会被丢弃并计数（{@link #getDroppedLate()}），下游收到的序列号因此总是递增的：
+ * 转录记录、实时字幕和归档都依赖这一点。
+ *
+ * 下游消费者在内部锁内被调用以保证顺序，因此它必须快速返回（例如，只是调度UI更新）。
+ *
+ * @param <T> 结果类型。
+ */
+public class ReorderBuffer<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReorderBuffer.class);
+    private static final LongAdder droppedLateTotal = MetricsRegistry.global().counter(MetricNames.REORDER_DROPPED_LATE);
+
+    private final String name;
+    private final int capacity;
+    private final long timeoutMillis;
+    private final Consumer<T> downstream;
+
+    // --- 内部状态（由this保护） ---
+    // 值为null表示该序列号被显式跳过（没有输出）
+    private final TreeMap<Long, T> pending = new TreeMap<>();
+    private long nextSequence = 0;
+    private long headWaitingSinceMillis = -1;
+    private long headWaitingFor = -1;
+
+    private final ScheduledExecutorService timer;
+
+    // --- 统计 ---
+    private final AtomicLong deliveredInOrder = new AtomicLong();
+    private final AtomicLong droppedLate = new AtomicLong();
+    private final AtomicLong skippedSequences = new AtomicLong();
+
+    /**
+     * @param name          缓冲区名称，用于日志和线程命名。
+     * @param capacity      最多暂存的乱序结果数量。
+     * @param timeoutMillis 队首缺失的序列号最多等待多长时间（毫秒）。
+     * @param downstream    按顺序接收结果的消费者。
+     */
+    public ReorderBuffer(String name, int capacity, long timeoutMillis, Consumer<T> downstream) {
+        if (capacity <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("capacity 和 timeoutMillis 必须为正数");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.timeoutMillis = timeoutMillis;
+        this.downstream = Objects.requireNonNull(downstream, "Downstream cannot be null");
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reorder-" + name + "-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        long tick = Math.max(10, timeoutMillis / 4);
+        timer.scheduleAtFixedRate(this::checkTimeout, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一个已完成的结果。
+     *
+     * @param sequence 该结果在VAD阶段分配的序列号。
+     * @param item     结果。
+     */
+    public synchronized void submit(long sequence, T item) {
+        Objects.requireNonNull(item, "Item cannot be null");
+        accept(sequence, item);
+    }
+
+    /**
+     * 声明某个序列号不会产生任何输出（例如，转录失败或文本为空），
+     * 使后续结果不必等待它。
+     *
+     * @param sequence 要跳过的序列号。
+     */
+    public synchronized void skip(long sequence) {
+        accept(sequence, null);
+    }
+
+    private void accept(long sequence, T item) {
+        if (sequence < nextSequence) {
+            // 该序列号已因超时或容量限制被跳过，迟到的结果丢弃，不乱序交付
+            if (item != null) {
+                log.warn("[{}] 序列号 {} 迟到（当前期望 {}），已丢弃。", name, sequence, nextSequence);
+                droppedLate.incrementAndGet();
+                droppedLateTotal.increment();
+            }
+            return;
+        }
+
+        pending.put(sequence, item);
+        drain();
+
+        // 超出容量时，跳过缺失的序列号直到最早的暂存结果
+        while (pending.size() > capacity) {
+            skipTo(pending.firstKey(), "缓冲区已满");
+            drain();
+        }
+        updateHeadWaiting();
+    }
+
+    private void drain() {
+        Map.Entry<Long, T> head;
+        while ((head = pending.firstEntry()) != null && head.getKey() == nextSequence) {
+            pending.pollFirstEntry();
+            nextSequence++;
+            if (head.getValue() != null) {
+                deliveredInOrder.incrementAndGet();
+                downstream.accept(head.getValue());
+            }
+        }
+    }
+
+    private void skipTo(long sequence, String reason) {
+        long skipped = sequence - nextSequence;
+        log.warn("[{}] {}，跳过序列号 {} - {}。", name, reason, nextSequence, sequence - 1);
+        skippedSequences.addAndGet(skipped);
+        nextSequence = sequence;
+    }
+
+    private void updateHeadWaiting() {
+        if (pending.isEmpty()) {
+            headWaitingSinceMillis = -1;
+            headWaitingFor = -1;
+        } else if (headWaitingFor != nextSequence) {
+            // 开始等待一个新的队首序列号
+            headWaitingFor = nextSequence;
+            headWaitingSinceMillis = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized void checkTimeout() {
+        if (headWaitingSinceMillis < 0 || pending.isEmpty()) {
+            return;
+        }
+        if (System.currentTimeMillis() - headWaitingSinceMillis >= timeoutMillis) {
+            skipTo(pending.firstKey(), "等待超时");
+            drain();
+            updateHeadWaiting();
+        }
+    }
+
+    /**
+     * @return 下一个期望交付的序列号。
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * @return 当前暂存的乱序结果数量。
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getDeliveredInOrder() {
+        return deliveredInOrder.get();
+    }
+
+    /**
+     * @return 因所在序列号已被跳过而丢弃的迟到结果数量。
+     */
+    public long getDroppedLate() {
+        return droppedLate.get();
+    }
+
+    public long getSkippedSequences() {
+        return skippedSequences.get();
+    }
+
+    /**
+     * 停止超时计时器。暂存的结果按序列号顺序全部交付。
+     */
+    @Override
+    public synchronized void close() {
+        timer.shutdownNow();
+        for (T item : pending.values()) {
+            if (item != null) {
+                downstream.accept(item);
+            }
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,348 @@
+package com.polylingoflow.pipeline;
+
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 流水线中的一个阶段：一个有界输入队列加上固定数量的工作线程。
+ *
+ * 阶段之间只通过有界队列传递数据，因此过载时的行为由每个阶段的 {@link OverflowPolicy} 决定
+ * （阻塞上游、丢弃最新或丢弃最旧的输入），而不是无限制地创建线程或堆积内存。
+ * 被丢弃的输入会交给 {@code onDrop} 回调，以便下游（例如重排序缓冲区）跳过它们。
+ *
+ * CPU/JNI 密集的阶段使用平台线程；I/O 阶段在运行时支持时使用虚拟线程（JDK 21+），否则退回到平台线程。
+ *
+ * 每个阶段在全局 {@link MetricsRegistry} 中记录排队时间、处理时间和队列长度（见 {@link MetricNames#stageQueueWait}），
+ * 队列长度的仪表在 {@link #drain} 之后移除。
+ *
+ * @param <T> 输入类型。
+ */
+public final class Stage<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Stage.class);
+
+    /**
+     * 工作线程的类型。
+     */
+    public enum ExecutorKind {
+        /** 平台线程，用于CPU或JNI密集的阶段。 */
+        PLATFORM,
+        /** 虚拟线程（不可用时退回到平台线程），用于大部分时间在等待I/O的阶段。 */
+        VIRTUAL
+    }
+
+    /**
+     * 输入队列已满时的处理方式。
+     */
+    public enum OverflowPolicy {
+        /** 阻塞提交方，直到队列有空位（把背压传递给上游）。 */
+        BLOCK,
+        /** 丢弃新提交的输入。 */
+        DROP_NEWEST,
+        /** 丢弃队列中最旧的输入，为新输入腾出空间。 */
+        DROP_OLDEST
+    }
+
+    private final String name;
+    private final OverflowPolicy overflowPolicy;
+    private final Consumer<T> handler;
+    private final Consumer<T> onDrop;
+    private final BlockingQueue<Pending<T>> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean accepting = true;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    // 已提交但尚未处理完也未丢弃的输入数（包括工作线程已取出、正在处理的），降为0时通知 idle
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object idle = new Object();
+    private final LatencyHistogram queueWait;
+    private final LatencyHistogram serviceTime;
+    private final DoubleSupplier queueDepthGauge;
+
+    /**
+     * 队列中的一个输入及其入队时刻，用于统计排队时间。
+     */
+    private record Pending<T>(T item, long enqueuedNanos) {}
+
+    /**
+     * 创建阶段并立即启动其工作线程。
+     *
+     * @param name           阶段名称，用于线程名和日志。
+     * @param settings       队列容量和并发数。
+     * @param executorKind   工作线程类型。
+     * @param overflowPolicy 队列已满时的处理方式。
+     * @param handler        处理一个输入；抛出的异常会被记录并计数，不会终止工作线程。
+     * @param onDrop         输入被丢弃（溢出或关闭时未处理）时的回调。
+     */
+    public Stage(String name, StageSettings settings, ExecutorKind executorKind, OverflowPolicy overflowPolicy,
+                 Consumer<T> handler, Consumer<T> onDrop) {
+        this.name = Objects.requireNonNull(name);
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+        this.handler = Objects.requireNonNull(handler);
+        this.onDrop = Objects.requireNonNull(onDrop);
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+
+        MetricsRegistry metrics = MetricsRegistry.global();
+        this.queueWait = metrics.histogram(MetricNames.stageQueueWait(name));
+        this.serviceTime = metrics.histogram(MetricNames.stageService(name));
+        this.queueDepthGauge = queue::size;
+        metrics.gauge(MetricNames.stageQueueDepth(name), queueDepthGauge);
+
+        ThreadFactory factory = threadFactory(executorKind, "stage-" + name);
+        for (int i = 0; i < settings.concurrency(); i++) {
+            Thread worker = factory.newThread(this::workLoop);
+            workers.add(worker);
+            worker.start();
+        }
+        log.info("阶段 [{}] 已启动：{} 个{}工作线程，队列容量 {}，溢出策略 {}", name, settings.concurrency(),
+                executorKind == ExecutorKind.VIRTUAL && VIRTUAL_THREADS != null ? "虚拟" : "平台",
+                settings.queueCapacity(), overflowPolicy);
+    }
+
+    /**
+     * 提交一个输入。根据溢出策略，队列已满时可能阻塞或丢弃输入。
+     *
+     * @param item 输入。
+     * @return 如果输入已入队则返回true；被丢弃时返回false。
+     */
+    public boolean submit(T item) {
+        return submit(item, overflowPolicy);
+    }
+
+    /**
+     * 以指定的溢出策略提交一个输入，例如不能被丢弃的控制消息使用 {@link OverflowPolicy#BLOCK}。
+     *
+     * @param item           输入。
+     * @param overflowPolicy 队列已满时的处理方式，只对这一个输入生效。
+     * @return 如果输入已入队则返回true；被丢弃时返回false。
+     */
+    public boolean submit(T item, OverflowPolicy overflowPolicy) {
+        // 先计入再检查 accepting：drain 要么看到这个输入并等待它，要么这里看到已停止接收而丢弃它
+        inFlight.incrementAndGet();
+        if (!accepting) {
+            drop(item);
+            return false;
+        }
+        submitted.incrementAndGet();
+        Pending<T> pending = new Pending<>(item, System.nanoTime());
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(pending);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(item);
+                    return false;
+                }
+            }
+            case DROP_NEWEST -> {
+                if (!queue.offer(pending)) {
+                    drop(item);
+                    return false;
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(pending)) {
+                    Pending<T> oldest = queue.poll();
+                    if (oldest != null) {
+                        drop(oldest.item());
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public int getConcurrency() {
+        return workers.size();
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * 停止接收新输入，等待已提交的输入全部处理完（包括正在入队和正在处理的）。
+     * 超时后中断工作线程，并把仍未处理的输入交给 {@code onDrop}。
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）。
+     * @return 如果所有输入在超时前被处理完则返回true。
+     */
+    public boolean drain(long timeoutMillis) {
+        accepting = false;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        boolean drained = awaitIdle(deadline);
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.isAlive()) {
+                drained = false;
+                worker.interrupt();
+            }
+        }
+        Pending<T> remaining;
+        while ((remaining = queue.poll()) != null) {
+            drop(remaining.item());
+        }
+        // 仪表引用着队列，停止后移除，使已关闭的流水线可以被回收
+        MetricsRegistry.global().removeGauge(MetricNames.stageQueueDepth(name), queueDepthGauge);
+        log.info("阶段 [{}] 已停止：处理 {}，丢弃 {}，失败 {}", name, processed.get(), dropped.get(), failed.get());
+        return drained;
+    }
+
+    @Override
+    public void close() {
+        drain(0);
+    }
+
+    private boolean awaitIdle(long deadline) {
+        synchronized (idle) {
+            while (inFlight.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    idle.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void completed() {
+        if (inFlight.decrementAndGet() == 0) {
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            Pending<T> pending;
+            try {
+                pending = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (pending == null) {
+                if (!accepting && inFlight.get() == 0) {
+                    return;
+                }
+                continue;
+            }
+            long startNanos = System.nanoTime();
+            queueWait.record(startNanos - pending.enqueuedNanos());
+            active.incrementAndGet();
+            try {
+                handler.accept(pending.item());
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                log.error("阶段 [{}] 处理输入失败", name, e);
+            } finally {
+                active.decrementAndGet();
+                processed.incrementAndGet();
+                serviceTime.recordSince(startNanos);
+                completed();
+            }
+        }
+    }
+
+    private void drop(T item) {
+        dropped.incrementAndGet();
+        try {
+            onDrop.accept(item);
+        } catch (RuntimeException e) {
+            log.error("阶段 [{}] 的丢弃回调失败", name, e);
+        } finally {
+            completed();
+        }
+    }
+
+    // --- 线程工厂 ---
+
+    // JDK 21+ 的 Thread.ofVirtual()；在更早的运行时上为null。通过反射获取，以便仍可在 Java 17 上编译和运行。
+    private static final Method VIRTUAL_THREADS = findVirtualThreadBuilder();
+
+    private static Method findVirtualThreadBuilder() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory threadFactory(ExecutorKind kind, String prefix) {
+        if (kind == ExecutorKind.VIRTUAL && VIRTUAL_THREADS != null) {
+            try {
+                Object builder = VIRTUAL_THREADS.invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 0L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                log.warn("无法创建虚拟线程，阶段 {} 改用平台线程: {}", prefix, e.toString());
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread t = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
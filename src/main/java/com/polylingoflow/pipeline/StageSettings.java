@@ -0,0 +1,16 @@
+package com.polylingoflow.pipeline;
+
+/**
+ * 一个流水线阶段的容量设置。
+ *
+ * @param queueCapacity 阶段输入队列的最大长度。
+ * @param concurrency   同时处理输入的工作线程数。
+ */
+public record StageSettings(int queueCapacity, int concurrency) {
+
+    public StageSettings {
+        if (queueCapacity < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("队列容量和并发数必须至少为1: " + queueCapacity + ", " + concurrency);
+        }
+    }
+}
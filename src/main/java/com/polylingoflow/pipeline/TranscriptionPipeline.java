@@ -0,0 +1,655 @@
+package com.polylingoflow.pipeline;
+
+import com.polylingoflow.audio.AudioCapture;
+import com.polylingoflow.audio.AudioSource;
+import com.polylingoflow.audio.SegmentAudioLog;
+import com.polylingoflow.audio.SegmentAudioLogReader;
+import com.polylingoflow.audio.SegmentStore;
+import com.polylingoflow.audio.VadListener;
+import com.polylingoflow.audio.VadProcessor;
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.metrics.StartupTimeline;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.tracing.TraceContext;
+import com.polylingoflow.transcript.TranscriptStore;
+import com.polylingoflow.translate.SpeculativeTranslator;
+import com.polylingoflow.translate.TranslatorService;
+import com.polylingoflow.whisper.SpeechRecognizer;
+import com.polylingoflow.whisper.WhisperEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 核心转录流水线：AudioCapture → VadProcessor → WhisperEngine → TranslatorService → TranscriptStore。
+ *
+ * 各处理步骤运行在显式的 {@link Stage} 中，阶段之间只通过有界队列连接：
+ * <pre>
+ * 捕获线程 ─▶ [vad] ─▶ [asr] ─▶ [translate] ─▶ 重排序缓冲区 ─▶ TranscriptStore / 事件流（各订阅者有独立缓冲）
+ *                 └──▶ [partial]（部分转录和推测式翻译）
+ * </pre>
+ * VAD 和语音识别使用平台线程；翻译阶段大部分时间在等待网络，使用虚拟线程（运行时支持时）。
+ * 过载时：音频块在 vad 队列满时被丢弃（捕获线程从不阻塞），积压的语音片段在 asr 队列中丢弃最旧的并跳过其序列号，
+ * 翻译队列满时阻塞 asr 阶段。排队的语音片段保存在 {@link SegmentStore} 中（堆外，超出内存预算时溢出到磁盘），
+ * 积压不会增大堆。关闭时每个阶段按顺序排空。
+ *
+ * {@link #start()} 在后台加载识别模型，不等它完成就打开音频来源，使模型加载与用户开始说话重叠；
+ * asr 阶段在第一次转录前等待加载完成。音频来源打开时处于暂停状态；{@link #setRecording(boolean)} 只是暂停或恢复来源，
+ * 音频设备和各阶段的线程一直保留到 {@link #shutdown()}。暂停期间没有音频进入，VAD 和推理都是空闲的。
+ *
+ * 此类不依赖JavaFX，可以在无界面的服务器或容器中运行。
+ * 结果按说话顺序写入 {@link TranscriptStore}，并以类型化事件发布到 {@link PipelineEventBus}；
+ * JavaFX界面、文件导出或网络客户端都只是事件流的可选订阅者，缓慢的订阅者不会阻塞流水线。
+ */
+public class TranscriptionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptionPipeline.class);
+    private static final LatencyHistogram resumeLatency =
+            MetricsRegistry.global().histogram(MetricNames.AUDIO_RESUME_LATENCY);
+
+    /** 语音片段每增长这么长（毫秒）就生成一次部分转录的默认值。 */
+    public static final int DEFAULT_PARTIAL_INTERVAL_MILLIS = 1500;
+    // 16kHz、16位单声道PCM每毫秒的字节数
+    private static final int BYTES_PER_MILLI = 32;
+    // VAD 队列中的控制消息：结束正在进行的语音片段（按引用比较）
+    private static final byte[] END_OF_SPEECH = new byte[0];
+
+    // 重排序缓冲区参数：最多暂存的乱序片段数，以及队首片段的最长等待时间
+    private static final int REORDER_CAPACITY = 64;
+    private static final long REORDER_TIMEOUT_MILLIS = 10_000;
+
+    // 关闭时每个阶段排空队列的最长时间
+    private static final long STAGE_DRAIN_MILLIS = 5_000;
+    private static final long ASR_DRAIN_MILLIS = 30_000;
+
+    private final PipelineConfig config;
+    private final AudioSource audioSource;
+    private final SpeechRecognizer recognizer;
+    private final TranslatorService translatorService;
+    private final SpeculativeTranslator speculativeTranslator;
+    private final TranscriptStore transcriptStore = new TranscriptStore();
+    private final PipelineEventBus eventBus = new PipelineEventBus();
+    private final TranscriptIndex searchIndex;
+    private final SegmentStore segmentStore = SegmentStore.global();
+    private final String streamName;
+    private final String sessionId;
+    private SegmentAudioLog audioLog;
+
+    // 流水线阶段
+    private final Stage<byte[]> vadStage;
+    private final Stage<SpeechSegment> asrStage;
+    private final Stage<SpeechSegment> partialStage;
+    private final Stage<TranslationRequest> translateStage;
+    private volatile VadProcessor vadProcessor;
+    private final AtomicInteger pendingTranslations = new AtomicInteger();
+
+    // 录音状态；恢复录音的时刻（System.nanoTime()），第一个音频块到达后清零
+    private volatile boolean recording = false;
+    private volatile long resumeRequestedNanos = 0;
+
+    // 识别模型在后台加载，转录前等待它完成
+    private volatile CompletableFuture<Void> recognizerReady = CompletableFuture.completedFuture(null);
+
+    // 可在运行时调整的参数（见 AutoTuner）
+    private volatile int vadSilenceMillis;
+    private volatile int partialIntervalMillis = DEFAULT_PARTIAL_INTERVAL_MILLIS;
+
+    // 转录和各目标语言的翻译分别按片段序列号恢复说话顺序后，再交给下游
+    private final ReorderBuffer<TranscriptionSegment> transcriptOrder;
+    private final Map<String, ReorderBuffer<OrderedTranslation>> translationOrder = new LinkedHashMap<>();
+
+    /**
+     * 一条带序列号的翻译结果，用于在重排序后写回对应的转录条目。
+     */
+    private record OrderedTranslation(long sequence, String text) {}
+
+    /**
+     * 送往语音识别阶段的语音（完整片段或尚未结束片段的前缀）。处理或丢弃后必须释放 {@code audio}。
+     */
+    private record SpeechSegment(long sequence, long startTimeMillis, long endTimeMillis, SegmentStore.Segment audio) {}
+
+    /**
+     * 送往翻译阶段的最终转录。
+     */
+    private record TranslationRequest(long sequence, String text) {}
+
+    public TranscriptionPipeline(PipelineConfig config) {
+        this(config, new TranscriptIndex());
+    }
+
+    /**
+     * @param config      流水线配置。
+     * @param searchIndex 搜索索引，本次会话的片段和翻译会实时加入其中（例如，从磁盘加载的历史索引）。
+     */
+    public TranscriptionPipeline(PipelineConfig config, TranscriptIndex searchIndex) {
+        this(config, searchIndex, new AudioCapture(), new WhisperEngine(), new TranslatorService());
+    }
+
+    /**
+     * 使用指定的组件构造流水线，例如负载测试中的文件音频来源、桩识别引擎和本地翻译服务。
+     *
+     * @param config            流水线配置。
+     * @param searchIndex       搜索索引。
+     * @param audioSource       音频来源。
+     * @param recognizer        语音识别引擎，由流水线在 {@link #start()} 中初始化、在 {@link #shutdown()} 中关闭。
+     * @param translatorService 翻译服务。
+     */
+    public TranscriptionPipeline(PipelineConfig config, TranscriptIndex searchIndex, AudioSource audioSource,
+                                 SpeechRecognizer recognizer, TranslatorService translatorService) {
+        this(config, searchIndex, null, audioSource, recognizer, translatorService);
+    }
+
+    /**
+     * 构造多路流中的一路流水线（见 {@link MultiStreamSession}）。每路流有自己的 VAD 状态、转录记录和事件流；
+     * 流名称用于区分各路流的阶段指标、线程名和会话标识。
+     *
+     * @param config            流水线配置。
+     * @param searchIndex       搜索索引。
+     * @param streamName        流名称；单路流时为null。
+     * @param audioSource       音频来源。
+     * @param recognizer        语音识别引擎，例如共享引擎池中该流的视图。
+     * @param translatorService 翻译服务。
+     */
+    public TranscriptionPipeline(PipelineConfig config, TranscriptIndex searchIndex, String streamName,
+                                 AudioSource audioSource, SpeechRecognizer recognizer,
+                                 TranslatorService translatorService) {
+        this.config = Objects.requireNonNull(config, "Config cannot be null");
+        this.searchIndex = Objects.requireNonNull(searchIndex, "Search index cannot be null");
+        this.streamName = streamName;
+        this.vadSilenceMillis = config.vadSilenceMillis();
+        String startTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        this.sessionId = streamName == null ? startTime : startTime + "-" + streamName;
+        transcriptStore.addListener(searchIndex.listenerFor(sessionId));
+        this.audioSource = Objects.requireNonNull(audioSource);
+        this.recognizer = Objects.requireNonNull(recognizer);
+        this.translatorService = Objects.requireNonNull(translatorService);
+        this.speculativeTranslator = new SpeculativeTranslator(translatorService, config.sourceLang(),
+                config.targetLangs());
+
+        this.transcriptOrder = new ReorderBuffer<>(qualify("transcript"), REORDER_CAPACITY, REORDER_TIMEOUT_MILLIS,
+                this::publishSegment);
+        for (String lang : config.targetLangs()) {
+            translationOrder.put(lang, new ReorderBuffer<>(qualify("translation-" + lang), REORDER_CAPACITY,
+                    REORDER_TIMEOUT_MILLIS, translated -> publishTranslation(lang, translated)));
+        }
+
+        // VadProcessor 有状态，必须由单个线程按顺序处理音频块
+        this.vadStage = new Stage<>(qualify("vad"), new StageSettings(config.vadStage().queueCapacity(), 1),
+                Stage.ExecutorKind.PLATFORM, Stage.OverflowPolicy.DROP_NEWEST,
+                traced(this::processChunk), chunk -> log.warn("VAD 队列已满，丢弃一个音频块"));
+        this.asrStage = new Stage<>(qualify("asr"), config.asrStage(), Stage.ExecutorKind.PLATFORM,
+                Stage.OverflowPolicy.DROP_OLDEST, traced(this::transcribeSegment), this::onSegmentDropped);
+        // 只保留最新的部分转录请求，以免与最终转录争抢引擎
+        this.partialStage = new Stage<>(qualify("partial"), new StageSettings(1, 1), Stage.ExecutorKind.PLATFORM,
+                Stage.OverflowPolicy.DROP_OLDEST, traced(this::transcribePartial), segment -> segment.audio().release());
+        this.translateStage = new Stage<>(qualify("translate"), config.translateStage(), Stage.ExecutorKind.VIRTUAL,
+                Stage.OverflowPolicy.BLOCK, traced(this::translateFinal), this::onTranslationDropped);
+    }
+
+    /**
+     * 处理输入前在当前线程上标记本路流，使这个线程上（以及它调用的共享组件中）创建的 JFR 事件带有流名称。
+     */
+    private <T> Consumer<T> traced(Consumer<T> handler) {
+        return item -> {
+            TraceContext.setStream(streamName);
+            handler.accept(item);
+        };
+    }
+
+    /**
+     * VAD 阶段的处理函数：音频块交给 VAD，结束标记使正在进行的语音片段立即结束。
+     */
+    private void processChunk(byte[] chunk) {
+        if (chunk == END_OF_SPEECH) {
+            vadProcessor.flush();
+        } else {
+            vadProcessor.process(chunk);
+        }
+    }
+
+    /**
+     * 给阶段等组件的名称加上流名称前缀（单路流时不加），例如 {@code left.asr}。
+     */
+    private String qualify(String name) {
+        return streamName == null ? name : streamName + "." + name;
+    }
+
+    /**
+     * @return 流名称；单路流时为null。
+     */
+    public String getStreamName() {
+        return streamName;
+    }
+
+    /**
+     * @return 流水线的事件流，供UI、导出器等订阅。
+     */
+    public PipelineEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * @return 本次会话的转录记录。
+     */
+    public TranscriptStore getTranscriptStore() {
+        return transcriptStore;
+    }
+
+    public PipelineConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return 包含本次会话（以及构造时传入的历史会话）的搜索索引。
+     */
+    public TranscriptIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * @return 本次会话在搜索索引中的标识（会话开始时间，yyyyMMdd-HHmmss；多路流时再加上 {@code -流名称}）。
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * 调整判定语音片段结束所需的静音时长，立即对正在进行的会话生效。
+     *
+     * @param silenceMillis 静音时长（毫秒）。
+     */
+    public void setVadSilenceMillis(int silenceMillis) {
+        this.vadSilenceMillis = silenceMillis;
+        VadProcessor processor = vadProcessor;
+        if (processor != null) {
+            processor.setSilenceMillisThreshold(silenceMillis);
+        }
+    }
+
+    public int getVadSilenceMillis() {
+        return vadSilenceMillis;
+    }
+
+    /**
+     * 调整生成部分转录的间隔。较长的间隔减少部分转录和推测式翻译占用的推理时间，较短的间隔让字幕更早出现。
+     *
+     * @param intervalMillis 语音片段每增长这么长（毫秒）生成一次部分转录。
+     */
+    public void setPartialIntervalMillis(int intervalMillis) {
+        this.partialIntervalMillis = intervalMillis;
+    }
+
+    public int getPartialIntervalMillis() {
+        return partialIntervalMillis;
+    }
+
+    /**
+     * @return 流水线的各个阶段（vad、asr、partial、translate），供监控使用。
+     */
+    public List<Stage<?>> getStages() {
+        return List.of(vadStage, asrStage, partialStage, translateStage);
+    }
+
+    /**
+     * @param name 阶段名称，不带流名称前缀：vad、asr、partial 或 translate。
+     * @return 该阶段。
+     * @throws IllegalArgumentException 如果没有这个阶段。
+     */
+    public Stage<?> getStage(String name) {
+        String qualified = qualify(name);
+        return getStages().stream()
+                .filter(stage -> stage.getName().equals(qualified))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("没有这个阶段: " + name));
+    }
+
+    /**
+     * 在后台初始化 Whisper 引擎，并打开音频来源。来源处于暂停状态，直到 {@link #setRecording(boolean) setRecording(true)}。
+     * 模型加载失败时发布 {@link PipelineEvent.PipelineError}，之后的每个片段都转录失败。
+     */
+    public void start() {
+        log.info("正在启动转录流水线...");
+        recognizerReady = initializeRecognizerAsync();
+        if (config.audioLogDir() != null) {
+            try {
+                audioLog = SegmentAudioLog.openSession(config.audioLogDir(), sessionId);
+            } catch (IOException e) {
+                log.error("无法打开语音片段日志，本次会话不记录音频: {}", config.audioLogDir(), e);
+            }
+        }
+        setupVad();
+        log.info("转录流水线启动完成。");
+    }
+
+    /**
+     * 以最快速度将语音片段日志中的片段重新送入流水线（不捕获音频），用于用新的模型或参数重新转录。
+     * 片段按日志顺序在调用线程上依次转录，翻译和事件发布与实时会话相同。
+     *
+     * @param logDirectory 由 {@link SegmentAudioLog} 写出的日志目录。
+     * @return 回放的片段数。
+     * @throws IOException 如果无法读取日志。
+     */
+    public int replay(Path logDirectory) throws IOException {
+        log.info("正在回放语音片段日志: {}", logDirectory);
+        TraceContext.setStream(streamName);
+        recognizer.initialize(config.modelPath());
+        try (SegmentAudioLogReader reader = new SegmentAudioLogReader(logDirectory)) {
+            long expected = 0;
+            for (int i = 0; i < reader.size(); i++) {
+                SegmentAudioLogReader.SegmentAudio segment = reader.get(i);
+                // 实时会话中因队列已满而未记录的片段不会再到达，立即跳过，不必等待重排序超时
+                for (; expected < segment.sequence(); expected++) {
+                    skipSequence(expected);
+                }
+                expected = segment.sequence() + 1;
+                eventBus.publish(new PipelineEvent.SegmentStarted(segment.sequence(), segment.startTimeMillis()));
+                // 直接在调用线程上转录：回放速度由引擎决定，翻译阶段满时在这里阻塞，不会丢弃片段
+                transcribeSegment(new SpeechSegment(segment.sequence(), segment.startTimeMillis(),
+                        segment.endTimeMillis(), segmentStore.put(segment.pcm())));
+            }
+            log.info("回放完成，共 {} 个片段。", reader.size());
+            return reader.size();
+        }
+    }
+
+    private void setupVad() {
+        VadListener vadListener = new VadListener() {
+            private final ByteArrayOutputStream speechBuffer = new ByteArrayOutputStream();
+            private long segmentId = -1;
+            private int nextPartialAt = partialIntervalBytes();
+
+            @Override
+            public void onSpeechStart() {
+                // 由带序列号的重载处理
+            }
+
+            @Override
+            public void onSpeechStart(long sequence, long startTimeMillis) {
+                publishStatus("检测到语音...");
+                eventBus.publish(new PipelineEvent.SegmentStarted(sequence, startTimeMillis));
+                speechBuffer.reset();
+                segmentId = sequence;
+                nextPartialAt = partialIntervalBytes();
+            }
+
+            @Override
+            public void onSpeech(byte[] audioData) {
+                try {
+                    speechBuffer.write(audioData);
+                } catch (IOException e) {
+                    log.error("无法将音频数据写入缓冲区", e);
+                }
+                if (speechBuffer.size() >= nextPartialAt) {
+                    nextPartialAt = speechBuffer.size() + partialIntervalBytes();
+                    partialStage.submit(new SpeechSegment(segmentId, 0, 0, segmentStore.put(speechBuffer.toByteArray())));
+                }
+            }
+
+            @Override
+            public void onSpeechEnd() {
+                // 由带序列号的重载处理
+            }
+
+            @Override
+            public void onSpeechEnd(long sequence, long startTimeMillis, long endTimeMillis) {
+                publishStatus("正在转录...");
+                byte[] completeSpeech = speechBuffer.toByteArray();
+                if (audioLog != null) {
+                    audioLog.append(sequence, startTimeMillis, endTimeMillis, completeSpeech);
+                }
+
+                asrStage.submit(new SpeechSegment(sequence, startTimeMillis, endTimeMillis,
+                        segmentStore.put(completeSpeech)));
+            }
+        };
+
+        vadProcessor = new VadProcessor(vadListener, config.vadFrameMillis(),
+                config.vadEnergyThreshold(), vadSilenceMillis);
+
+        // 捕获线程只把音频块放入 VAD 阶段的队列
+        audioSource.setPaused(!recording);
+        audioSource.startRecording(this::onAudio);
+    }
+
+    /**
+     * 在捕获线程上接收一个音频块。
+     */
+    private void onAudio(byte[] chunk) {
+        StartupTimeline.mark(StartupTimeline.FIRST_CHUNK);
+        long resumedAt = resumeRequestedNanos;
+        if (resumedAt != 0) {
+            resumeRequestedNanos = 0;
+            resumeLatency.recordSince(resumedAt);
+        }
+        vadStage.submit(chunk);
+    }
+
+    private CompletableFuture<Void> initializeRecognizerAsync() {
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                recognizer.initialize(config.modelPath());
+                ready.complete(null);
+            } catch (RuntimeException e) {
+                log.error("语音识别引擎初始化失败: {}", config.modelPath(), e);
+                eventBus.publish(new PipelineEvent.PipelineError(-1, "initialize", e.getMessage()));
+                ready.completeExceptionally(e);
+            }
+        }, qualify("recognizer-init"));
+        thread.setDaemon(true);
+        thread.start();
+        return ready;
+    }
+
+    /**
+     * 等待识别模型加载完成。加载失败时抛出 {@link java.util.concurrent.CompletionException}。
+     */
+    private void awaitRecognizer() {
+        recognizerReady.join();
+    }
+
+    private int partialIntervalBytes() {
+        return partialIntervalMillis * BYTES_PER_MILLI;
+    }
+
+    /**
+     * 转录一个完整的语音片段，并将结果送入重排序缓冲区、文本送入翻译阶段。
+     */
+    private void transcribeSegment(SpeechSegment speech) {
+        long sequence = speech.sequence();
+        String transcribedText;
+        try {
+            awaitRecognizer();
+            transcribedText = recognizer.transcribe(speech.audio().pcm(), sequence, false);
+        } catch (RuntimeException e) {
+            log.error("片段 {} 转录失败", sequence, e);
+            eventBus.publish(new PipelineEvent.PipelineError(sequence, "transcribe", e.getMessage()));
+            transcribedText = null;
+        } finally {
+            speech.audio().release();
+        }
+        publishStatus("准备就绪");
+        if (transcribedText == null || transcribedText.isBlank()) {
+            skipSequence(sequence);
+            return;
+        }
+        transcriptOrder.submit(sequence,
+                new TranscriptionSegment(sequence, speech.startTimeMillis(), speech.endTimeMillis(), transcribedText));
+        pendingTranslations.incrementAndGet();
+        translateStage.submit(new TranslationRequest(sequence, transcribedText));
+    }
+
+    private void onSegmentDropped(SpeechSegment speech) {
+        speech.audio().release();
+        log.warn("语音识别阶段过载，丢弃片段 {}", speech.sequence());
+        eventBus.publish(new PipelineEvent.PipelineError(speech.sequence(), "asr", "语音识别过载，片段被丢弃"));
+        skipSequence(speech.sequence());
+    }
+
+    private void onTranslationDropped(TranslationRequest request) {
+        translationOrder.values().forEach(buffer -> buffer.skip(request.sequence()));
+        pendingTranslations.decrementAndGet();
+    }
+
+    private void skipSequence(long sequence) {
+        transcriptOrder.skip(sequence);
+        translationOrder.values().forEach(buffer -> buffer.skip(sequence));
+    }
+
+    /**
+     * 对尚未结束的语音片段生成部分转录，并据此发起推测式翻译。
+     */
+    private void transcribePartial(SpeechSegment speech) {
+        String partialText;
+        try {
+            awaitRecognizer();
+            partialText = recognizer.transcribe(speech.audio().pcm(), speech.sequence(), true);
+        } finally {
+            speech.audio().release();
+        }
+        eventBus.publish(new PipelineEvent.PartialTranscript(speech.sequence(), partialText));
+        speculativeTranslator.onPartial(speech.sequence(), partialText);
+    }
+
+    /**
+     * 将最终转录并发翻译为所有目标语言。每个语言完成后立即进入该语言的重排序缓冲区，
+     * 不必等待最慢的语言；失败的翻译会跳过其序列号，避免阻塞后续片段。
+     * 工作线程等待本片段的所有语言完成，因此翻译阶段的并发数就是同时进行的翻译片段数上限。
+     */
+    private void translateFinal(TranslationRequest request) {
+        long segmentId = request.sequence();
+        try {
+            Map<String, CompletableFuture<String>> futures = speculativeTranslator.onFinal(segmentId, request.text());
+            CompletableFuture<?>[] completions = futures.entrySet().stream()
+                    .map(entry -> entry.getValue()
+                            .thenAccept(translated -> translationOrder.get(entry.getKey()).submit(segmentId,
+                                    new OrderedTranslation(segmentId, translated)))
+                            .exceptionally(e -> {
+                                String lang = entry.getKey();
+                                log.warn("片段 {} 翻译为 {} 失败: {}", segmentId, lang, e.getMessage());
+                                eventBus.publish(new PipelineEvent.PipelineError(segmentId, "translate",
+                                        lang + ": " + e.getMessage()));
+                                translationOrder.get(lang).skip(segmentId);
+                                return null;
+                            }))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(completions).join();
+        } finally {
+            pendingTranslations.decrementAndGet();
+        }
+    }
+
+    /**
+     * 等待所有已发起的翻译完成（例如，回放结束后、关闭流水线之前）。
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）。
+     * @return 如果所有翻译都已完成则返回true；超时则返回false。
+     * @throws InterruptedException 如果等待被中断。
+     */
+    public boolean awaitTranslations(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pendingTranslations.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    /**
+     * 按说话顺序发布一个转录片段。
+     */
+    private void publishSegment(TranscriptionSegment segment) {
+        // 可能在重排序缓冲区的超时线程上调用，实时导出的事件在这里取得流名称
+        TraceContext.setStream(streamName);
+        StartupTimeline.mark(StartupTimeline.FIRST_TRANSCRIPT);
+        transcriptStore.append(segment);
+        eventBus.publish(new PipelineEvent.FinalTranscript(segment));
+    }
+
+    /**
+     * 按说话顺序发布某个目标语言的翻译。
+     */
+    private void publishTranslation(String lang, OrderedTranslation translation) {
+        TraceContext.setStream(streamName);
+        transcriptStore.setTranslation(translation.sequence(), lang, translation.text());
+        eventBus.publish(new PipelineEvent.Translated(translation.sequence(), lang, translation.text()));
+    }
+
+    private void publishStatus(String status) {
+        eventBus.publish(new PipelineEvent.StatusChanged(status));
+    }
+
+    /**
+     * 开始或暂停录音。只是翻转音频来源的暂停标志，不关闭音频设备或线程，可以反复调用。
+     * 暂停时在 VAD 队列中已有的音频块之后放入一个结束标记，VAD 处理到它时立即结束正在进行的语音片段并转录，
+     * 而不是等到恢复后才与新的语音连在一起。标记以阻塞方式提交，VAD 队列已满时也不会被丢弃。
+     *
+     * @param recording 是否正在录音。
+     */
+    public void setRecording(boolean recording) {
+        publishStatus(recording ? "正在聆听..." : "录音已停止。");
+        log.info("请求{}录音。", recording ? "开始" : "停止");
+        if (this.recording == recording) {
+            return;
+        }
+        this.recording = recording;
+        if (recording) {
+            resumeRequestedNanos = System.nanoTime();
+            audioSource.setPaused(false);
+        } else {
+            audioSource.setPaused(true);
+            resumeRequestedNanos = 0;
+            vadStage.submit(END_OF_SPEECH, Stage.OverflowPolicy.BLOCK);
+        }
+    }
+
+    /**
+     * @return 是否正在录音（未暂停）。
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * 优雅地关闭流水线并释放资源。音频来源关闭后在 VAD 队列末尾放入结束标记，正在进行的语音片段因此被结束并转录，
+     * 不依赖来源在末尾补上足够长的静音。
+     */
+    public void shutdown() {
+        log.info("正在关闭转录流水线...");
+        audioSource.close();
+        vadStage.submit(END_OF_SPEECH, Stage.OverflowPolicy.BLOCK);
+        // 按数据流方向依次排空各阶段
+        vadStage.drain(STAGE_DRAIN_MILLIS);
+        if (audioLog != null) {
+            audioLog.close();
+        }
+        partialStage.close();
+        asrStage.drain(ASR_DRAIN_MILLIS);
+        translateStage.drain(STAGE_DRAIN_MILLIS);
+        speculativeTranslator.reset();
+        transcriptOrder.close();
+        translationOrder.values().forEach(ReorderBuffer::close);
+        // 不在模型加载的中途释放引擎
+        recognizerReady.handle((ok, e) -> null).join();
+        recognizer.close();
+        eventBus.close();
+        log.info("转录流水线关闭完成。");
+    }
+}
@@ -0,0 +1,140 @@
+package com.polylingoflow.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 一个词项的压缩倒排列表。
+ *
+ * 文档按编号递增追加，每个文档编码为：varint 文档编号增量 | varint 位置数 | 每个位置的 varint 增量。
+ * 列表只追加，不需要重新编码已有数据；解码时一次性展开为数组。
+ */
+final class PostingList {
+
+    private byte[] data = new byte[8];
+    private int length = 0;
+    private int lastDocument = -1;
+    private int documentCount = 0;
+
+    /**
+     * 已解码的倒排列表。
+     *
+     * @param documents 文档编号（递增）。
+     * @param positions 每个文档中该词项的位置（递增）。
+     */
+    record Decoded(int[] documents, int[][] positions) {}
+
+    /**
+     * 追加一个文档中该词项的所有位置。
+     *
+     * @param document  文档编号，必须大于之前追加的编号。
+     * @param positions 位置数组（递增）。
+     * @param count     有效位置数。
+     */
+    void append(int document, int[] positions, int count) {
+        if (document <= lastDocument) {
+            throw new IllegalArgumentException("文档编号必须递增: " + document + " <= " + lastDocument);
+        }
+        ensureCapacity(5 * (2 + count));
+        putVarInt(document - lastDocument);
+        putVarInt(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            putVarInt(positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDocument = document;
+        documentCount++;
+    }
+
+    int documentCount() {
+        return documentCount;
+    }
+
+    int encodedBytes() {
+        return length;
+    }
+
+    Decoded decode() {
+        int[] documents = new int[documentCount];
+        int[][] positions = new int[documentCount][];
+        int[] cursor = {0};
+        int document = -1;
+        for (int d = 0; d < documentCount; d++) {
+            document += getVarInt(cursor);
+            documents[d] = document;
+            int count = getVarInt(cursor);
+            int[] docPositions = new int[count];
+            int position = 0;
+            for (int p = 0; p < count; p++) {
+                position += getVarInt(cursor);
+                docPositions[p] = position;
+            }
+            positions[d] = docPositions;
+        }
+        return new Decoded(documents, positions);
+    }
+
+    /**
+     * @return 只包含文档编号的解码结果（跳过位置），用于前缀查询等不需要位置的场景。
+     */
+    int[] decodeDocuments() {
+        int[] documents = new int[documentCount];
+        int[] cursor = {0};
+        int document = -1;
+        for (int d = 0; d < documentCount; d++) {
+            document += getVarInt(cursor);
+            documents[d] = document;
+            int count = getVarInt(cursor);
+            for (int p = 0; p < count; p++) {
+                getVarInt(cursor);
+            }
+        }
+        return documents;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(documentCount);
+        out.writeInt(lastDocument);
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    static PostingList readFrom(DataInput in) throws IOException {
+        PostingList list = new PostingList();
+        list.documentCount = in.readInt();
+        list.lastDocument = in.readInt();
+        list.length = in.readInt();
+        list.data = new byte[Math.max(8, list.length)];
+        in.readFully(list.data, 0, list.length);
+        return list;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (length + bytes > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + bytes));
+        }
+    }
+
+    private void putVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private int getVarInt(int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,12 @@
+package com.polylingoflow.search;
+
+/**
+ * 一条搜索结果：命中的转录片段在哪个会话、哪个时间段。
+ *
+ * @param sessionId       会话标识。
+ * @param sequence        片段序列号。
+ * @param startTimeMillis 片段开始时间（毫秒，相对于会话开始）。
+ * @param endTimeMillis   片段结束时间（毫秒）。
+ * @param lang            命中的是哪个语言的翻译；命中原文时为null。
+ */
+public record SearchHit(String sessionId, long sequence, long startTimeMillis, long endTimeMillis, String lang) {}
@@ -0,0 +1,98 @@
+package com.polylingoflow.search;
+
+/**
+ * 面向多语言转录文本的分词器。
+ *
+ * 拉丁字母、数字等按单词切分并转为小写；中日韩文字（汉字、平假名、片假名、韩文）没有空格分隔，
+ * 因此按字符切分：每个字符占一个位置，索引时在该位置同时产生单字词和与下一个字符组成的二元词，
+ * 这样单字查询和多字短语查询都能命中。标点和空白只起分隔作用。
+ */
+final class Tokenizer {
+
+    /**
+     * 接收分词结果的回调。
+     */
+    interface TokenConsumer {
+        /**
+         * @param token    词项。
+         * @param position 词项在文本中的位置（从0开始，同一位置可能有多个词项）。
+         */
+        void accept(String token, int position);
+    }
+
+    private Tokenizer() {
+    }
+
+    /**
+     * 为建立索引而分词：中日韩字符同时产生单字词和二元词。
+     *
+     * @return 使用的位置数。
+     */
+    static int tokenizeForIndex(String text, TokenConsumer consumer) {
+        return tokenize(text, consumer, true);
+    }
+
+    /**
+     * 为查询而分词：连续两个以上的中日韩字符只产生二元词（作为短语匹配），单个字符产生单字词。
+     *
+     * @return 使用的位置数。
+     */
+    static int tokenizeForQuery(String text, TokenConsumer consumer) {
+        return tokenize(text, consumer, false);
+    }
+
+    private static int tokenize(String text, TokenConsumer consumer, boolean index) {
+        int position = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int runStart = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                position = emitCjkRun(text, runStart, i, position, consumer, index);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int wordStart = i;
+                while (i < length) {
+                    int c = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                consumer.accept(text.substring(wordStart, i).toLowerCase(), position++);
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return position;
+    }
+
+    private static int emitCjkRun(String text, int start, int end, int position, TokenConsumer consumer,
+                                  boolean index) {
+        int characters = text.codePointCount(start, end);
+        int i = start;
+        for (int n = 0; n < characters; n++) {
+            int next = text.offsetByCodePoints(i, 1);
+            if (index || characters == 1) {
+                consumer.accept(text.substring(i, next), position);
+            }
+            if (n + 1 < characters) {
+                consumer.accept(text.substring(i, text.offsetByCodePoints(next, 1)), position);
+            }
+            position++;
+            i = next;
+        }
+        return position;
+    }
+
+    static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,465 @@
+package com.polylingoflow.search;
+
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.transcript.TranscriptEntry;
+import com.polylingoflow.transcript.TranscriptStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 跨会话转录历史的增量倒排索引。
+ *
+ * 每个最终转录片段（以及它的每条翻译）作为一个文档加入索引，文档记录会话、序列号和时间段。
+ * 词项的倒排列表采用增量变长整数压缩并带有位置信息，因此支持：
+ * <ul>
+ *   <li>普通词：{@code budget}（多个词之间为“与”关系）</li>
+ *   <li>短语：{@code "quarterly budget"}；连续的中日韩文字本身按短语匹配，例如 {@code 预算会议}</li>
+ *   <li>前缀：{@code budg*}</li>
+ * </ul>
+ * 查询结果是命中片段的时间戳。写入在写锁中串行化，查询可以与写入并发进行。
+ * 索引可以通过 {@link #save(Path)} / {@link #load(Path)} 在会话之间持久化。
+ */
+public class TranscriptIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptIndex.class);
+
+    private static final int FILE_MAGIC = 0x504C4958; // "PLIX"
+    private static final int FILE_VERSION = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+    // 会话和语言表
+    private final List<String> sessions = new ArrayList<>();
+    private final Map<String, Integer> sessionIds = new HashMap<>();
+    private final List<String> languages = new ArrayList<>();
+    private final Map<String, Integer> languageIds = new HashMap<>();
+
+    // 按文档编号排列的文档元数据
+    private int documentCount = 0;
+    private int[] documentSession = new int[1024];
+    private int[] documentLanguage = new int[1024]; // -1 表示原文
+    private long[] documentSequence = new long[1024];
+    private long[] documentStart = new long[1024];
+    private long[] documentEnd = new long[1024];
+
+    /**
+     * 将一个片段的原文加入索引。
+     *
+     * @param sessionId 会话标识。
+     * @param segment   转录片段。
+     */
+    public void add(String sessionId, TranscriptionSegment segment) {
+        add(sessionId, segment, null, segment.text());
+    }
+
+    /**
+     * 将一个片段的某种语言的翻译加入索引。
+     *
+     * @param sessionId 会话标识。
+     * @param segment   原转录片段（提供序列号和时间段）。
+     * @param lang      翻译的目标语言。
+     * @param text      翻译文本。
+     */
+    public void addTranslation(String sessionId, TranscriptionSegment segment, String lang, String text) {
+        add(sessionId, segment, lang, text);
+    }
+
+    private void add(String sessionId, TranscriptionSegment segment, String lang, String text) {
+        // 在锁外分词，按词项收集位置
+        Map<String, int[]> termPositions = new LinkedHashMap<>();
+        Map<String, Integer> termCounts = new HashMap<>();
+        Tokenizer.tokenizeForIndex(text, (token, position) -> {
+            int count = termCounts.merge(token, 1, Integer::sum);
+            int[] positions = termPositions.get(token);
+            if (positions == null || positions.length < count) {
+                positions = positions == null ? new int[4] : Arrays.copyOf(positions, positions.length * 2);
+                termPositions.put(token, positions);
+            }
+            positions[count - 1] = position;
+        });
+        if (termPositions.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int document = newDocument(sessionId, segment, lang);
+            termPositions.forEach((term, positions) ->
+                    postings.computeIfAbsent(term, t -> new PostingList())
+                            .append(document, positions, termCounts.get(term)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 执行查询。
+     *
+     * @param query 查询字符串，语法见类说明。
+     * @param limit 最多返回的结果数。
+     * @return 按文档加入顺序（即会话和说话顺序）排列的命中结果。
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> clauses = parseClauses(query);
+        if (clauses.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] matches = null;
+            for (String clause : clauses) {
+                int[] clauseMatches = clause.endsWith("*") && clause.length() > 1
+                        ? matchPrefix(clause.substring(0, clause.length() - 1).toLowerCase())
+                        : matchPhrase(clause);
+                matches = matches == null ? clauseMatches : intersect(matches, clauseMatches);
+                if (matches.length == 0) {
+                    return List.of();
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(Math.min(limit, matches.length));
+            for (int i = 0; i < matches.length && hits.size() < limit; i++) {
+                int document = matches[i];
+                int language = documentLanguage[document];
+                hits.add(new SearchHit(sessions.get(documentSession[document]), documentSequence[document],
+                        documentStart[document], documentEnd[document],
+                        language < 0 ? null : languages.get(language)));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 已索引的文档数（片段原文和翻译各算一个）。
+     */
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 不同词项的数量。
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 创建一个转录记录监听器，把该会话中追加的片段和到达的翻译实时加入本索引。
+     *
+     * @param sessionId 会话标识。
+     * @return 可以注册到 {@link TranscriptStore#addListener} 的监听器。
+     */
+    public TranscriptStore.Listener listenerFor(String sessionId) {
+        return new TranscriptStore.Listener() {
+            @Override
+            public void onAppended(int index, TranscriptEntry entry) {
+                add(sessionId, entry.segment());
+                // 先于片段到达的翻译在追加时已经写入条目
+                entry.translations().forEach((lang, text) -> addTranslation(sessionId, entry.segment(), lang, text));
+            }
+
+            @Override
+            public void onTranslated(int index, TranscriptEntry entry, String lang) {
+                addTranslation(sessionId, entry.segment(), lang, entry.translation(lang));
+            }
+        };
+    }
+
+    // --- 持久化 ---
+
+    /**
+     * 将索引写入文件（先写入临时文件再替换，写入中途崩溃不会损坏已有文件）。
+     *
+     * @param file 目标文件。
+     * @throws IOException 如果写入失败。
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            writeStrings(out, sessions);
+            writeStrings(out, languages);
+            out.writeInt(documentCount);
+            for (int d = 0; d < documentCount; d++) {
+                out.writeInt(documentSession[d]);
+                out.writeInt(documentLanguage[d]);
+                out.writeLong(documentSequence[d]);
+                out.writeLong(documentStart[d]);
+                out.writeLong(documentEnd[d]);
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("已保存搜索索引: {}（{} 个文档，{} 个词项）", file, documentCount, postings.size());
+    }
+
+    /**
+     * 从文件加载索引。
+     *
+     * @param file 由 {@link #save(Path)} 写出的文件。
+     * @return 加载的索引，可以继续增量添加。
+     * @throws IOException 如果文件无法读取或格式不正确。
+     */
+    public static TranscriptIndex load(Path file) throws IOException {
+        TranscriptIndex index = new TranscriptIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("不是有效的搜索索引文件: " + file);
+            }
+            for (String session : readStrings(in)) {
+                index.sessionIds.put(session, index.sessions.size());
+                index.sessions.add(session);
+            }
+            for (String language : readStrings(in)) {
+                index.languageIds.put(language, index.languages.size());
+                index.languages.add(language);
+            }
+            int documents = in.readInt();
+            index.ensureDocumentCapacity(documents);
+            for (int d = 0; d < documents; d++) {
+                index.documentSession[d] = in.readInt();
+                index.documentLanguage[d] = in.readInt();
+                index.documentSequence[d] = in.readLong();
+                index.documentStart[d] = in.readLong();
+                index.documentEnd[d] = in.readLong();
+            }
+            index.documentCount = documents;
+            int terms = in.readInt();
+            for (int t = 0; t < terms; t++) {
+                String term = in.readUTF();
+                index.postings.put(term, PostingList.readFrom(in));
+            }
+        }
+        log.info("已加载搜索索引: {}（{} 个文档，{} 个词项）", file, index.documentCount, index.postings.size());
+        return index;
+    }
+
+    // --- 内部实现 ---
+
+    private int newDocument(String sessionId, TranscriptionSegment segment, String lang) {
+        int document = documentCount;
+        ensureDocumentCapacity(document + 1);
+        documentSession[document] = sessionIds.computeIfAbsent(sessionId, s -> {
+            sessions.add(s);
+            return sessions.size() - 1;
+        });
+        documentLanguage[document] = lang == null ? -1 : languageIds.computeIfAbsent(lang, l -> {
+            languages.add(l);
+            return languages.size() - 1;
+        });
+        documentSequence[document] = segment.sequence();
+        documentStart[document] = segment.startTimeMillis();
+        documentEnd[document] = segment.endTimeMillis();
+        documentCount = document + 1;
+        return document;
+    }
+
+    private void ensureDocumentCapacity(int capacity) {
+        if (capacity > documentSession.length) {
+            int grown = Math.max(capacity, documentSession.length * 2);
+            documentSession = Arrays.copyOf(documentSession, grown);
+            documentLanguage = Arrays.copyOf(documentLanguage, grown);
+            documentSequence = Arrays.copyOf(documentSequence, grown);
+            documentStart = Arrays.copyOf(documentStart, grown);
+            documentEnd = Arrays.copyOf(documentEnd, grown);
+        }
+    }
+
+    /**
+     * 将查询拆分为子句：引号内的内容作为一个短语，其余部分按空白切分。
+     */
+    private static List<String> parseClauses(String query) {
+        List<String> clauses = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                end = end < 0 ? query.length() : end;
+                if (end > i + 1) {
+                    clauses.add(query.substring(i + 1, end));
+                }
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end))) {
+                    end++;
+                }
+                clauses.add(query.substring(i, end));
+                i = end;
+            }
+        }
+        return clauses;
+    }
+
+    /**
+     * 匹配一个短语：所有词项都出现在同一文档中，且相对位置与查询中一致。
+     */
+    private int[] matchPhrase(String phrase) {
+        List<String> terms = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        Tokenizer.tokenizeForQuery(phrase, (token, position) -> {
+            terms.add(token);
+            offsets.add(position);
+        });
+        if (terms.isEmpty()) {
+            return new int[0];
+        }
+
+        PostingList.Decoded[] lists = new PostingList.Decoded[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            PostingList list = postings.get(terms.get(t));
+            if (list == null) {
+                return new int[0];
+            }
+            lists[t] = list.decode();
+        }
+
+        int[] candidates = lists[0].documents();
+        for (int t = 1; t < lists.length; t++) {
+            candidates = intersect(candidates, lists[t].documents());
+        }
+        if (lists.length == 1) {
+            return candidates;
+        }
+
+        int[] matches = new int[candidates.length];
+        int matchCount = 0;
+        int[] cursors = new int[lists.length];
+        for (int document : candidates) {
+            int[][] positions = new int[lists.length][];
+            for (int t = 0; t < lists.length; t++) {
+                int[] documents = lists[t].documents();
+                while (documents[cursors[t]] < document) {
+                    cursors[t]++;
+                }
+                positions[t] = lists[t].positions()[cursors[t]];
+            }
+            if (containsPhrase(positions, offsets)) {
+                matches[matchCount++] = document;
+            }
+        }
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    private static boolean containsPhrase(int[][] positions, List<Integer> offsets) {
+        int base = offsets.get(0);
+        for (int start : positions[0]) {
+            boolean all = true;
+            for (int t = 1; t < positions.length && all; t++) {
+                all = Arrays.binarySearch(positions[t], start + offsets.get(t) - base) >= 0;
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 匹配一个前缀：包含任何以该前缀开头的词项的文档。
+     */
+    private int[] matchPrefix(String prefix) {
+        int[] result = new int[0];
+        for (PostingList list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            result = union(result, list.decodeDocuments());
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+}
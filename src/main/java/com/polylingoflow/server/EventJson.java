@@ -0,0 +1,52 @@
+package com.polylingoflow.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.pipeline.PipelineEvent;
+
+/**
+ * 把流水线事件编码为发送给客户端的一行 JSON。字段名与实时导出的 NDJSON 文件一致（{@code seq}、{@code start}、
+ * {@code end}、{@code lang}、{@code text}），另加表示事件类型的 {@code type}。
+ */
+final class EventJson {
+
+    private static final Gson GSON = new Gson();
+
+    private EventJson() {
+    }
+
+    static String encode(PipelineEvent event) {
+        JsonObject json = new JsonObject();
+        if (event instanceof PipelineEvent.SegmentStarted started) {
+            json.addProperty("type", "segment-started");
+            json.addProperty("seq", started.sequence());
+            json.addProperty("start", started.startTimeMillis());
+        } else if (event instanceof PipelineEvent.PartialTranscript partial) {
+            json.addProperty("type", "partial");
+            json.addProperty("seq", partial.sequence());
+            json.addProperty("text", partial.text());
+        } else if (event instanceof PipelineEvent.FinalTranscript transcript) {
+            TranscriptionSegment segment = transcript.segment();
+            json.addProperty("type", "final");
+            json.addProperty("seq", segment.sequence());
+            json.addProperty("start", segment.startTimeMillis());
+            json.addProperty("end", segment.endTimeMillis());
+            json.addProperty("text", segment.text());
+        } else if (event instanceof PipelineEvent.Translated translated) {
+            json.addProperty("type", "translation");
+            json.addProperty("seq", translated.sequence());
+            json.addProperty("lang", translated.targetLang());
+            json.addProperty("text", translated.text());
+        } else if (event instanceof PipelineEvent.StatusChanged status) {
+            json.addProperty("type", "status");
+            json.addProperty("text", status.status());
+        } else if (event instanceof PipelineEvent.PipelineError error) {
+            json.addProperty("type", "error");
+            json.addProperty("seq", error.sequence());
+            json.addProperty("stage", error.stage());
+            json.addProperty("text", error.message());
+        }
+        return GSON.toJson(json);
+    }
+}
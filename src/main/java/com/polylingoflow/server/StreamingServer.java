@@ -0,0 +1,433 @@
+package com.polylingoflow.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.polylingoflow.audio.PushAudioSource;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.pipeline.PipelineEvent;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.translate.TranslatorService;
+import com.polylingoflow.whisper.RecognizerPool;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 本地流式转录服务（JDK 自带的 HttpServer）：客户端上传 16kHz PCM，接收增量的转录和翻译事件。
+ * 瘦客户端因此不必各自加载模型，所有会话共享一个 {@link RecognizerPool}。
+ *
+ * 接口（JDK 没有 WebSocket 服务端，这里用两个长连接的 HTTP 请求代替一个双向连接）：
+ * <pre>
+ * POST   /sessions[?source=en&amp;targets=zh,ja]  创建会话，返回 {"id":"s1","audio":"/sessions/s1/audio","events":"/sessions/s1/events"}
+ * GET    /sessions                            列出会话
+ * GET    /sessions/{id}/events                NDJSON 事件流（分块传输），每行一个事件，会话关闭时结束
+ * POST   /sessions/{id}/audio                 上传原始 PCM（16kHz/16位/单声道/小端），可以是一个长时间的分块上传，也可以是多个短请求
+ * DELETE /sessions/{id}                       结束会话：转录最后一个片段、等待翻译完成后关闭事件流
+ * </pre>
+ * 客户端应先连接事件流再上传音频（订阅之前发布的事件不会补发），并按实时速度上传。
+ * 每个会话是一条独立的 {@link TranscriptionPipeline}（自己的 VAD 状态），事件的格式见 {@link EventJson}。
+ *
+ * 连接由 HttpServer 的非阻塞分发线程接收；请求处理在虚拟线程上运行（JDK 21+，否则使用按需创建的平台线程），
+ * 因此大量空闲的事件流连接只占用很少的资源。超过 {@code idleTimeoutMillis} 既没有上传音频也没有事件流连接的会话会被自动关闭。
+ */
+public class StreamingServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingServer.class);
+
+    private static final String SESSIONS = "/sessions";
+    private static final int UPLOAD_BUFFER_BYTES = 3200;
+    private static final long REAPER_INTERVAL_MILLIS = 10_000;
+
+    private final Gson gson = new Gson();
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService reaper;
+    private final PipelineConfig config;
+    private final RecognizerPool recognizerPool;
+    private final TranslatorService translatorService;
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSessionId = new AtomicLong(1);
+
+    /**
+     * 一个客户端会话：推送式音频来源和它的流水线。
+     */
+    private static final class Session {
+        final String id;
+        final PushAudioSource source = new PushAudioSource();
+        final TranscriptionPipeline pipeline;
+        final AtomicBoolean uploading = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicInteger listeners = new AtomicInteger();
+        volatile long lastActivityMillis = System.currentTimeMillis();
+
+        Session(String id, PipelineConfig config, RecognizerPool pool, TranslatorService translator) {
+            this.id = id;
+            // 每个会话使用独立的搜索索引，关闭后随会话一起释放
+            this.pipeline = new TranscriptionPipeline(config, new TranscriptIndex(), id, source,
+                    pool.forStream(id), translator);
+        }
+
+        boolean isIdle(long now, long timeoutMillis) {
+            return !uploading.get() && listeners.get() == 0 && now - lastActivityMillis > timeoutMillis;
+        }
+    }
+
+    /**
+     * 创建服务。调用 {@link #start()} 后开始接受连接。
+     *
+     * @param address           监听地址。
+     * @param config            会话的默认配置；客户端可以在创建会话时覆盖源语言和目标语言。
+     * @param recognizerPool    所有会话共享的引擎池，由本服务在 {@link #close()} 中关闭。
+     * @param translatorService 所有会话共享的翻译服务。
+     * @param maxSessions       同时存在的会话数上限，超过时返回503。
+     * @param idleTimeoutMillis 空闲会话的自动关闭时间（毫秒）。
+     * @throws IOException 如果无法绑定地址。
+     */
+    public StreamingServer(InetSocketAddress address, PipelineConfig config, RecognizerPool recognizerPool,
+                           TranslatorService translatorService, int maxSessions, long idleTimeoutMillis)
+            throws IOException {
+        this.config = config;
+        this.recognizerPool = recognizerPool;
+        this.translatorService = translatorService;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.server = HttpServer.create(address, 0);
+        this.handlers = newHandlerExecutor();
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stream-server-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        server.createContext(SESSIONS, this::handle);
+        server.setExecutor(handlers);
+        MetricsRegistry.global().gauge(MetricNames.SERVER_SESSIONS, sessions::size);
+    }
+
+    /**
+     * 加载模型并开始接受连接。
+     */
+    public void start() {
+        recognizerPool.initialize(config.modelPath());
+        server.start();
+        reaper.scheduleWithFixedDelay(this::closeIdleSessions, REAPER_INTERVAL_MILLIS, REAPER_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        log.info("流式转录服务已启动: http://{}:{}{}", server.getAddress().getHostString(), getPort(), SESSIONS);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return 当前所有会话的流水线。
+     */
+    public List<TranscriptionPipeline> getPipelines() {
+        return sessions.values().stream().map(session -> session.pipeline).collect(Collectors.toList());
+    }
+
+    public RecognizerPool getRecognizerPool() {
+        return recognizerPool;
+    }
+
+    /**
+     * 停止接受连接，关闭所有会话和引擎池。
+     */
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+        sessions.values().forEach(this::closeSession);
+        server.stop(0);
+        handlers.shutdownNow();
+        recognizerPool.close();
+        log.info("流式转录服务已关闭。");
+    }
+
+    // --- 路由 ---
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().substring(SESSIONS.length()).split("/");
+            // path[0] 为空串；path[1] 为会话ID；path[2] 为子资源
+            String method = exchange.getRequestMethod();
+            if (path.length <= 1) {
+                switch (method) {
+                    case "POST" -> createSession(exchange);
+                    case "GET" -> listSessions(exchange);
+                    default -> sendError(exchange, 405, "不支持的方法: " + method);
+                }
+                return;
+            }
+            Session session = sessions.get(path[1]);
+            if (session == null) {
+                sendError(exchange, 404, "会话不存在: " + path[1]);
+                return;
+            }
+            String resource = path.length > 2 ? path[2] : "";
+            switch (method + " " + resource) {
+                case "GET events" -> streamEvents(exchange, session);
+                case "POST audio" -> receiveAudio(exchange, session);
+                case "DELETE " -> {
+                    closeSession(session);
+                    sendJson(exchange, 200, sessionJson(session));
+                }
+                default -> sendError(exchange, 404, "未知的资源: " + exchange.getRequestURI().getPath());
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void createSession(HttpExchange exchange) throws IOException {
+        if (sessions.size() >= maxSessions) {
+            sendError(exchange, 503, "会话数已达上限 " + maxSessions);
+            return;
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        PipelineConfig sessionConfig = new PipelineConfig(config.modelPath(),
+                query.getOrDefault("source", config.sourceLang()),
+                query.containsKey("targets") ? Arrays.asList(query.get("targets").split(",")) : config.targetLangs(),
+                config.vadFrameMillis(), config.vadEnergyThreshold(), config.vadSilenceMillis(), null,
+                config.vadStage(), config.asrStage(), config.translateStage());
+        Session session = new Session("s" + nextSessionId.getAndIncrement(), sessionConfig, recognizerPool,
+                translatorService);
+        sessions.put(session.id, session);
+        session.pipeline.start();
+        session.pipeline.setRecording(true);
+        log.info("会话 {} 已创建（{} → {}），当前共 {} 个会话", session.id, sessionConfig.sourceLang(),
+                sessionConfig.targetLangs(), sessions.size());
+        JsonObject json = sessionJson(session);
+        json.addProperty("audio", SESSIONS + "/" + session.id + "/audio");
+        json.addProperty("events", SESSIONS + "/" + session.id + "/events");
+        sendJson(exchange, 201, json);
+    }
+
+    private void listSessions(HttpExchange exchange) throws IOException {
+        JsonArray list = new JsonArray();
+        sessions.values().forEach(session -> list.add(sessionJson(session)));
+        JsonObject json = new JsonObject();
+        json.add("sessions", list);
+        json.addProperty("engines", recognizerPool.getSize());
+        json.addProperty("waiting", recognizerPool.getWaitingCount());
+        sendJson(exchange, 200, json);
+    }
+
+    /**
+     * 读取上传的 PCM 直到请求体结束，按到达的顺序推送给会话的流水线。
+     */
+    private void receiveAudio(HttpExchange exchange, Session session) throws IOException {
+        if (!session.uploading.compareAndSet(false, true)) {
+            sendError(exchange, 409, "会话 " + session.id + " 已有一个正在进行的上传");
+            return;
+        }
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] buffer = new byte[UPLOAD_BUFFER_BYTES];
+            int n;
+            while (!session.closed.get() && (n = body.read(buffer)) > 0) {
+                session.source.write(buffer, 0, n);
+                session.lastActivityMillis = System.currentTimeMillis();
+            }
+        } finally {
+            session.uploading.set(false);
+        }
+        sendJson(exchange, 200, sessionJson(session));
+    }
+
+    /**
+     * 以 NDJSON 持续发送会话的事件，直到会话关闭或客户端断开。
+     */
+    private void streamEvents(HttpExchange exchange, Session session) throws IOException {
+        EventStream events = new EventStream();
+        session.pipeline.getEventBus().subscribe("client-" + session.id, events);
+        session.listeners.incrementAndGet();
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            PipelineEvent event;
+            while ((event = events.take()) != null) {
+                out.write(EventJson.encode(event).getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+                out.flush();
+                events.request();
+            }
+        } catch (IOException e) {
+            log.debug("会话 {} 的事件流客户端已断开: {}", session.id, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            events.cancel();
+            session.listeners.decrementAndGet();
+            session.lastActivityMillis = System.currentTimeMillis();
+        }
+    }
+
+    private void closeSession(Session session) {
+        if (!session.closed.compareAndSet(false, true)) {
+            return;
+        }
+        // 关闭时推送剩余音频和结尾静音，最后一个片段被转录；翻译完成后事件流结束
+        session.pipeline.shutdown();
+        sessions.remove(session.id);
+        MetricsRegistry.global().removeByPrefix(MetricNames.streamStagePrefix(session.id));
+        log.info("会话 {} 已关闭（音频 {} 毫秒，{} 个片段），剩余 {} 个会话", session.id, session.source.getPushedMillis(),
+                session.pipeline.getTranscriptStore().size(), sessions.size());
+    }
+
+    private void closeIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (Session session : sessions.values()) {
+            if (session.isIdle(now, idleTimeoutMillis)) {
+                log.info("会话 {} 空闲超过 {} 毫秒，自动关闭", session.id, idleTimeoutMillis);
+                closeSession(session);
+            }
+        }
+    }
+
+    private JsonObject sessionJson(Session session) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", session.id);
+        json.addProperty("audioMillis", session.source.getPushedMillis());
+        json.addProperty("segments", session.pipeline.getTranscriptStore().size());
+        json.addProperty("closed", session.closed.get());
+        return json;
+    }
+
+    // --- 事件流 ---
+
+    /**
+     * 把事件总线的订阅转换为处理线程上的阻塞读取：每写出一个事件才请求下一个，
+     * 因此缓慢的客户端只会让自己在事件总线中的缓冲区溢出（丢弃并计数），不会影响流水线和其他客户端。
+     */
+    private static final class EventStream implements Flow.Subscriber<PipelineEvent> {
+
+        // 事件流结束的标记
+        private static final PipelineEvent END = new PipelineEvent.StatusChanged("");
+
+        private final LinkedBlockingQueue<PipelineEvent> queue = new LinkedBlockingQueue<>();
+        private volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(PipelineEvent event) {
+            queue.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            queue.add(END);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.add(END);
+        }
+
+        /**
+         * @return 下一个事件；事件流结束时返回null。
+         */
+        PipelineEvent take() throws InterruptedException {
+            PipelineEvent event = queue.take();
+            return event == END ? null : event;
+        }
+
+        void request() {
+            subscription.request(1);
+        }
+
+        void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    // --- 工具方法 ---
+
+    private void sendJson(HttpExchange exchange, int status, JsonObject json) throws IOException {
+        byte[] body = gson.toJson(json).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", message);
+        sendJson(exchange, status, json);
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 每个请求一个虚拟线程（JDK 21+ 的 {@code Executors.newVirtualThreadPerTaskExecutor()}，通过反射获取以便在 Java 17 上编译）；
+     * 不可用时退回到按需创建的守护平台线程。
+     */
+    private static ExecutorService newHandlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("运行时不支持虚拟线程，请求处理使用平台线程");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stream-server-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.polylingoflow.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 捕获线程读取一个音频块。持续时间是阻塞在音频设备上的时间，应接近音频块的时长。
+ * 音频块在 VAD 之前，还不属于任何片段，因此没有关联ID。
+ */
+@Name("com.polylingoflow.CaptureChunk")
+@Label("Capture Chunk")
+@Category({"PolylingoFlow", "Pipeline"})
+@Description("从音频设备读取一个音频块")
+@StackTrace(false)
+public final class CaptureChunkEvent extends jdk.jfr.Event {
+
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+}
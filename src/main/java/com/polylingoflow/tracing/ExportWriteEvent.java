@@ -0,0 +1,30 @@
+package com.polylingoflow.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 实时导出器把一个片段（或它的一个翻译）写入字幕文件。
+ */
+@Name("com.polylingoflow.ExportWrite")
+@Label("Export Write")
+@Category({"PolylingoFlow", "Pipeline"})
+@Description("把一个片段追加到实时字幕文件")
+@StackTrace(false)
+public final class ExportWriteEvent extends jdk.jfr.Event {
+
+    @Label("Stream")
+    @Description("流名称；单路流时为空")
+    public String stream;
+
+    @Label("Correlation ID")
+    @Description("片段序列号")
+    public long correlationId;
+
+    @Label("Language")
+    @Description("翻译的目标语言；写入原文时为空")
+    public String lang;
+}
@@ -0,0 +1,38 @@
+package com.polylingoflow.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 一次 Whisper 推理，不包括等待引擎锁的时间（该时间体现为与上一段之间的空隙）。
+ */
+@Name("com.polylingoflow.Inference")
+@Label("Whisper Inference")
+@Category({"PolylingoFlow", "Pipeline"})
+@Description("对一个片段（或其前缀）运行一次 Whisper 推理")
+@StackTrace(false)
+public final class InferenceEvent extends jdk.jfr.Event {
+
+    @Label("Stream")
+    @Description("流名称；单路流时为空")
+    public String stream;
+
+    @Label("Correlation ID")
+    @Description("片段序列号；与片段无关的调用为-1")
+    public long correlationId;
+
+    @Label("Audio Duration")
+    @Timespan(Timespan.MILLISECONDS)
+    public long audioMillis;
+
+    @Label("Partial")
+    @Description("是否为尚未结束的片段的部分转录")
+    public boolean partial;
+
+    @Label("Text Length")
+    public int textLength;
+}
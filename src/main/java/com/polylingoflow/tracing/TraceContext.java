@@ -0,0 +1,31 @@
+package com.polylingoflow.tracing;
+
+/**
+ * 当前线程正在处理的流，用于给 JFR 事件标上流名称。
+ *
+ * 多路流时每路流的片段序列号都从0开始，只有流名称加上关联ID才能唯一确定一个片段。
+ * 流水线在处理某路流的线程上设置它（阶段工作线程、重排序后的发布），
+ * 共享的组件（引擎池的工作线程、翻译服务）在创建事件时读取调用线程上的值，不必在接口中传递流名称。
+ */
+public final class TraceContext {
+
+    private static final ThreadLocal<String> STREAM = new ThreadLocal<>();
+
+    private TraceContext() {
+    }
+
+    /**
+     * @param streamName 当前线程接下来处理的流；单路流时为null。
+     */
+    public static void setStream(String streamName) {
+        STREAM.set(streamName);
+    }
+
+    /**
+     * @return 当前线程正在处理的流名称；单路流或未设置时为空字符串。
+     */
+    public static String stream() {
+        String streamName = STREAM.get();
+        return streamName == null ? "" : streamName;
+    }
+}
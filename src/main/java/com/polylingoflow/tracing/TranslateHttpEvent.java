@@ -0,0 +1,37 @@
+package com.polylingoflow.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次实际发出的翻译 HTTP 请求，从发送到收到响应（或失败、取消）。
+ * 命中缓存的翻译不会产生此事件；被合并的重复请求只记录发起请求的片段。
+ */
+@Name("com.polylingoflow.TranslateHttp")
+@Label("Translate HTTP")
+@Category({"PolylingoFlow", "Pipeline"})
+@Description("向翻译服务发送的一次 HTTP 请求")
+@StackTrace(false)
+public final class TranslateHttpEvent extends jdk.jfr.Event {
+
+    @Label("Stream")
+    @Description("流名称；单路流时为空")
+    public String stream;
+
+    @Label("Correlation ID")
+    @Description("发起请求的片段序列号；与片段无关的调用为-1")
+    public long correlationId;
+
+    @Label("Target Language")
+    public String targetLang;
+
+    @Label("Text Length")
+    public int textLength;
+
+    @Label("Outcome")
+    @Description("ok、failed 或 cancelled")
+    public String outcome;
+}
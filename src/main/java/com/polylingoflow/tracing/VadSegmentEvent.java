@@ -0,0 +1,37 @@
+package com.polylingoflow.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * VAD 检测到的一个语音片段，从判定语音开始到判定语音结束（包含静音等待窗口）。
+ * 这是每个片段瀑布图的第一段；关联ID就是 VAD 分配的片段序列号，之后的所有事件都沿用它。
+ * 多路流时各路流的序列号都从0开始，片段由流名称（见 {@link TraceContext}）和关联ID一起确定。
+ */
+@Name("com.polylingoflow.VadSegment")
+@Label("VAD Segment")
+@Category({"PolylingoFlow", "Pipeline"})
+@Description("VAD 从语音开始到语音结束的判定过程")
+@StackTrace(false)
+public final class VadSegmentEvent extends jdk.jfr.Event {
+
+    @Label("Stream")
+    @Description("流名称；单路流时为空")
+    public String stream;
+
+    @Label("Correlation ID")
+    @Description("片段序列号")
+    public long correlationId;
+
+    @Label("Audio Start")
+    @Timespan(Timespan.MILLISECONDS)
+    public long startMillis;
+
+    @Label("Audio End")
+    @Timespan(Timespan.MILLISECONDS)
+    public long endMillis;
+}
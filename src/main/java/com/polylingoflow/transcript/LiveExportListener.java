@@ -0,0 +1,48 @@
+package com.polylingoflow.transcript;
+
+import com.polylingoflow.export.LiveSubtitleExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 把转录记录的变化实时写入 {@link LiveSubtitleExporter}。
+ *
+ * 监听器在转录记录的写入线程上同步执行，不经过会丢弃事件的事件流，
+ * 因此流水线关闭（{@code TranscriptionPipeline.shutdown()}）返回时，所有已追加的片段和翻译都已写入导出文件。
+ */
+public final class LiveExportListener implements TranscriptStore.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveExportListener.class);
+
+    private final LiveSubtitleExporter exporter;
+
+    public LiveExportListener(LiveSubtitleExporter exporter) {
+        this.exporter = Objects.requireNonNull(exporter);
+    }
+
+    @Override
+    public void onAppended(int index, TranscriptEntry entry) {
+        try {
+            exporter.append(entry.segment());
+            // 先于片段到达的翻译在追加时已经写入条目
+            for (Map.Entry<String, String> translation : entry.translations().entrySet()) {
+                exporter.appendTranslation(entry.sequence(), translation.getKey(), translation.getValue());
+            }
+        } catch (IOException e) {
+            log.error("实时导出写入失败", e);
+        }
+    }
+
+    @Override
+    public void onTranslated(int index, TranscriptEntry entry, String lang) {
+        try {
+            exporter.appendTranslation(entry.sequence(), lang, entry.translation(lang));
+        } catch (IOException e) {
+            log.error("实时导出写入失败", e);
+        }
+    }
+}
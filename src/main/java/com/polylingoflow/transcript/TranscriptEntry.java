@@ -0,0 +1,63 @@
+package com.polylingoflow.transcript;
+
+import com.polylingoflow.export.TranscriptionSegment;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 转录记录中的一个条目：一个不可变的转录片段，以及随后陆续到达的各语言翻译。
+ * 翻译映射采用写时复制，读取方无需加锁即可得到一致的快照。
+ */
+public final class TranscriptEntry {
+
+    private final TranscriptionSegment segment;
+    private volatile Map<String, String> translations = Map.of();
+
+    TranscriptEntry(TranscriptionSegment segment) {
+        this.segment = segment;
+    }
+
+    public TranscriptionSegment segment() {
+        return segment;
+    }
+
+    public long sequence() {
+        return segment.sequence();
+    }
+
+    public long startTimeMillis() {
+        return segment.startTimeMillis();
+    }
+
+    public long endTimeMillis() {
+        return segment.endTimeMillis();
+    }
+
+    public String text() {
+        return segment.text();
+    }
+
+    /**
+     * @param lang 目标语言代码。
+     * @return 该语言的翻译，如果尚未到达则返回null。
+     */
+    public String translation(String lang) {
+        return translations.get(lang);
+    }
+
+    /**
+     * @return 所有已到达翻译的只读快照（语言代码 → 译文），保持到达顺序。
+     */
+    public Map<String, String> translations() {
+        return translations;
+    }
+
+    // 仅由TranscriptStore在其写锁内调用
+    void putTranslation(String lang, String text) {
+        Map<String, String> updated = new LinkedHashMap<>(translations);
+        updated.put(lang, text);
+        translations = Collections.unmodifiableMap(updated);
+    }
+}
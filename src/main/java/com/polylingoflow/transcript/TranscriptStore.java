@@ -0,0 +1,217 @@
+package com.polylingoflow.transcript;
+
+import com.polylingoflow.export.TranscriptionSegment;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 一个只追加、按片段索引的会话转录记录。
+ *
+ * 条目存放在固定大小的分块数组中，追加时既不复制已有条目，也不复制文本，
+ * 因此即使是数小时的会话，每次追加的开销也是O(1)。
+ * 写入（追加、设置翻译）在内部锁中串行化；读取无锁，
+ * 通过volatile的 {@code size} 发布已写入的条目。
+ *
+ * 导出器可以通过 {@link #segments()} 直接读取同一份数据，无需复制。
+ */
+public class TranscriptStore {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // 每块1024个条目
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * 转录记录变化的监听器。回调在写入线程上执行，必须快速返回。
+     */
+    public interface Listener {
+        /**
+         * @param index 新追加条目的索引。
+         * @param entry 新条目。
+         */
+        void onAppended(int index, TranscriptEntry entry);
+
+        /**
+         * @param index 收到翻译的条目的索引。
+         * @param entry 该条目。
+         * @param lang  翻译的目标语言。
+         */
+        void onTranslated(int index, TranscriptEntry entry, String lang);
+    }
+
+    private final Object writeLock = new Object();
+    private volatile TranscriptEntry[][] chunks = new TranscriptEntry[4][];
+    private volatile int size = 0;
+
+    // 翻译可能先于其转录片段到达，暂存在这里，待片段追加时再写入（由writeLock保护）
+    private final TreeMap<Long, Map<String, String>> earlyTranslations = new TreeMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final List<TranscriptionSegment> segmentView = new SegmentView();
+
+    public void addListener(Listener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 追加一个转录片段。片段必须按序列号递增的顺序追加（流水线的重排序缓冲区丢弃迟到的片段来保证这一点），
+     * {@link #indexOfSequence} 的二分查找和暂存翻译的清理都依赖这个顺序。
+     *
+     * @param segment 转录片段。
+     * @return 新条目的索引。
+     */
+    public int append(TranscriptionSegment segment) {
+        Objects.requireNonNull(segment, "Segment cannot be null");
+        TranscriptEntry entry = new TranscriptEntry(segment);
+        int index;
+        synchronized (writeLock) {
+            index = size;
+            int chunk = index >>> CHUNK_SHIFT;
+            TranscriptEntry[][] current = chunks;
+            if (chunk == current.length) {
+                // 只扩容块指针数组，已有的块和条目不会被复制
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            if (current[chunk] == null) {
+                current[chunk] = new TranscriptEntry[CHUNK_SIZE];
+            }
+            current[chunk][index & CHUNK_MASK] = entry;
+            Map<String, String> early = earlyTranslations.remove(segment.sequence());
+            if (early != null) {
+                early.forEach(entry::putTranslation);
+            }
+            // 更早的序列号不会再被追加，丢弃它们的暂存翻译
+            earlyTranslations.headMap(segment.sequence()).clear();
+            chunks = current;
+            size = index + 1; // volatile写入，发布新条目
+        }
+        for (Listener listener : listeners) {
+            listener.onAppended(index, entry);
+        }
+        return index;
+    }
+
+    /**
+     * 为指定序列号的片段设置某个语言的翻译。
+     * 如果该片段尚未追加，翻译会被暂存，并在片段追加时一并写入。
+     *
+     * @param sequence 片段序列号。
+     * @param lang     目标语言代码。
+     * @param text     翻译文本。
+     * @return 如果片段已存在并被立即更新则返回true；暂存时返回false。
+     */
+    public boolean setTranslation(long sequence, String lang, String text) {
+        int index;
+        TranscriptEntry entry;
+        synchronized (writeLock) {
+            index = indexOfSequence(sequence);
+            if (index < 0) {
+                earlyTranslations.computeIfAbsent(sequence, s -> new HashMap<>()).put(lang, text);
+                return false;
+            }
+            entry = get(index);
+            entry.putTranslation(lang, text);
+        }
+        for (Listener listener : listeners) {
+            listener.onTranslated(index, entry, lang);
+        }
+        return true;
+    }
+
+    /**
+     * @return 已追加的条目数量。
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index 条目索引，必须小于 {@link #size()}。
+     * @return 该条目。
+     */
+    public TranscriptEntry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * 通过二分查找定位序列号对应的条目索引（条目按序列号递增追加）。
+     *
+     * @param sequence 片段序列号。
+     * @return 条目索引；未找到时返回负数。
+     */
+    public int indexOfSequence(long sequence) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midSequence = get(mid).sequence();
+            if (midSequence < sequence) {
+                low = mid + 1;
+            } else if (midSequence > sequence) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return 一个只读、随机访问的片段列表视图，直接读取本存储，不复制数据。
+     *         视图的大小随追加而增长。
+     */
+    public List<TranscriptionSegment> segments() {
+        return segmentView;
+    }
+
+    /**
+     * @param lang 目标语言代码。
+     * @return 一个只读视图，其中每个片段的文本替换为该语言的翻译（尚无翻译时为空字符串）。
+     */
+    public List<TranscriptionSegment> translatedSegments(String lang) {
+        return new AbstractList<>() {
+            @Override
+            public TranscriptionSegment get(int index) {
+                TranscriptionSegment segment = TranscriptStore.this.get(index).segment();
+                String translated = TranscriptStore.this.get(index).translation(lang);
+                return new TranscriptionSegment(segment.sequence(), segment.startTimeMillis(),
+                        segment.endTimeMillis(), translated != null ? translated : "");
+            }
+
+            @Override
+            public int size() {
+                return TranscriptStore.this.size();
+            }
+        };
+    }
+
+    private final class SegmentView extends AbstractList<TranscriptionSegment> implements RandomAccess {
+        @Override
+        public TranscriptionSegment get(int index) {
+            return TranscriptStore.this.get(index).segment();
+        }
+
+        @Override
+        public int size() {
+            return TranscriptStore.this.size();
+        }
+    }
+}
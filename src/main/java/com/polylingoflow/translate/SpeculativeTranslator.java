@@ -0,0 +1,188 @@
+package com.polylingoflow.translate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于部分转录结果的推测式翻译。
+ *
+ * 在语音片段结束之前，对连续两次部分转录中保持不变的“稳定前缀”提前发起翻译。
+ * 当新的稳定前缀替代了旧的输入时，取消仍在进行中的旧请求；
+ * 当最终文本与推测输入一致时，直接采用推测结果，从而缩短用户感知到的延迟。
+ *
+ * 推测会同时覆盖所有目标语言。
+ * 每个语音片段由调用方提供的片段ID标识，过期片段的部分结果会被忽略。
+ * 此类是线程安全的。
+ */
+public class SpeculativeTranslator {
+
+    private static final Logger log = LoggerFactory.getLogger(SpeculativeTranslator.class);
+
+    private final TranslatorService translator;
+    private final String sourceLang;
+    private final List<String> targetLangs;
+
+    // --- 内部状态（由this保护） ---
+    private long currentSegmentId = -1;
+    private String lastPartial = "";
+    private Speculation inFlight;
+
+    // --- 统计 ---
+    private final AtomicLong speculationsStarted = new AtomicLong();
+    private final AtomicLong speculationsCancelled = new AtomicLong();
+    private final AtomicLong speculationsAdopted = new AtomicLong();
+
+    /**
+     * 一次推测式翻译：输入文本及其在各目标语言上的翻译future。
+     */
+    private record Speculation(String input, Map<String, CompletableFuture<String>> futures) {
+
+        boolean anyFailed() {
+            return futures.values().stream().anyMatch(CompletableFuture::isCompletedExceptionally);
+        }
+
+        boolean cancel() {
+            boolean cancelled = false;
+            for (CompletableFuture<String> future : futures.values()) {
+                cancelled |= future.cancel(true);
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * @param translator 实际执行翻译的服务。
+     * @param sourceLang 源语言代码（例如, "en"）。
+     * @param targetLangs 目标语言代码列表（例如, ["zh", "ja"]）。
+     */
+    public SpeculativeTranslator(TranslatorService translator, String sourceLang, List<String> targetLangs) {
+        this.translator = Objects.requireNonNull(translator, "TranslatorService cannot be null");
+        this.sourceLang = sourceLang;
+        this.targetLangs = List.copyOf(targetLangs);
+    }
+
+    /**
+     * 提交某个片段的一次部分转录结果。
+     * 若其稳定前缀与正在进行的推测不同，则取消旧请求并对新前缀发起翻译。
+     *
+     * @param segmentId   片段ID，必须随新片段单调递增。
+     * @param partialText 当前的部分转录文本。
+     */
+    public synchronized void onPartial(long segmentId, String partialText) {
+        if (segmentId < currentSegmentId || partialText == null) {
+            return; // 过期片段的部分结果
+        }
+        if (segmentId > currentSegmentId) {
+            cancelInFlight();
+            currentSegmentId = segmentId;
+            lastPartial = "";
+        }
+
+        String stable = stablePrefix(lastPartial, partialText);
+        lastPartial = partialText;
+        if (stable.isEmpty()) {
+            return;
+        }
+        if (inFlight != null) {
+            if (inFlight.input().equals(stable)) {
+                return; // 已在翻译同样的前缀
+            }
+            cancelInFlight();
+        }
+
+        log.debug("片段 {} 发起推测式翻译，稳定前缀长度: {}", segmentId, stable.length());
+        inFlight = new Speculation(stable, translator.fanOut(stable, sourceLang, targetLangs, segmentId));
+        speculationsStarted.incrementAndGet();
+    }
+
+    /**
+     * 提交某个片段的最终转录结果并返回其翻译。
+     * 若最终文本与推测输入一致，则直接采用推测结果；否则取消推测并重新翻译。
+     *
+     * @param segmentId 片段ID。
+     * @param finalText 最终转录文本。
+     * @return 按目标语言索引的、以翻译后的文本完成的future。
+     */
+    public synchronized Map<String, CompletableFuture<String>> onFinal(long segmentId, String finalText) {
+        Speculation speculation = segmentId == currentSegmentId ? inFlight : null;
+        if (segmentId >= currentSegmentId) {
+            if (speculation == null) {
+                cancelInFlight();
+            }
+            inFlight = null;
+            currentSegmentId = segmentId + 1; // 该片段之后到达的部分结果都视为过期
+            lastPartial = "";
+        }
+
+        String normalized = finalText == null ? "" : finalText.strip();
+        if (speculation != null) {
+            if (speculation.input().equals(normalized) && !speculation.anyFailed()) {
+                speculationsAdopted.incrementAndGet();
+                log.debug("片段 {} 采用了推测式翻译结果。", segmentId);
+                return speculation.futures();
+            }
+            speculation.cancel();
+            speculationsCancelled.incrementAndGet();
+        }
+        return translator.fanOut(normalized, sourceLang, targetLangs, segmentId);
+    }
+
+    /**
+     * 取消所有进行中的推测（例如，录音停止时）。
+     */
+    public synchronized void reset() {
+        cancelInFlight();
+        lastPartial = "";
+    }
+
+    public long getSpeculationsStarted() {
+        return speculationsStarted.get();
+    }
+
+    public long getSpeculationsCancelled() {
+        return speculationsCancelled.get();
+    }
+
+    public long getSpeculationsAdopted() {
+        return speculationsAdopted.get();
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) {
+            if (inFlight.cancel()) {
+                speculationsCancelled.incrementAndGet();
+            }
+            inFlight = null;
+        }
+    }
+
+    /**
+     * 计算两次部分转录的公共前缀，并回退到最后一个词或标点边界，
+     * 避免把仍可能变化的半个单词送去翻译。
+     */
+    static String stablePrefix(String previous, String current) {
+        int limit = Math.min(previous.length(), current.length());
+        int common = 0;
+        while (common < limit && previous.charAt(common) == current.charAt(common)) {
+            common++;
+        }
+        if (common == current.length()) {
+            return current.strip(); // 与上次完全一致，整体视为稳定
+        }
+        int boundary = common;
+        while (boundary > 0 && !isBoundary(current.charAt(boundary - 1))) {
+            boundary--;
+        }
+        return current.substring(0, boundary).strip();
+    }
+
+    private static boolean isBoundary(char c) {
+        return Character.isWhitespace(c) || ",.!?;:，。！？；：、".indexOf(c) >= 0;
+    }
+}
@@ -2,15 +2,26 @@ package com.polylingoflow.translate;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.tracing.TraceContext;
+import com.polylingoflow.tracing.TranslateHttpEvent;
 import okhttp3.*;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 使用REST API（例如，Google Translate, LibreTranslate）进行文本翻译的服务。
@@ -19,42 +30,239 @@ import java.util.concurrent.TimeUnit;
 public class TranslatorService {
 
     private static final Logger log = LoggerFactory.getLogger(TranslatorService.class);
+    private static final LatencyHistogram roundTripTime = MetricsRegistry.global().histogram(MetricNames.TRANSLATE_RTT);
+    private static final LongAdder failures = MetricsRegistry.global().counter(MetricNames.TRANSLATE_FAILURES);
 
-    // 配置一个带有超时设置的OkHttpClient，以提高健壮性
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(10, TimeUnit.SECONDS)
-            .writeTimeout(10, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .build();
+    /**
+     * 所有实例共享的HTTP客户端和JSON解析器。放在持有类中，第一次发送翻译请求时才加载 OkHttp 和 Gson，
+     * 并创建连接池和调度线程，而不是在构造流水线时。
+     */
+    private static final class Http {
+        // 配置一个带有超时设置的OkHttpClient，以提高健壮性
+        static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .writeTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
 
-    private final Gson gson = new Gson();
+        static final Gson GSON = new Gson();
+    }
 
     // LibreTranslate的公共API端点
     private static final String TRANSLATE_API_URL = "https://libretranslate.de/translate";
 
+    private final String apiUrl;
+
     /**
      * 用于解析LibreTranslate API响应的内部数据类。
      * 使用Java record可以简洁地定义一个不可变的数据载体。
      */
     private record TranslationResponse(String translatedText) {}
 
+    // 已完成翻译的LRU缓存容量
+    private static final int RESULT_CACHE_CAPACITY = 512;
+
+    /**
+     * 缓存和去重的键：同一源文本、同一语言对只会发起一次请求。
+     */
+    private record TranslationKey(String sourceLang, String targetLang, String text) {}
+
+    // --- 共享的缓存与去重状态（由cacheLock保护） ---
+    private final Object cacheLock = new Object();
+    private final Map<TranslationKey, SharedTranslation> inFlight = new HashMap<>();
+    private final Map<TranslationKey, String> resultCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TranslationKey, String> eldest) {
+            return size() > RESULT_CACHE_CAPACITY;
+        }
+    };
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong dedupHits = new AtomicLong();
+    private final AtomicLong requestsSent = new AtomicLong();
+
+    /**
+     * 一个可被多个调用方共享的进行中请求。
+     * 每个调用方得到自己的视图future；只有当所有调用方都取消后，底层HTTP调用才会被取消。
+     */
+    private final class SharedTranslation {
+        private final CompletableFuture<String> call;
+        private int subscribers;
+
+        SharedTranslation(CompletableFuture<String> call) {
+            this.call = call;
+        }
+
+        // 调用方需持有cacheLock
+        CompletableFuture<String> subscribe() {
+            subscribers++;
+            CompletableFuture<String> view = call.copy();
+            view.whenComplete((result, error) -> {
+                if (view.isCancelled()) {
+                    release();
+                }
+            });
+            return view;
+        }
+
+        private void release() {
+            synchronized (cacheLock) {
+                if (--subscribers == 0 && !call.isDone()) {
+                    call.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 使用 LibreTranslate 的公共API端点。
+     */
+    public TranslatorService() {
+        this(TRANSLATE_API_URL);
+    }
+
+    /**
+     * @param apiUrl 兼容 LibreTranslate 的翻译端点（例如自建实例，或基准测试中的本地模拟服务器）。
+     */
+    public TranslatorService(String apiUrl) {
+        this.apiUrl = Objects.requireNonNull(apiUrl);
+    }
+
     /**
      * 异步翻译文本。
+     * 相同的源文本和语言对会命中结果缓存，或与正在进行的相同请求合并，而不会重复发送。
      *
      * @param text       要翻译的文本。
      * @param sourceLang 源语言代码（例如, "en"）。
      * @param targetLang 目标语言代码（例如, "zh"）。
      * @return 一个CompletableFuture，它将以翻译后的文本完成。如果发生错误，它将以异常完成。
+     *         取消此future（{@code future.cancel(true)}）会同时取消底层的OkHttp调用，释放后端资源。
      */
     public CompletableFuture<String> translateAsync(String text, String sourceLang, String targetLang) {
-        CompletableFuture<String> future = new CompletableFuture<>();
+        return translateAsync(text, sourceLang, targetLang, -1);
+    }
 
+    /**
+     * 异步翻译某个片段的文本。与 {@link #translateAsync(String, String, String)} 相同，
+     * 但实际发出的 HTTP 请求会以片段的关联ID记录 JFR 事件。
+     *
+     * @param text          要翻译的文本。
+     * @param sourceLang    源语言代码。
+     * @param targetLang    目标语言代码。
+     * @param correlationId 片段序列号。
+     * @return 以翻译后的文本完成的future。
+     */
+    public CompletableFuture<String> translateAsync(String text, String sourceLang, String targetLang,
+                                                    long correlationId) {
         if (text == null || text.isBlank()) {
             log.warn("翻译文本为空，提前返回。");
-            future.complete(""); // 对于空输入，直接返回空字符串
-            return future;
+            return CompletableFuture.completedFuture(""); // 对于空输入，直接返回空字符串
+        }
+        if (Objects.equals(sourceLang, targetLang)) {
+            return CompletableFuture.completedFuture(text);
         }
 
+        TranslationKey key = new TranslationKey(sourceLang, targetLang, text);
+        synchronized (cacheLock) {
+            String cached = resultCache.get(key);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                return CompletableFuture.completedFuture(cached);
+            }
+
+            SharedTranslation shared = inFlight.get(key);
+            if (shared == null) {
+                shared = new SharedTranslation(executeTranslation(text, sourceLang, targetLang, correlationId));
+                inFlight.put(key, shared);
+                SharedTranslation registered = shared;
+                shared.call.whenComplete((result, error) -> {
+                    synchronized (cacheLock) {
+                        inFlight.remove(key, registered);
+                        if (error == null) {
+                            resultCache.put(key, result);
+                        }
+                    }
+                });
+            } else {
+                dedupHits.incrementAndGet();
+            }
+            return shared.subscribe();
+        }
+    }
+
+    /**
+     * 将同一段源文本并发地翻译为多个目标语言。
+     * 各目标语言的请求同时发出并共享缓存与去重，因此总延迟取决于最慢的目标语言，而不是各语言之和。
+     *
+     * @param text        要翻译的文本。
+     * @param sourceLang  源语言代码。
+     * @param targetLangs 目标语言代码列表，重复项会被合并。
+     * @return 按目标语言（保持输入顺序）索引的future。
+     */
+    public Map<String, CompletableFuture<String>> fanOut(String text, String sourceLang, Collection<String> targetLangs) {
+        return fanOut(text, sourceLang, targetLangs, -1);
+    }
+
+    /**
+     * 与 {@link #fanOut(String, String, Collection)} 相同，并把片段的关联ID传给每个目标语言的请求。
+     *
+     * @param correlationId 片段序列号。
+     */
+    public Map<String, CompletableFuture<String>> fanOut(String text, String sourceLang, Collection<String> targetLangs,
+                                                         long correlationId) {
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        for (String targetLang : targetLangs) {
+            futures.computeIfAbsent(targetLang, lang -> translateAsync(text, sourceLang, lang, correlationId));
+        }
+        return futures;
+    }
+
+    /**
+     * 将同一段源文本翻译为多个目标语言，并在所有目标语言完成后一次性返回结果。
+     * 失败的目标语言会被记录并从结果中省略，不会影响其他语言。
+     *
+     * @param text        要翻译的文本。
+     * @param sourceLang  源语言代码。
+     * @param targetLangs 目标语言代码列表。
+     * @return 以“目标语言 → 译文”映射完成的future。
+     */
+    public CompletableFuture<Map<String, String>> translateAllAsync(String text, String sourceLang, Collection<String> targetLangs) {
+        Map<String, CompletableFuture<String>> futures = fanOut(text, sourceLang, targetLangs);
+        return CompletableFuture.allOf(futures.values().stream()
+                        .map(f -> f.handle((result, error) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<String, String> results = new LinkedHashMap<>();
+                    futures.forEach((lang, future) -> {
+                        if (future.isCompletedExceptionally()) {
+                            log.warn("目标语言 {} 翻译失败。", lang);
+                        } else {
+                            results.put(lang, future.join());
+                        }
+                    });
+                    return results;
+                });
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getDedupHits() {
+        return dedupHits.get();
+    }
+
+    public long getRequestsSent() {
+        return requestsSent.get();
+    }
+
+    /**
+     * 实际向翻译API发送一次请求。
+     */
+    private CompletableFuture<String> executeTranslation(String text, String sourceLang, String targetLang,
+                                                         long correlationId) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+
         // 为LibreTranslate API构建请求体
         RequestBody body = new FormBody.Builder()
                 .add("q", text)
@@ -64,16 +272,49 @@ public class TranslatorService {
                 .build();
 
         Request request = new Request.Builder()
-                .url(TRANSLATE_API_URL)
+                .url(apiUrl)
                 .post(body)
                 .build();
 
-        log.debug("向 {} 发送翻译请求...", TRANSLATE_API_URL);
+        log.debug("向 {} 发送翻译请求...", apiUrl);
+        requestsSent.incrementAndGet();
+
+        Call call = Http.CLIENT.newCall(request);
+        long startNanos = System.nanoTime();
+        TranslateHttpEvent event = new TranslateHttpEvent();
+        // 回调在 OkHttp 的线程上执行，流名称要在调用线程上取得
+        String stream = TraceContext.stream();
+        event.begin();
+        // 调用方取消future时，同步取消底层的HTTP调用，避免被替代的请求继续占用后端
+        future.whenComplete((result, error) -> {
+            if (event.shouldCommit()) {
+                event.stream = stream;
+                event.correlationId = correlationId;
+                event.targetLang = targetLang;
+                event.textLength = text.length();
+                event.outcome = future.isCancelled() || call.isCanceled() ? "cancelled" : error != null ? "failed" : "ok";
+                event.commit();
+            }
+            if (future.isCancelled()) {
+                call.cancel();
+                return;
+            }
+            roundTripTime.recordSince(startNanos);
+            if (error != null && !call.isCanceled()) {
+                failures.increment();
+            }
+        });
 
         // 使用OkHttp的异步`enqueue`方法执行请求
-        client.newCall(request).enqueue(new Callback() {
+        call.enqueue(new Callback() {
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                if (call.isCanceled()) {
+                    // 主动取消的请求不是错误
+                    log.debug("翻译请求已取消。");
+                    future.completeExceptionally(e);
+                    return;
+                }
                 // 网络层面的失败 (例如, 无法连接服务器)
                 log.error("翻译请求失败: {}", e.getMessage());
                 future.completeExceptionally(e);
@@ -101,7 +342,7 @@ public class TranslatorService {
 
                     // 解析JSON响应
                     String jsonString = responseBody.string();
-                    TranslationResponse translationResponse = gson.fromJson(jsonString, TranslationResponse.class);
+                    TranslationResponse translationResponse = Http.GSON.fromJson(jsonString, TranslationResponse.class);
 
                     String translatedText = Objects.requireNonNull(translationResponse.translatedText, "解析出的翻译文本为null");
                     log.info("成功翻译文本。");
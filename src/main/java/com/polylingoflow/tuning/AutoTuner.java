@@ -0,0 +1,320 @@
+package com.polylingoflow.tuning;
+
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.pipeline.Stage;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.whisper.RecognizerPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 运行时的反馈调优器：周期性地观察推理实时率、语音识别积压和进程CPU利用率，在安全范围内调整
+ * <ul>
+ *   <li>共享引擎池中参与推理的引擎数：有积压且CPU有余量时增加，CPU已饱和时减少（更多并行推理只会互相争用）；</li>
+ *   <li>VAD 静音窗口：过载时加长（更少、更长的片段，摊薄每次推理的固定开销），空闲时逐步恢复到配置值以降低延迟；</li>
+ *   <li>部分转录间隔（它同时决定推测式翻译的批量大小）：过载时加长，把推理时间留给最终转录，空闲时逐步恢复。</li>
+ * </ul>
+ * 每次调整只移动一步，并且只在信号明确时调整，避免来回振荡。
+ * 当前值、观测信号和手动覆盖通过 JMX 暴露（见 {@link AutoTunerMBean}）。
+ */
+public class AutoTuner implements AutoTunerMBean, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AutoTuner.class);
+
+    private static final String OBJECT_NAME = "com.polylingoflow:type=AutoTuner";
+
+    // 安全范围
+    static final int MIN_SILENCE_MILLIS = 300;
+    static final int MAX_SILENCE_MILLIS = 1500;
+    static final int MIN_PARTIAL_INTERVAL_MILLIS = 500;
+    static final int MAX_PARTIAL_INTERVAL_MILLIS = 6000;
+
+    // 每次调整的步长
+    private static final int SILENCE_STEP_MILLIS = 100;
+    private static final int PARTIAL_STEP_MILLIS = 500;
+
+    // 判定阈值
+    private static final int BACKLOG_HIGH = 2;
+    private static final double RTF_HIGH = 0.8;
+    private static final double RTF_LOW = 0.5;
+    private static final double CPU_HIGH = 0.9;
+
+    private final Supplier<? extends Collection<TranscriptionPipeline>> pipelines;
+    private final RecognizerPool recognizerPool;
+    private final int baseSilenceMillis;
+    private final LongAdder inferenceNanos = MetricsRegistry.global().counter(MetricNames.WHISPER_INFERENCE_NANOS);
+    private final LongAdder audioNanos = MetricsRegistry.global().counter(MetricNames.WHISPER_AUDIO_NANOS);
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "auto-tuner");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // --- 当前值和覆盖（由this保护） ---
+    private boolean enabled;
+    private int silenceMillis;
+    private int partialIntervalMillis = TranscriptionPipeline.DEFAULT_PARTIAL_INTERVAL_MILLIS;
+    private boolean enginesOverridden;
+    private boolean silenceOverridden;
+    private boolean partialOverridden;
+
+    // --- 最近一个周期的观测 ---
+    private long lastInferenceNanos;
+    private long lastAudioNanos;
+    private double realTimeFactor;
+    private double cpuLoad = -1;
+    private int backlog;
+
+    /**
+     * 创建并启动调优器。
+     *
+     * @param pipelines         返回当前所有流水线（流式服务中会话随时增减）；每个周期把当前值应用到所有流水线。
+     * @param recognizerPool    共享的引擎池；为null时不调整引擎数。
+     * @param baseSilenceMillis 配置的静音窗口，空闲时恢复到此值。
+     * @param intervalMillis    调整周期（毫秒）。
+     * @param enabled           是否自动调整；为false时只观测，参数仍可以通过 JMX 手动设置。
+     */
+    public AutoTuner(Supplier<? extends Collection<TranscriptionPipeline>> pipelines, RecognizerPool recognizerPool,
+                     int baseSilenceMillis, long intervalMillis, boolean enabled) {
+        this.pipelines = pipelines;
+        this.recognizerPool = recognizerPool;
+        this.baseSilenceMillis = baseSilenceMillis;
+        this.silenceMillis = baseSilenceMillis;
+        this.enabled = enabled;
+        this.lastInferenceNanos = inferenceNanos.sum();
+        this.lastAudioNanos = audioNanos.sum();
+        timer.scheduleWithFixedDelay(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("自动调优器已启动：周期 {} 毫秒，{}", intervalMillis, enabled ? "自动调整" : "仅观测");
+    }
+
+    /**
+     * 把调优器注册到平台 MBean 服务器。重复注册会被忽略。
+     */
+    public void registerJmx() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                log.info("自动调优器已通过 JMX 暴露: {}", OBJECT_NAME);
+            }
+        } catch (JMException e) {
+            log.warn("无法注册自动调优器 MBean: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.debug("注销自动调优器 MBean 失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 一个调整周期：采样信号，按需移动一步，然后把当前值应用到所有流水线。
+     */
+    synchronized void tick() {
+        try {
+            observe();
+            if (enabled) {
+                adjust();
+            }
+            apply();
+        } catch (RuntimeException e) {
+            log.error("自动调优周期失败", e);
+        }
+    }
+
+    private void observe() {
+        long inference = inferenceNanos.sum();
+        long audio = audioNanos.sum();
+        realTimeFactor = audio > lastAudioNanos ? (inference - lastInferenceNanos) / (double) (audio - lastAudioNanos) : 0;
+        lastInferenceNanos = inference;
+        lastAudioNanos = audio;
+
+        int waiting = recognizerPool != null ? recognizerPool.getWaitingCount() : 0;
+        for (TranscriptionPipeline pipeline : pipelines.get()) {
+            for (Stage<?> stage : pipeline.getStages()) {
+                if (stage.getName().endsWith("asr")) {
+                    waiting += stage.getQueueDepth();
+                }
+            }
+        }
+        backlog = waiting;
+
+        cpuLoad = os instanceof com.sun.management.OperatingSystemMXBean sun ? sun.getProcessCpuLoad() : -1;
+    }
+
+    private void adjust() {
+        boolean overloaded = backlog >= BACKLOG_HIGH || realTimeFactor > RTF_HIGH;
+        boolean relaxed = backlog == 0 && realTimeFactor < RTF_LOW;
+        boolean cpuSaturated = cpuLoad >= CPU_HIGH;
+        List<String> changes = new ArrayList<>();
+
+        if (recognizerPool != null && !enginesOverridden) {
+            int engines = recognizerPool.getActiveEngines();
+            int target = engines;
+            if (cpuSaturated && engines > 1) {
+                target = engines - 1;
+            } else if (backlog > 0 && cpuLoad >= 0 && !cpuSaturated) {
+                target = engines + 1;
+            }
+            target = recognizerPool.setActiveEngines(target);
+            if (target != engines) {
+                changes.add("引擎 " + engines + " → " + target);
+            }
+        }
+        if (!silenceOverridden) {
+            int target = overloaded ? Math.min(MAX_SILENCE_MILLIS, silenceMillis + SILENCE_STEP_MILLIS)
+                    : relaxed ? Math.max(baseSilenceMillis, silenceMillis - SILENCE_STEP_MILLIS) : silenceMillis;
+            if (target != silenceMillis) {
+                changes.add("静音窗口 " + silenceMillis + " → " + target + "ms");
+                silenceMillis = target;
+            }
+        }
+        if (!partialOverridden) {
+            int base = TranscriptionPipeline.DEFAULT_PARTIAL_INTERVAL_MILLIS;
+            int target = overloaded ? Math.min(MAX_PARTIAL_INTERVAL_MILLIS, partialIntervalMillis + 2 * PARTIAL_STEP_MILLIS)
+                    : relaxed ? Math.max(base, partialIntervalMillis - PARTIAL_STEP_MILLIS) : partialIntervalMillis;
+            if (target != partialIntervalMillis) {
+                changes.add("部分转录间隔 " + partialIntervalMillis + " → " + target + "ms");
+                partialIntervalMillis = target;
+            }
+        }
+        if (!changes.isEmpty()) {
+            log.info("自动调优（实时率 {}，积压 {}，CPU {}）: {}", String.format("%.2f", realTimeFactor), backlog,
+                    cpuLoad < 0 ? "未知" : String.format("%.0f%%", cpuLoad * 100), String.join("，", changes));
+        }
+    }
+
+    private void apply() {
+        for (TranscriptionPipeline pipeline : pipelines.get()) {
+            if (pipeline.getVadSilenceMillis() != silenceMillis) {
+                pipeline.setVadSilenceMillis(silenceMillis);
+            }
+            if (pipeline.getPartialIntervalMillis() != partialIntervalMillis) {
+                pipeline.setPartialIntervalMillis(partialIntervalMillis);
+            }
+        }
+    }
+
+    // --- JMX ---
+
+    @Override
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        log.info("自动调优已{}", enabled ? "启用" : "停用");
+    }
+
+    @Override
+    public synchronized int getActiveEngines() {
+        return recognizerPool != null ? recognizerPool.getActiveEngines() : 0;
+    }
+
+    @Override
+    public synchronized void setActiveEngines(int engines) {
+        if (recognizerPool == null) {
+            throw new IllegalStateException("没有共享的语音识别引擎池");
+        }
+        enginesOverridden = true;
+        log.info("手动设置引擎数: {}", recognizerPool.setActiveEngines(engines));
+    }
+
+    @Override
+    public int getMaxEngines() {
+        return recognizerPool != null ? recognizerPool.getSize() : 0;
+    }
+
+    @Override
+    public synchronized int getSilenceMillis() {
+        return silenceMillis;
+    }
+
+    @Override
+    public synchronized void setSilenceMillis(int silenceMillis) {
+        this.silenceMillis = Math.max(MIN_SILENCE_MILLIS, Math.min(MAX_SILENCE_MILLIS, silenceMillis));
+        silenceOverridden = true;
+        apply();
+        log.info("手动设置静音窗口: {}ms", this.silenceMillis);
+    }
+
+    @Override
+    public synchronized int getPartialIntervalMillis() {
+        return partialIntervalMillis;
+    }
+
+    @Override
+    public synchronized void setPartialIntervalMillis(int intervalMillis) {
+        this.partialIntervalMillis = Math.max(MIN_PARTIAL_INTERVAL_MILLIS,
+                Math.min(MAX_PARTIAL_INTERVAL_MILLIS, intervalMillis));
+        partialOverridden = true;
+        apply();
+        log.info("手动设置部分转录间隔: {}ms", this.partialIntervalMillis);
+    }
+
+    @Override
+    public synchronized double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+
+    @Override
+    public synchronized double getCpuLoad() {
+        return cpuLoad;
+    }
+
+    @Override
+    public synchronized int getBacklog() {
+        return backlog;
+    }
+
+    @Override
+    public synchronized String getOverrides() {
+        List<String> names = new ArrayList<>();
+        if (enginesOverridden) {
+            names.add("ActiveEngines");
+        }
+        if (silenceOverridden) {
+            names.add("SilenceMillis");
+        }
+        if (partialOverridden) {
+            names.add("PartialIntervalMillis");
+        }
+        return String.join(",", names);
+    }
+
+    @Override
+    public synchronized void clearOverrides() {
+        enginesOverridden = false;
+        silenceOverridden = false;
+        partialOverridden = false;
+        log.info("已清除手动覆盖，恢复自动调优。");
+    }
+}
@@ -0,0 +1,67 @@
+package com.polylingoflow.tuning;
+
+/**
+ * {@link AutoTuner} 的 JMX 接口（{@code com.polylingoflow:type=AutoTuner}）。
+ *
+ * 可写的属性是手动覆盖：写入后该参数不再被自动调整，直到调用 {@link #clearOverrides()}。
+ */
+public interface AutoTunerMBean {
+
+    /**
+     * @return 是否自动调整未被覆盖的参数。
+     */
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return 参与推理的引擎数；没有共享引擎池时为0。
+     */
+    int getActiveEngines();
+
+    void setActiveEngines(int engines);
+
+    /**
+     * @return 共享引擎池中的引擎总数（活动引擎数的上限）。
+     */
+    int getMaxEngines();
+
+    /**
+     * @return VAD 判定语音结束所需的静音时长（毫秒）。
+     */
+    int getSilenceMillis();
+
+    void setSilenceMillis(int silenceMillis);
+
+    /**
+     * @return 生成部分转录（以及推测式翻译）的间隔（毫秒）。
+     */
+    int getPartialIntervalMillis();
+
+    void setPartialIntervalMillis(int intervalMillis);
+
+    /**
+     * @return 最近一个调整周期内的推理实时率；该周期没有推理时为0。
+     */
+    double getRealTimeFactor();
+
+    /**
+     * @return 最近一个调整周期结束时进程的CPU利用率（0到1）；无法获取时为-1。
+     */
+    double getCpuLoad();
+
+    /**
+     * @return 最近一个调整周期结束时等待语音识别的片段数。
+     */
+    int getBacklog();
+
+    /**
+     * @return 当前被手动覆盖的参数名称，逗号分隔。
+     */
+    String getOverrides();
+
+    /**
+     * 清除所有手动覆盖，恢复自动调整。
+     */
+    void clearOverrides();
+}
@@ -2,7 +2,14 @@ package com.polylingoflow.ui;
 
 import com.polylingoflow.bridge.Bridge;
 import com.polylingoflow.export.Exporter;
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.metrics.MetricsJmx;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.metrics.MetricsReporter;
+import com.polylingoflow.transcript.TranscriptEntry;
+import com.polylingoflow.transcript.TranscriptStore;
 import javafx.beans.binding.Bindings;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.FileChooser;
@@ -11,6 +18,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * 主UI（MainView.fxml）的控制器。
@@ -20,15 +29,16 @@ public class MainController {
 
     private static final Logger log = LoggerFactory.getLogger(MainController.class);
 
+    // 状态栏指标摘要的刷新间隔
+    private static final long METRICS_REFRESH_MILLIS = 1000;
+
     // 假设你的 FXML 中有一个用于显示状态的 Label
     @FXML
     private Label statusLabel;
 
+    // 虚拟化的转录列表：只渲染可见的片段，历史再长也不会重建整段文本
     @FXML
-    private TextArea originalTextArea;
-
-    @FXML
-    private TextArea translatedTextArea;
+    private ListView<TranscriptEntry> transcriptListView;
 
     @FXML
     private Button startStopButton;
@@ -47,9 +57,19 @@ public class MainController {
     public void initialize() {
         // 将UI组件的属性绑定到Bridge中的属性
         // 这是单向绑定，UI会随着Bridge中的数据变化而自动更新
-        originalTextArea.textProperty().bind(bridge.transcribedTextProperty());
-        translatedTextArea.textProperty().bind(bridge.translatedTextProperty());
-        statusLabel.textProperty().bind(bridge.statusTextProperty());
+        transcriptListView.setItems(bridge.getTranscriptItems());
+        transcriptListView.setCellFactory(listView -> new TranscriptCell());
+        // 状态栏：状态消息后面跟着紧凑的指标摘要（有数据后才显示）
+        statusLabel.textProperty().bind(Bindings.when(bridge.metricsSummaryProperty().isEmpty())
+                .then(bridge.statusTextProperty())
+                .otherwise(Bindings.concat(bridge.statusTextProperty(), "  |  ", bridge.metricsSummaryProperty())));
+        MetricsJmx.register(MetricsRegistry.global());
+        // 报告线程是守护线程，随应用程序一起退出
+        new MetricsReporter(MetricsRegistry.global(), METRICS_REFRESH_MILLIS, null, bridge::setMetricsSummary);
+
+        // 新片段到达时自动滚动到底部
+        bridge.getTranscriptItems().addListener((ListChangeListener<TranscriptEntry>) change ->
+                transcriptListView.scrollTo(bridge.getTranscriptItems().size() - 1));
 
         // 使用Bindings API来根据录音状态动态改变按钮文本
         // 当 bridge.recordingProperty() 为 true 时，文本为 "停止录音"
@@ -61,7 +81,7 @@ public class MainController {
         );
 
         // 导出按钮只有在有内容可导出时才可用
-        exportButton.disableProperty().bind(bridge.transcribedTextProperty().isEmpty());
+        exportButton.disableProperty().bind(Bindings.isEmpty(bridge.getTranscriptItems()));
 
         log.info("MainController 初始化完成，UI组件已绑定。");
     }
@@ -87,6 +107,11 @@ public class MainController {
     @FXML
     private void onExportClick() {
         log.info("导出按钮被点击。");
+        TranscriptStore store = bridge.getTranscriptStore();
+        if (store == null) {
+            log.warn("后端尚未启动，没有可导出的转录记录。");
+            return;
+        }
 
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("导出转录结果");
@@ -94,19 +119,26 @@ public class MainController {
 
         // 设置文件类型过滤器
         FileChooser.ExtensionFilter txtFilter = new FileChooser.ExtensionFilter("文本文档 (*.txt)", "*.txt");
-        // TODO: 当你可以生成带时间戳的片段时，可以启用这些过滤器
-        // FileChooser.ExtensionFilter srtFilter = new FileChooser.ExtensionFilter("SRT 字幕 (*.srt)", "*.srt");
-        // FileChooser.ExtensionFilter vttFilter = new FileChooser.ExtensionFilter("WebVTT 字幕 (*.vtt)", "*.vtt");
-        fileChooser.getExtensionFilters().add(txtFilter);
+        FileChooser.ExtensionFilter srtFilter = new FileChooser.ExtensionFilter("SRT 字幕 (*.srt)", "*.srt");
+        FileChooser.ExtensionFilter vttFilter = new FileChooser.ExtensionFilter("WebVTT 字幕 (*.vtt)", "*.vtt");
+        fileChooser.getExtensionFilters().addAll(txtFilter, srtFilter, vttFilter);
 
         // 显示保存文件对话框
         File file = fileChooser.showSaveDialog(exportButton.getScene().getWindow());
 
         if (file != null) {
             try {
-                // 目前，我们只导出纯文本
-                String contentToExport = bridge.transcribedTextProperty().get();
-                exporter.exportAsTxt(contentToExport, file.toPath());
+                // 直接从转录记录读取片段，无需复制
+                List<TranscriptionSegment> segments = store.segments();
+                Path destination = file.toPath();
+                String fileName = file.getName().toLowerCase();
+                if (fileName.endsWith(".srt")) {
+                    exporter.exportAsSrt(segments, destination);
+                } else if (fileName.endsWith(".vtt")) {
+                    exporter.exportAsVtt(segments, destination);
+                } else {
+                    exporter.exportAsTxt(segments, destination);
+                }
 
                 // 向用户显示成功消息
                 showAlert(Alert.AlertType.INFORMATION, "导出成功", "文件已成功保存到:\n" + file.getAbsolutePath());
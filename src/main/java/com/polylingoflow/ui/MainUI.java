@@ -1,6 +1,7 @@
 package com.polylingoflow.ui;
 
 import com.polylingoflow.ApplicationManager;
+import com.polylingoflow.metrics.StartupTimeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
@@ -18,21 +19,20 @@ import java.util.Objects;
 /**
  * 应用程序的主UI类，负责设置JavaFX的舞台（Stage）和场景（Scene）。
  * 它从FXML文件加载用户界面，并管理应用程序的生命周期。
+ * 后端服务在第一帧显示之后才在后台线程上启动，窗口不必等待音频设备和模型。
  */
 public class MainUI extends Application {
 
     private static final Logger log = LoggerFactory.getLogger(MainUI.class);
-    private ApplicationManager appManager;
+    private volatile ApplicationManager appManager;
 
     /**
      * 在start()方法之前调用。
-     * 这是执行非UI初始化的理想位置。
+     * 这里不做任何耗时的初始化，以便尽快显示第一帧。
      */
     @Override
     public void init() {
-        log.info("Initializing application backend services...");
-        appManager = new ApplicationManager();
-        appManager.start();
+        StartupTimeline.mark(StartupTimeline.MAIN);
     }
 
     @Override
@@ -48,6 +48,8 @@ public class MainUI extends Application {
             primaryStage.setTitle("PolylingoFlow");
             primaryStage.setScene(scene);
             primaryStage.show();
+            StartupTimeline.mark(StartupTimeline.FIRST_FRAME);
+            startBackend();
 
             // TODO: 实现 TrayController
             // if (SystemTray.isSupported()) {
@@ -64,6 +66,20 @@ public class MainUI extends Application {
         }
     }
 
+    /**
+     * 在后台线程上初始化并启动后端服务。
+     */
+    private void startBackend() {
+        Thread thread = new Thread(() -> {
+            log.info("Initializing application backend services...");
+            ApplicationManager manager = new ApplicationManager();
+            manager.start();
+            appManager = manager;
+        }, "backend-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     /**
      * 当应用程序关闭时调用（例如，关闭主窗口）。
      * 这是执行清理工作的关键位置。
@@ -0,0 +1,53 @@
+package com.polylingoflow.ui;
+
+import com.polylingoflow.transcript.TranscriptEntry;
+import javafx.scene.control.ListCell;
+
+import java.util.Map;
+
+/**
+ * 转录列表中的单元格：显示片段的开始时间、原文以及已到达的各语言翻译。
+ * ListView只为可见的行创建和复用少量单元格，因此长会话的渲染开销与历史长度无关。
+ */
+public class TranscriptCell extends ListCell<TranscriptEntry> {
+
+    @Override
+    protected void updateItem(TranscriptEntry entry, boolean empty) {
+        super.updateItem(entry, empty);
+        if (empty || entry == null) {
+            setText(null);
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        appendTime(text, entry.startTimeMillis());
+        text.append("  ").append(entry.text());
+        for (Map.Entry<String, String> translation : entry.translations().entrySet()) {
+            text.append(System.lineSeparator())
+                    .append("    [").append(translation.getKey()).append("] ")
+                    .append(translation.getValue());
+        }
+        setText(text.toString());
+    }
+
+    /**
+     * 以 [HH:MM:SS] 格式追加时间。
+     */
+    private static void appendTime(StringBuilder text, long millis) {
+        long totalSeconds = millis / 1000;
+        text.append('[');
+        appendTwoDigits(text, totalSeconds / 3600);
+        text.append(':');
+        appendTwoDigits(text, (totalSeconds / 60) % 60);
+        text.append(':');
+        appendTwoDigits(text, totalSeconds % 60);
+        text.append(']');
+    }
+
+    private static void appendTwoDigits(StringBuilder text, long value) {
+        if (value < 10) {
+            text.append('0');
+        }
+        text.append(value);
+    }
+}
@@ -0,0 +1,37 @@
+package com.polylingoflow.whisper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Whisper 输入格式的转换。
+ *
+ * 与 {@link WhisperEngine} 分开，这样使用它（例如基准测试）不会触发本地库的加载。
+ */
+public final class PcmConversion {
+
+    private PcmConversion() {
+    }
+
+    /**
+     * 将16位小端PCM数据转换为32位浮点数组。
+     * 浮点值被归一化到 [-1.0, 1.0] 的范围。
+     *
+     * @param pcmData 输入的PCM数据（从当前位置到界限）；缓冲区的位置不会被修改。
+     * @return 转换后的浮点数组。
+     */
+    public static float[] pcm16leToFloat32(ByteBuffer pcmData) {
+        // 每个16位采样点占2个字节。
+        int numSamples = pcmData.remaining() / 2;
+        float[] floatData = new float[numSamples];
+        // 使用独立视图来正确处理字节序（小端序是PCM的常见格式），且不改变调用方缓冲区的位置。
+        ByteBuffer buffer = pcmData.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int i = 0; i < numSamples; i++) {
+            // 读取2个字节组成一个short，然后归一化为float。
+            // 除以 32768.0f 将 short 值（范围 -32768 到 32767）归一化到 float 范围 [-1.0, 1.0]。
+            floatData[i] = buffer.getShort() / 32768.0f;
+        }
+        return floatData;
+    }
+}
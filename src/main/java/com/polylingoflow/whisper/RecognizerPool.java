@@ -0,0 +1,305 @@
+package com.polylingoflow.whisper;
+
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.tracing.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 由多路音频流共享的一组语音识别引擎。
+ *
+ * 每个引擎（每个 Whisper 上下文各自持有一份模型）绑定一个工作线程。各路流通过 {@link #forStream(String)}
+ * 取得自己的 {@link SpeechRecognizer} 视图，提交的转录请求进入该流自己的队列；空闲的工作线程在有待处理请求的流之间
+ * 轮转取任务，因此一路说话很多的流不会让其他流饿死。同一路流内，最终转录优先于部分转录。
+ *
+ * 引擎数决定了并行推理的上限和模型占用的内存：每多一个引擎就多一份模型，而不是每多一路流就多一份。
+ */
+public final class RecognizerPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RecognizerPool.class);
+    private static final LatencyHistogram queueWait = MetricsRegistry.global().histogram(MetricNames.WHISPER_POOL_WAIT);
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    private final List<SpeechRecognizer> engines = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    // 有待处理请求的流，按轮转顺序排列；每个流最多出现一次
+    private final ArrayDeque<StreamQueue> ready = new ArrayDeque<>();
+    private int waiting = 0;
+    // 参与推理的引擎数：序号不小于它的工作线程暂停取任务（见 setActiveEngines）
+    private int activeEngines;
+    private boolean initialized = false;
+    private boolean closed = false;
+
+    /**
+     * 一个转录请求。
+     */
+    private record Job(ByteBuffer pcm, long correlationId, boolean partial, CompletableFuture<String> result,
+                       long enqueuedNanos) {}
+
+    /**
+     * 一路流的待处理请求。只在持有 {@link #lock} 时访问。
+     */
+    private static final class StreamQueue {
+        final String name;
+        final ArrayDeque<Job> finals = new ArrayDeque<>();
+        final ArrayDeque<Job> partials = new ArrayDeque<>();
+
+        StreamQueue(String name) {
+            this.name = name;
+        }
+
+        boolean isEmpty() {
+            return finals.isEmpty() && partials.isEmpty();
+        }
+
+        Job poll() {
+            Job job = finals.poll();
+            return job != null ? job : partials.poll();
+        }
+    }
+
+    /**
+     * 创建引擎并启动工作线程。引擎在 {@link #initialize(Path)} 中加载模型。
+     *
+     * @param size    引擎数。
+     * @param factory 创建一个引擎，例如 {@code WhisperEngine::new}。
+     */
+    public RecognizerPool(int size, Supplier<? extends SpeechRecognizer> factory) {
+        if (size < 1) {
+            throw new IllegalArgumentException("引擎数必须至少为1: " + size);
+        }
+        this.activeEngines = size;
+        for (int i = 0; i < size; i++) {
+            SpeechRecognizer engine = factory.get();
+            int index = i;
+            Thread worker = new Thread(() -> workLoop(index, engine), "asr-pool-" + i);
+            worker.setDaemon(true);
+            engines.add(engine);
+            workers.add(worker);
+            worker.start();
+        }
+        MetricsRegistry.global().gauge(MetricNames.WHISPER_POOL_WAITING, this::getWaitingCount);
+        log.info("语音识别引擎池已创建：{} 个引擎", size);
+    }
+
+    /**
+     * 为所有引擎加载模型。重复调用会被忽略，因此每路流的流水线都可以在启动时调用。
+     *
+     * @param modelPath 模型文件路径。
+     */
+    public synchronized void initialize(Path modelPath) {
+        if (initialized) {
+            return;
+        }
+        for (SpeechRecognizer engine : engines) {
+            engine.initialize(modelPath);
+        }
+        initialized = true;
+    }
+
+    /**
+     * 为一路流创建识别器视图。视图的 {@link SpeechRecognizer#close()} 只会使该视图失效，不会关闭引擎池。
+     *
+     * @param streamName 流名称，用于日志。
+     * @return 通过本池转录的识别器。
+     */
+    public SpeechRecognizer forStream(String streamName) {
+        return new StreamRecognizer(new StreamQueue(streamName));
+    }
+
+    public int getSize() {
+        return engines.size();
+    }
+
+    /**
+     * 调整参与推理的引擎数，例如在 CPU 已饱和时减少并行推理以降低争用。被停用的引擎完成手头的推理后暂停，模型仍保留在内存中。
+     *
+     * @param count 引擎数，会被限制在1到 {@link #getSize()} 之间。
+     * @return 实际生效的引擎数。
+     */
+    public int setActiveEngines(int count) {
+        lock.lock();
+        try {
+            activeEngines = Math.max(1, Math.min(engines.size(), count));
+            workAvailable.signalAll();
+            return activeEngines;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveEngines() {
+        lock.lock();
+        try {
+            return activeEngines;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 等待空闲引擎的请求数（所有流合计）。
+     */
+    public int getWaitingCount() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 停止接收请求，等待工作线程完成手头的推理后关闭所有引擎。仍在排队的请求以异常结束。
+     */
+    @Override
+    public void close() {
+        List<Job> abandoned = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (StreamQueue stream : ready) {
+                Job job;
+                while ((job = stream.poll()) != null) {
+                    abandoned.add(job);
+                }
+            }
+            ready.clear();
+            waiting = 0;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        abandoned.forEach(job -> job.result().completeExceptionally(new IllegalStateException("语音识别引擎池已关闭")));
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        engines.forEach(SpeechRecognizer::close);
+        log.info("语音识别引擎池已关闭。");
+    }
+
+    private CompletableFuture<String> submit(StreamQueue stream, ByteBuffer pcm, long correlationId, boolean partial) {
+        Job job = new Job(pcm, correlationId, partial, new CompletableFuture<>(), System.nanoTime());
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("语音识别引擎池已关闭");
+            }
+            if (stream.isEmpty()) {
+                ready.addLast(stream);
+            }
+            (partial ? stream.partials : stream.finals).addLast(job);
+            waiting++;
+            // 被停用的工作线程也在同一个条件上等待，唤醒全部以免信号落到它们身上
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return job.result();
+    }
+
+    private void workLoop(int index, SpeechRecognizer engine) {
+        while (true) {
+            Job job;
+            String streamName;
+            lock.lock();
+            try {
+                while ((ready.isEmpty() || index >= activeEngines) && !closed) {
+                    workAvailable.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                // 轮转：从队首的流取一个请求，该流仍有请求时排到队尾
+                StreamQueue stream = ready.pollFirst();
+                job = stream.poll();
+                streamName = stream.name;
+                if (!stream.isEmpty()) {
+                    ready.addLast(stream);
+                }
+                waiting--;
+            } finally {
+                lock.unlock();
+            }
+            queueWait.recordSince(job.enqueuedNanos());
+            if (job.result().isDone()) {
+                continue; // 调用方已放弃等待
+            }
+            // 推理事件由引擎在这个线程上创建，标上请求所属的流
+            TraceContext.setStream(streamName);
+            try {
+                job.result().complete(engine.transcribe(job.pcm(), job.correlationId(), job.partial()));
+            } catch (RuntimeException e) {
+                job.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 一路流通过引擎池转录的视图。调用方线程阻塞到轮到它的请求完成为止。
+     */
+    private final class StreamRecognizer implements SpeechRecognizer {
+
+        private final StreamQueue stream;
+        private volatile boolean closed = false;
+
+        StreamRecognizer(StreamQueue stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void initialize(Path modelPath) {
+            RecognizerPool.this.initialize(modelPath);
+        }
+
+        @Override
+        public String transcribe(ByteBuffer pcm16leAudioData, long correlationId, boolean partial) {
+            if (closed) {
+                throw new IllegalStateException("流 " + stream.name + " 的识别器已关闭");
+            }
+            CompletableFuture<String> result = submit(stream, pcm16leAudioData, correlationId, partial);
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.cancel(false);
+                throw new IllegalStateException("等待语音识别时被中断", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            log.debug("流 {} 已与语音识别引擎池分离", stream.name);
+        }
+    }
+}
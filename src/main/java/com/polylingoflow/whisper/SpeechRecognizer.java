@@ -0,0 +1,33 @@
+package com.polylingoflow.whisper;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * 语音识别引擎。流水线只通过此接口使用引擎，因此可以用确定性的替身（例如负载测试中的桩实现）替换 {@link WhisperEngine}。
+ */
+public interface SpeechRecognizer extends AutoCloseable {
+
+    /**
+     * 加载模型。必须在转录之前调用；重复调用会被忽略。
+     *
+     * @param modelPath 模型文件路径（桩实现可以忽略）。
+     */
+    void initialize(Path modelPath);
+
+    /**
+     * 转录一个语音片段（或其前缀）。
+     *
+     * @param pcm16leAudioData 原始音频数据（16kHz、16位、有符号、小端PCM），缓冲区的位置不会被修改。
+     * @param correlationId    片段序列号，与片段无关的调用为-1。
+     * @param partial          是否为尚未结束的片段的部分转录。
+     * @return 转录后的文本。
+     */
+    String transcribe(ByteBuffer pcm16leAudioData, long correlationId, boolean partial);
+
+    /**
+     * 释放引擎持有的资源。
+     */
+    @Override
+    void close();
+}
@@ -1,33 +1,64 @@
 package com.polylingoflow.whisper;
 
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.tracing.InferenceEvent;
+import com.polylingoflow.tracing.TraceContext;
 import io.github.ggerganov.whisper_jni.WhisperJNI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 一个围绕 WhisperJNI 库的封装器，用于处理语音到文本的转录。
  * 此类管理 WhisperJNI 实例的生命周期，包括加载本地库、初始化模型和执行转录。
+ * 本地库在第一次 {@link #initialize(Path)} 时才加载，创建实例（以及加载此类）不涉及本地代码，不拖慢启动。
  * 它实现了 AutoCloseable 接口以进行正确的资源管理。
  */
-public class WhisperEngine implements AutoCloseable {
+public class WhisperEngine implements SpeechRecognizer {
 
     private static final Logger log = LoggerFactory.getLogger(WhisperEngine.class);
+
+    // 16kHz 单声道音频中每个采样点的时长（纳秒）
+    private static final long NANOS_PER_SAMPLE = 1_000_000_000L / 16_000;
+
+    private static final LatencyHistogram inferenceTime = MetricsRegistry.global().histogram(MetricNames.WHISPER_INFERENCE);
+    private static final LongAdder audioNanos = MetricsRegistry.global().counter(MetricNames.WHISPER_AUDIO_NANOS);
+    private static final LongAdder inferenceNanos = MetricsRegistry.global().counter(MetricNames.WHISPER_INFERENCE_NANOS);
+
+    static {
+        // 实时率按累计值计算，不受单个短片段的波动影响
+        MetricsRegistry.global().gauge(MetricNames.WHISPER_REAL_TIME_FACTOR, () -> {
+            long audio = audioNanos.sum();
+            return audio == 0 ? 0 : inferenceNanos.sum() / (double) audio;
+        });
+    }
+
+    private static boolean nativeLibraryLoaded = false;
+
     private WhisperJNI whisper;
     private boolean isInitialized = false;
 
-    // 静态代码块，在类加载时仅加载一次本地库。
-    // 这对于 JNI 封装器的正常工作至关重要。
-    static {
+    /**
+     * 在进程中仅加载一次本地库。这对于 JNI 封装器的正常工作至关重要。
+     * 加载失败时下次调用会重试（例如，用户在提示后修复了库路径）。
+     */
+    private static synchronized void loadNativeLibrary() {
+        if (nativeLibraryLoaded) {
+            return;
+        }
         try {
             log.info("正在尝试加载 WhisperJNI 本地库...");
+            long startNanos = System.nanoTime();
             WhisperJNI.loadLibrary();
-            log.info("WhisperJNI 本地库加载成功。");
+            nativeLibraryLoaded = true;
+            log.info("WhisperJNI 本地库加载成功（{} 毫秒）。", (System.nanoTime() - startNanos) / 1_000_000);
         } catch (IOException e) {
             log.error("致命错误：加载 WhisperJNI 本地库失败。请确保本地文件 (.dll, .so, .dylib) 可访问。", e);
             // 这是一个严重故障，因此我们抛出一个运行时异常来中止初始化。
@@ -45,6 +76,7 @@ public class WhisperEngine implements AutoCloseable {
      *
      * @param modelPath Whisper 模型文件的路径（例如，ggml-base.en.bin）。
      */
+    @Override
     public void initialize(Path modelPath) {
         if (isInitialized) {
             log.warn("Whisper 引擎已初始化。忽略此次调用。");
@@ -54,6 +86,7 @@ public class WhisperEngine implements AutoCloseable {
             log.error("模型路径为 null 或文件不存在: {}", modelPath);
             throw new IllegalArgumentException("提供了无效的模型路径。");
         }
+        loadNativeLibrary();
 
         try {
             log.info("正在使用模型初始化 Whisper 上下文: {}", modelPath);
@@ -71,60 +104,79 @@ public class WhisperEngine implements AutoCloseable {
 
     /**
      * 将原始的16位PCM音频字节数组转录为文本。
+     * 同一个Whisper上下文不能被并发使用，因此并发调用会被串行化。
      *
      * @param pcm16leAudioData 原始音频数据（16位、有符号、小端PCM）。
      * @return 转录后的文本，如果转录失败则返回错误消息。
      */
     public String transcribe(byte[] pcm16leAudioData) {
+        return transcribe(pcm16leAudioData == null ? null : ByteBuffer.wrap(pcm16leAudioData));
+    }
+
+    /**
+     * 转录缓冲区中剩余的16位PCM音频（例如，内存映射的语音片段日志的切片），不需要先复制到字节数组。
+     * 缓冲区的位置不会被修改。
+     *
+     * @param pcm16leAudioData 原始音频数据（16位、有符号、小端PCM）。
+     * @return 转录后的文本，如果转录失败则返回错误消息。
+     */
+    public String transcribe(ByteBuffer pcm16leAudioData) {
+        return transcribe(pcm16leAudioData, -1, false);
+    }
+
+    /**
+     * 转录一个语音片段（或其前缀），并以片段的关联ID记录 JFR 推理事件。
+     *
+     * @param pcm16leAudioData 原始音频数据（16位、有符号、小端PCM）。
+     * @param correlationId    片段序列号。
+     * @param partial          是否为尚未结束的片段的部分转录。
+     * @return 转录后的文本，如果转录失败则返回错误消息。
+     */
+    @Override
+    public synchronized String transcribe(ByteBuffer pcm16leAudioData, long correlationId, boolean partial) {
         if (!isInitialized) {
             log.error("Whisper 引擎未初始化。请先调用 initialize()。");
             return "[错误: 引擎未初始化]";
         }
-        if (pcm16leAudioData == null || pcm16leAudioData.length == 0) {
+        if (pcm16leAudioData == null || !pcm16leAudioData.hasRemaining()) {
             log.warn("调用转录时使用了空的音频数据。");
             return "";
         }
 
         try {
             // 根据 Whisper 的要求，将16位PCM字节数组转换为32位浮点数组。
-            float[] floatAudioData = convertPcm16leToFloat32(pcm16leAudioData);
+            float[] floatAudioData = PcmConversion.pcm16leToFloat32(pcm16leAudioData);
 
             // 运行转录。
-            return whisper.full(floatAudioData);
+            InferenceEvent event = new InferenceEvent();
+            event.begin();
+            long startNanos = System.nanoTime();
+            String text = whisper.full(floatAudioData);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            if (event.shouldCommit()) {
+                event.stream = TraceContext.stream();
+                event.correlationId = correlationId;
+                event.audioMillis = floatAudioData.length / 16;
+                event.partial = partial;
+                event.textLength = text == null ? 0 : text.length();
+                event.commit();
+            }
+            inferenceTime.record(elapsedNanos);
+            inferenceNanos.add(elapsedNanos);
+            audioNanos.add(floatAudioData.length * NANOS_PER_SAMPLE);
+            return text;
         } catch (Exception e) {
             log.error("转录过程中发生错误。", e);
             return "[错误: 转录失败]";
         }
     }
 
-    /**
-     * 将16位小端PCM字节数组转换为32位浮点数组。
-     * 浮点值被归一化到 [-1.0, 1.0] 的范围。
-     *
-     * @param pcmData 输入的字节数组。
-     * @return 转换后的浮点数组。
-     */
-    private float[] convertPcm16leToFloat32(byte[] pcmData) {
-        // 每个16位采样点占2个字节。
-        int numSamples = pcmData.length / 2;
-        float[] floatData = new float[numSamples];
-        // 使用 ByteBuffer 来正确处理字节序（小端序是PCM的常见格式）。
-        ByteBuffer buffer = ByteBuffer.wrap(pcmData).order(ByteOrder.LITTLE_ENDIAN);
-
-        for (int i = 0; i < numSamples; i++) {
-            // 读取2个字节组成一个short，然后归一化为float。
-            // 除以 32768.0f 将 short 值（范围 -32768 到 32767）归一化到 float 范围 [-1.0, 1.0]。
-            floatData[i] = buffer.getShort() / 32768.0f;
-        }
-        return floatData;
-    }
-
     /**
      * 释放 Whisper 引擎持有的本地资源。
      * 在完成引擎使用后，调用此方法至关重要。
      */
     @Override
-    public void close() {
+    public synchronized void close() {
         if (whisper != null) {
             whisper.free();
             whisper = null;
@@ -0,0 +1,364 @@
+package com.polylingoflow.audio;
+
+import com.polylingoflow.bench.StubSpeechRecognizer;
+import com.polylingoflow.bench.StubTranslationServer;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.pipeline.Stage;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.translate.TranslatorService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.TargetDataLine;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 每个音频块热路径的分配预算测试：把固定长度的合成音频送过热路径，用 {@code ThreadMXBean.getThreadAllocatedBytes}
+ * 测量每秒音频分配的字节数，超出预算时测试失败，防止稳态分配被重构悄悄带回来（多路流负载下的 GC 停顿主要来自这里）。
+ *
+ * 预算的单位是每秒音频分配的字节数。检查的路径：
+ * <ul>
+ *   <li>{@code vad}：{@link VadProcessor#process} 本身（侦听器不做任何事），应接近0；</li>
+ *   <li>{@code capture}：{@link AudioCapture} 真实的捕获循环，包括每个音频块的复制、JFR 事件、交接计时，
+ *       以及流水线的消费者把音频块放入 VAD 阶段的队列。录音设备换成按脚本返回音频块的数据行，
+ *       因此下限是复制本身的32000字节/秒；</li>
+ *   <li>{@code vad-stage}：完整流水线中 VAD 阶段线程的分配，包括语音片段的累积、部分转录的前缀副本和存入片段存储。</li>
+ * </ul>
+ * 合成音频每3秒为2秒音调加1秒静音，每个周期产生一个语音片段。测量前先送入测量时长的十分之一作为预热。
+ * 默认预算在当前实现的测量值（约20、32700、44400字节/秒）之上留有余量；有意增加分配时同时调整这里。
+ * 默认送入60秒音频，使 {@code mvn test} 保持快速；长时间运行用系统属性加长，并可调整预算，例如
+ * {@code mvn test -DallocBudget.seconds=600 -DallocBudget.capture=40960}（另有 {@code allocBudget.vad}、{@code allocBudget.vadStage}）。
+ * 每条路径的测量值写入日志。
+ */
+class AllocationBudgetTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AllocationBudgetTest.class);
+
+    private static final int CHUNK_BYTES = 3200;
+    private static final int CHUNK_MILLIS = 100;
+    private static final int SPEECH_CHUNKS = 20;
+    private static final int SILENCE_CHUNKS = 10;
+    // 不同相位的音调音频块，避免每个片段完全相同
+    private static final int SPEECH_VARIANTS = 7;
+    private static final long TIMEOUT_SECONDS = 300;
+
+    private static final int SECONDS = Integer.getInteger("allocBudget.seconds", 60);
+    private static final long VAD_BUDGET = Long.getLong("allocBudget.vad", 256);
+    private static final long CAPTURE_BUDGET = Long.getLong("allocBudget.capture", 40960);
+    private static final long VAD_STAGE_BUDGET = Long.getLong("allocBudget.vadStage", 65536);
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final byte[] silence = new byte[CHUNK_BYTES];
+    private static final byte[][] speech = new byte[SPEECH_VARIANTS][];
+    private static final int chunks = SECONDS * 1000 / CHUNK_MILLIS;
+    private static final int warmupChunks = chunks / 10;
+
+    @BeforeAll
+    static void enableAllocationCounting() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "当前 JVM 不支持按线程统计分配");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        for (int i = 0; i < SPEECH_VARIANTS; i++) {
+            speech[i] = tone(i * 0.7);
+        }
+    }
+
+    /**
+     * 在当前线程上直接调用 {@link VadProcessor#process}。
+     */
+    @Test
+    void vadProcessorStaysWithinBudget() {
+        VadListener listener = new VadListener() {
+            @Override
+            public void onSpeechStart() {
+            }
+
+            @Override
+            public void onSpeech(byte[] audioData) {
+            }
+
+            @Override
+            public void onSpeechEnd() {
+            }
+        };
+        PipelineConfig defaults = PipelineConfig.defaults();
+        VadProcessor vad = new VadProcessor(listener, defaults.vadFrameMillis(), defaults.vadEnergyThreshold(),
+                defaults.vadSilenceMillis());
+        for (int i = 0; i < warmupChunks; i++) {
+            vad.process(chunk(i));
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < chunks; i++) {
+            vad.process(chunk(i));
+        }
+        assertWithinBudget("vad", threads.getCurrentThreadAllocatedBytes() - before, VAD_BUDGET);
+    }
+
+    /**
+     * 用脚本化的数据行驱动 {@link AudioCapture} 的捕获循环，把音频块送进一条完整的流水线，
+     * 分别测量捕获线程和 VAD 阶段线程的分配。数据行每交出一个音频块之前都等 VAD 阶段处理完上一个、asr 队列清空，
+     * 使队列不会溢出（溢出处理本身会分配），也不受机器快慢影响。
+     */
+    @Test
+    void captureAndVadStageStayWithinBudget() throws IOException, InterruptedException {
+        try (StubTranslationServer server = new StubTranslationServer(0)) {
+            PipelineConfig defaults = PipelineConfig.defaults();
+            PipelineConfig config = new PipelineConfig(defaults.modelPath(), defaults.sourceLang(), List.of("zh"),
+                    defaults.vadFrameMillis(), defaults.vadEnergyThreshold(), defaults.vadSilenceMillis(), null,
+                    defaults.vadStage(), defaults.asrStage(), defaults.translateStage());
+            ScriptedLine line = new ScriptedLine();
+            AudioCapture capture = new AudioCapture() {
+                @Override
+                TargetDataLine getLine(AudioFormat format) {
+                    return line;
+                }
+            };
+            TranscriptionPipeline pipeline = new TranscriptionPipeline(config, new TranscriptIndex(), "alloc", capture,
+                    new StubSpeechRecognizer(0), new TranslatorService(server.getUrl()));
+            pipeline.start();
+            pipeline.setRecording(true);
+            Stage<?> vadStage = pipeline.getStage("vad");
+            line.start(vadStage, pipeline.getStage("asr"), findThread("stage-" + vadStage.getName() + "-0"));
+            try {
+                assertTrue(line.finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "捕获循环没有在限定时间内送完音频");
+            } finally {
+                pipeline.setRecording(false);
+                pipeline.shutdown();
+            }
+            assertAll(
+                    () -> assertWithinBudget("capture", line.captureAllocated, CAPTURE_BUDGET),
+                    () -> assertWithinBudget("vad-stage", line.vadStageAllocated, VAD_STAGE_BUDGET));
+        }
+    }
+
+    /**
+     * 代替录音设备的数据行：按脚本交出合成音频块，并在捕获线程上记录预热之后的分配。
+     * 交出音频块之前不做任何分配，测量只包含 {@link AudioCapture} 的捕获循环和流水线的消费者。
+     */
+    private static final class ScriptedLine implements TargetDataLine {
+
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile long captureAllocated;
+        volatile long vadStageAllocated;
+
+        private volatile boolean started;
+        private Stage<?> vadStage;
+        private Stage<?> asrStage;
+        private long vadThreadId;
+        private long processedBase;
+        // 以下字段只在捕获线程上访问
+        private int index = 0;
+        private long captureBefore;
+        private long vadStageBefore;
+        private boolean open;
+
+        void start(Stage<?> vadStage, Stage<?> asrStage, Thread vadThread) {
+            this.vadStage = vadStage;
+            this.asrStage = asrStage;
+            this.vadThreadId = vadThread.getId();
+            this.processedBase = vadStage.getProcessedCount();
+            started = true;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!started || index > warmupChunks + chunks) {
+                idle();
+                return 0;
+            }
+            while (vadStage.getProcessedCount() - processedBase < index || asrStage.getQueueDepth() > 0) {
+                Thread.yield();
+            }
+            if (index == warmupChunks) {
+                captureBefore = threads.getCurrentThreadAllocatedBytes();
+                vadStageBefore = threads.getThreadAllocatedBytes(vadThreadId);
+            } else if (index == warmupChunks + chunks) {
+                captureAllocated = threads.getCurrentThreadAllocatedBytes() - captureBefore;
+                vadStageAllocated = threads.getThreadAllocatedBytes(vadThreadId) - vadStageBefore;
+                index++;
+                finished.countDown();
+                return 0;
+            }
+            byte[] chunk = chunk(index < warmupChunks ? index : index - warmupChunks);
+            System.arraycopy(chunk, 0, b, off, Math.min(len, chunk.length));
+            index++;
+            return Math.min(len, chunk.length);
+        }
+
+        private static void idle() {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void open(AudioFormat format, int bufferSize) {
+            open = true;
+        }
+
+        @Override
+        public void open(AudioFormat format) {
+            open = true;
+        }
+
+        @Override
+        public void open() {
+            open = true;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void drain() {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public boolean isRunning() {
+            return open;
+        }
+
+        @Override
+        public boolean isActive() {
+            return open;
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return new AudioFormat(16000, 16, 1, true, false);
+        }
+
+        @Override
+        public int getBufferSize() {
+            return CHUNK_BYTES;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public int getFramePosition() {
+            return 0;
+        }
+
+        @Override
+        public long getLongFramePosition() {
+            return 0;
+        }
+
+        @Override
+        public long getMicrosecondPosition() {
+            return 0;
+        }
+
+        @Override
+        public float getLevel() {
+            return AudioSystem.NOT_SPECIFIED;
+        }
+
+        @Override
+        public Line.Info getLineInfo() {
+            return new Line.Info(TargetDataLine.class);
+        }
+
+        @Override
+        public Control[] getControls() {
+            return new Control[0];
+        }
+
+        @Override
+        public boolean isControlSupported(Control.Type control) {
+            return false;
+        }
+
+        @Override
+        public Control getControl(Control.Type control) {
+            throw new IllegalArgumentException("不支持的控制: " + control);
+        }
+
+        @Override
+        public void addLineListener(LineListener listener) {
+        }
+
+        @Override
+        public void removeLineListener(LineListener listener) {
+        }
+    }
+
+    private static void assertWithinBudget(String path, long allocatedBytes, long budgetBytesPerSecond) {
+        double bytesPerSecond = allocatedBytes / seconds(chunks);
+        log.info("{}: {} 秒音频，每秒音频分配 {} 字节（预算 {}）", path, seconds(chunks), Math.round(bytesPerSecond),
+                budgetBytesPerSecond);
+        assertTrue(bytesPerSecond <= budgetBytesPerSecond, () -> String.format(
+                "%s 路径每秒音频分配 %.0f 字节，超出预算 %d", path, bytesPerSecond, budgetBytesPerSecond));
+    }
+
+    private static Thread findThread(String name) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("找不到线程: " + name));
+    }
+
+    private static byte[] chunk(int index) {
+        int position = index % (SPEECH_CHUNKS + SILENCE_CHUNKS);
+        return position < SPEECH_CHUNKS ? speech[index % speech.length] : silence;
+    }
+
+    /**
+     * 一个100毫秒的440Hz音调音频块，振幅远高于 VAD 的能量阈值。
+     */
+    private static byte[] tone(double phase) {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        for (int i = 0; i < CHUNK_BYTES / 2; i++) {
+            short sample = (short) (6000 * Math.sin(2 * Math.PI * 440 * i / 16000.0 + phase));
+            chunk[2 * i] = (byte) sample;
+            chunk[2 * i + 1] = (byte) (sample >> 8);
+        }
+        return chunk;
+    }
+
+    private static double seconds(int chunks) {
+        return chunks * CHUNK_MILLIS / 1000.0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.polylingoflow.bench;
+
+import com.polylingoflow.audio.LosslessAudioCodec;
+import com.polylingoflow.audio.SegmentAudioLogReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@link LosslessAudioCodec} 的压缩率和吞吐量基准测试。
+ *
+ * 用法：
+ * <pre>
+ * java -cp ... com.polylingoflow.bench.LosslessCodecBenchmark [语音片段日志目录 | 16kHz/16位单声道WAV文件 ...]
+ * </pre>
+ * 不带参数时使用合成的类语音信号（带共振峰调制的浊音谐波、清音噪声和停顿）。
+ * 每个输入都会先验证往返解码与原始数据逐字节一致，然后报告压缩率、编解码吞吐量以及相对实时的倍数。
+ */
+public final class LosslessCodecBenchmark {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private LosslessCodecBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Input> inputs = new ArrayList<>();
+        if (args.length == 0) {
+            inputs.add(new Input("synthetic-speech-60s", syntheticSpeech(60, 42)));
+        }
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            inputs.add(new Input(path.getFileName().toString(),
+                    Files.isDirectory(path) ? readAudioLog(path) : readWav(path)));
+        }
+
+        System.out.printf("%-24s %10s %8s %14s %14s %12s %12s%n", "input", "seconds", "ratio",
+                "encode MB/s", "decode MB/s", "enc x RT", "dec x RT");
+        for (Input input : inputs) {
+            run(input);
+        }
+    }
+
+    private record Input(String name, byte[] pcm) {}
+
+    private static void run(Input input) {
+        LosslessAudioCodec codec = new LosslessAudioCodec();
+        byte[] encoded = codec.encode(ByteBuffer.wrap(input.pcm()));
+        byte[] decoded = codec.decode(ByteBuffer.wrap(encoded));
+        if (!Arrays.equals(input.pcm(), decoded)) {
+            throw new IllegalStateException("往返解码结果与原始数据不一致: " + input.name());
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            codec.decode(ByteBuffer.wrap(codec.encode(ByteBuffer.wrap(input.pcm()))));
+        }
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoded = codec.encode(ByteBuffer.wrap(input.pcm()));
+            long middle = System.nanoTime();
+            codec.decode(ByteBuffer.wrap(encoded));
+            decodeNanos += System.nanoTime() - middle;
+            encodeNanos += middle - start;
+        }
+
+        double seconds = input.pcm().length / 2.0 / SAMPLE_RATE;
+        double megabytes = input.pcm().length / (1024.0 * 1024.0) * MEASURED_ROUNDS;
+        double encodeSeconds = encodeNanos / 1e9;
+        double decodeSeconds = decodeNanos / 1e9;
+        System.out.printf("%-24s %10.1f %8.3f %14.1f %14.1f %12.0f %12.0f%n", input.name(), seconds,
+                (double) encoded.length / input.pcm().length,
+                megabytes / encodeSeconds, megabytes / decodeSeconds,
+                seconds * MEASURED_ROUNDS / encodeSeconds, seconds * MEASURED_ROUNDS / decodeSeconds);
+    }
+
+    /**
+     * 生成类语音的合成信号：基频缓慢变化的浊音谐波经两个共振峰调制，夹杂清音噪声段和短停顿。
+     */
+    static byte[] syntheticSpeech(int seconds, long seed) {
+        Random random = new Random(seed);
+        int total = seconds * SAMPLE_RATE;
+        ByteBuffer out = ByteBuffer.allocate(total * 2).order(ByteOrder.LITTLE_ENDIAN);
+        double phase = 0;
+        int syllableLeft = 0;
+        int kind = 0; // 0 = 浊音, 1 = 清音, 2 = 停顿
+        double pitch = 120;
+        double formant1 = 700;
+        double formant2 = 1200;
+        for (int i = 0; i < total; i++) {
+            if (syllableLeft-- <= 0) {
+                syllableLeft = SAMPLE_RATE / 10 + random.nextInt(SAMPLE_RATE / 5);
+                int r = random.nextInt(10);
+                kind = r < 7 ? 0 : r < 9 ? 1 : 2;
+                pitch = 90 + random.nextInt(140);
+                formant1 = 300 + random.nextInt(600);
+                formant2 = 900 + random.nextInt(1500);
+            }
+            double value;
+            if (kind == 0) {
+                phase += 2 * Math.PI * pitch / SAMPLE_RATE;
+                value = 0;
+                for (int harmonic = 1; harmonic <= 12; harmonic++) {
+                    double frequency = pitch * harmonic;
+                    double gain = Math.exp(-Math.pow((frequency - formant1) / 250, 2))
+                            + 0.5 * Math.exp(-Math.pow((frequency - formant2) / 350, 2)) + 0.02;
+                    value += gain * Math.sin(phase * harmonic);
+                }
+                value *= 3000;
+            } else if (kind == 1) {
+                value = random.nextGaussian() * 600;
+            } else {
+                value = 0;
+            }
+            value += random.nextGaussian() * 20; // 背景噪声
+            out.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value))));
+        }
+        return out.array();
+    }
+
+    private static byte[] readAudioLog(Path directory) throws IOException {
+        try (SegmentAudioLogReader reader = new SegmentAudioLogReader(directory)) {
+            int total = 0;
+            List<ByteBuffer> segments = new ArrayList<>();
+            for (int i = 0; i < reader.size(); i++) {
+                ByteBuffer pcm = reader.get(i).pcm();
+                segments.add(pcm);
+                total += pcm.remaining();
+            }
+            ByteBuffer all = ByteBuffer.allocate(total);
+            segments.forEach(all::put);
+            return all.array();
+        }
+    }
+
+    /**
+     * 读取标准44字节头的PCM WAV文件的数据部分。
+     */
+    private static byte[] readWav(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        return Arrays.copyOfRange(bytes, Math.min(44, bytes.length), bytes.length - (bytes.length - 44) % 2);
+    }
+}
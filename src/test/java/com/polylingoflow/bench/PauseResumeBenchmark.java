@@ -0,0 +1,136 @@
+package com.polylingoflow.bench;
+
+import com.polylingoflow.audio.AudioCapture;
+import com.polylingoflow.audio.AudioSource;
+import com.polylingoflow.audio.WavFileSource;
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.metrics.MetricNames;
+import com.polylingoflow.metrics.MetricsRegistry;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.translate.TranslatorService;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 暂停/恢复录音的代价：录音中与暂停中的进程CPU占用，以及从恢复录音到第一个音频块进入流水线的延迟。
+ *
+ * 用法：
+ * <pre>
+ * java -cp ... com.polylingoflow.bench.PauseResumeBenchmark (--wav speech.wav | --mic default|设备名)
+ *     [--record 10] [--paused 10] [--cycles 50] [--stub-rtf 0.1]
+ * </pre>
+ * {@code --wav} 把一个 WAV 文件按实时速度循环回放（{@link WavFileSource}）；{@code --mic} 使用真实的录音设备
+ * （{@link AudioCapture}），暂停时数据行保持打开。识别使用 {@link StubSpeechRecognizer}，翻译使用本地的
+ * {@link StubTranslationServer}，因此测得的CPU只来自音频来源、VAD 和流水线本身的调度。
+ *
+ * 依次报告：录音 {@code --record} 秒和暂停 {@code --paused} 秒期间每秒消耗的进程CPU毫秒数；
+ * 然后做 {@code --cycles} 次暂停/恢复，报告恢复延迟的 p50/p99（{@code audio.resume-latency}）。
+ */
+public final class PauseResumeBenchmark {
+
+    // 每次暂停/恢复循环中暂停的时长
+    private static final long CYCLE_PAUSE_MILLIS = 200;
+    private static final long RESUME_TIMEOUT_MILLIS = 2_000;
+
+    private PauseResumeBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        int recordSeconds = Integer.parseInt(options.getOrDefault("record", "10"));
+        int pausedSeconds = Integer.parseInt(options.getOrDefault("paused", "10"));
+        int cycles = Integer.parseInt(options.getOrDefault("cycles", "50"));
+        double stubRealTimeFactor = Double.parseDouble(options.getOrDefault("stub-rtf", "0.1"));
+
+        AudioSource source;
+        if (options.containsKey("wav")) {
+            Path file = Paths.get(options.get("wav"));
+            double fileSeconds = WavFileSource.readPcm(file).length / 32000.0;
+            // 暂停时回放不前进，只需覆盖录音阶段和每次恢复后的少量音频
+            long neededSeconds = recordSeconds + cycles + 10;
+            int copies = (int) Math.ceil(neededSeconds / Math.max(fileSeconds, 0.1));
+            source = new WavFileSource(Collections.nCopies(copies, file), 1, null);
+        } else if (options.containsKey("mic")) {
+            String mixer = options.get("mic");
+            source = new AudioCapture("default".equals(mixer) ? null : mixer, 1);
+        } else {
+            throw new IllegalArgumentException("必须用 --wav 或 --mic 指定音频来源");
+        }
+
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (!(os instanceof com.sun.management.OperatingSystemMXBean cpu)) {
+            throw new IllegalStateException("当前 JVM 不提供进程CPU时间");
+        }
+
+        try (StubTranslationServer server = new StubTranslationServer(50)) {
+            PipelineConfig defaults = PipelineConfig.defaults();
+            PipelineConfig config = new PipelineConfig(defaults.modelPath(), defaults.sourceLang(), List.of("zh"),
+                    defaults.vadFrameMillis(), defaults.vadEnergyThreshold(), defaults.vadSilenceMillis(), null,
+                    defaults.vadStage(), defaults.asrStage(), defaults.translateStage());
+            TranscriptionPipeline pipeline = new TranscriptionPipeline(config, new TranscriptIndex(), source,
+                    new StubSpeechRecognizer(stubRealTimeFactor), new TranslatorService(server.getUrl()));
+            pipeline.start();
+
+            pipeline.setRecording(true);
+            double recordingCpu = cpuMillisPerSecond(cpu, recordSeconds);
+            pipeline.setRecording(false);
+            // 让暂停时结束的最后一个片段处理完，再开始测量空闲
+            Thread.sleep(TimeUnit.SECONDS.toMillis(2));
+            double pausedCpu = cpuMillisPerSecond(cpu, pausedSeconds);
+            System.out.printf("CPU 毫秒/秒: 录音中 %.2f，暂停中 %.2f%n", recordingCpu, pausedCpu);
+
+            LatencyHistogram resumeLatency = MetricsRegistry.global().histogram(MetricNames.AUDIO_RESUME_LATENCY);
+            long before = resumeLatency.getCount();
+            for (int i = 0; i < cycles; i++) {
+                pipeline.setRecording(true);
+                long deadline = System.currentTimeMillis() + RESUME_TIMEOUT_MILLIS;
+                while (resumeLatency.getCount() == before + i && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                pipeline.setRecording(false);
+                Thread.sleep(CYCLE_PAUSE_MILLIS);
+            }
+            LatencyHistogram.Snapshot snapshot = resumeLatency.snapshot();
+            System.out.printf("恢复延迟（%d 次）: p50 %.1f ms，p99 %.1f ms，最大 %.1f ms%n", resumeLatency.getCount() - before,
+                    snapshot.p50Millis(), snapshot.p99Millis(), snapshot.maxMillis());
+
+            pipeline.shutdown();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 测量接下来 {@code seconds} 秒内进程平均每秒消耗的CPU时间。
+     */
+    private static double cpuMillisPerSecond(com.sun.management.OperatingSystemMXBean cpu, int seconds)
+            throws InterruptedException {
+        long cpuStart = cpu.getProcessCpuTime();
+        long wallStart = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        long cpuNanos = cpu.getProcessCpuTime() - cpuStart;
+        long wallNanos = System.nanoTime() - wallStart;
+        return TimeUnit.NANOSECONDS.toMicros(cpuNanos) / 1000.0 / (wallNanos / 1e9);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("无法解析的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
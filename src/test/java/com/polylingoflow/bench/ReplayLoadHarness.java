@@ -0,0 +1,348 @@
+package com.polylingoflow.bench;
+
+import com.polylingoflow.audio.SegmentStore;
+import com.polylingoflow.audio.WavFileSource;
+import com.polylingoflow.export.LiveSubtitleExporter;
+import com.polylingoflow.metrics.LatencyHistogram;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.pipeline.PipelineEvent;
+import com.polylingoflow.pipeline.Stage;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.transcript.LiveExportListener;
+import com.polylingoflow.translate.TranslatorService;
+import com.polylingoflow.whisper.RecognizerPool;
+import com.polylingoflow.whisper.SpeechRecognizer;
+import com.polylingoflow.whisper.WhisperEngine;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 端到端的回放负载测试：把一组 WAV 文件按 N 倍速同时送入若干条完整的流水线
+ * （音频来源 → VAD → 识别 → 翻译 → 实时导出），测量单个节点能承载多少路并发音频流。
+ *
+ * 用法：
+ * <pre>
+ * java -cp ... com.polylingoflow.bench.ReplayLoadHarness --wav recordings/ \
+ *     [--streams 1,2,4,8] [--speed 4] [--stub-rtf 0.1] [--model models/ggml-base.en.bin] \
+ *     [--engines 2] [--targets zh,ja] [--translate-latency 150] [--segment-memory 64] [--out load-test/]
+ * </pre>
+ * 默认使用确定性的识别桩（{@link StubSpeechRecognizer}，按 {@code --stub-rtf} 占用CPU）和本地翻译服务桩
+ * （{@link StubTranslationServer}），因此可以在任何机器上运行；指定 {@code --model} 时改用真实的 Whisper 引擎。
+ * {@code --streams} 可以是一个列表，依次以每种并发数运行一轮。默认每路流有自己的识别引擎；
+ * 指定 {@code --engines} 时所有流共享一个该大小的 {@link RecognizerPool}，用于比较共享引擎池能承载的流数。
+ * {@code --segment-memory} 设置排队语音片段的内存预算（MB，见 {@link SegmentStore}），用于观察溢出到磁盘时的行为。
+ *
+ * 每轮报告：
+ * <ul>
+ *   <li>持续实时率：从开始到最后一个片段完成的墙钟时间 / 每路音频时长；负载系数 = 实时率 × 倍速，约等于1表示跟得上；</li>
+ *   <li>片段延迟的 p50/p99：从片段的语音结束（按倍速换算的墙钟时刻）到最终转录 / 所有译文到达订阅者，包含 VAD 的静音等待；</li>
+ *   <li>各阶段队列的最大长度、被丢弃的片段数和堆内存峰值。</li>
+ * </ul>
+ */
+public final class ReplayLoadHarness {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+    private static final long DRAIN_TIMEOUT_MILLIS = 60_000;
+    // 最后一个事件之后再等待这么久没有新事件，才认为一路流已经处理完
+    private static final long QUIET_MILLIS = 500;
+    // 负载系数不超过此值、且没有丢弃片段时，认为这一轮跟得上实时输入
+    private static final double MAX_SUSTAINABLE_LOAD = 1.2;
+
+    private ReplayLoadHarness() {
+    }
+
+    /**
+     * 一轮测试的配置。
+     */
+    private record Settings(List<Path> files, double speed, double stubRealTimeFactor, Path model, int engines,
+                            List<String> targets, String translationUrl, Path outputDir) {
+
+        SpeechRecognizer newRecognizer() {
+            return model != null ? new WhisperEngine() : new StubSpeechRecognizer(stubRealTimeFactor);
+        }
+    }
+
+    /**
+     * 一轮测试的结果。
+     */
+    private record Result(int streams, double audioSeconds, double wallSeconds, int segmentsStarted,
+                          int segmentsCompleted, long segmentsDropped, LatencyHistogram.Snapshot transcriptLatency,
+                          LatencyHistogram.Snapshot translationLatency, Map<String, Integer> maxQueueDepth,
+                          long peakHeapBytes) {
+
+        double realTimeFactor() {
+            return wallSeconds / audioSeconds;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("wav")) {
+            throw new IllegalArgumentException("必须用 --wav 指定 WAV 文件或目录");
+        }
+        List<Path> files = listWavFiles(Paths.get(options.get("wav")));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "4"));
+        int[] streamCounts = Arrays.stream(options.getOrDefault("streams", "1,2,4,8").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        PipelineConfig defaults = PipelineConfig.defaults();
+        List<String> targets = options.containsKey("targets")
+                ? Arrays.asList(options.get("targets").split(",")) : defaults.targetLangs();
+        Path outputDir = options.containsKey("out") ? Paths.get(options.get("out"))
+                : Files.createTempDirectory("load-harness");
+        if (options.containsKey("segment-memory")) {
+            SegmentStore.global().setMemoryBudget(Long.parseLong(options.get("segment-memory")) * 1024 * 1024);
+        }
+
+        try (StubTranslationServer server = new StubTranslationServer(
+                Long.parseLong(options.getOrDefault("translate-latency", "150")))) {
+            Settings settings = new Settings(files, speed,
+                    Double.parseDouble(options.getOrDefault("stub-rtf", "0.1")),
+                    options.containsKey("model") ? Paths.get(options.get("model")) : null,
+                    Integer.parseInt(options.getOrDefault("engines", "0")), targets, server.getUrl(), outputDir);
+            System.out.printf("输入: %d 个文件；倍速 %.1fx；识别: %s；引擎: %s；目标语言: %s；输出: %s%n", files.size(),
+                    speed, settings.model() != null ? settings.model() : "桩（实时率 " + settings.stubRealTimeFactor() + "）",
+                    settings.engines() > 0 ? "共享 " + settings.engines() + " 个" : "每路流一个", targets, outputDir);
+            System.out.printf("%7s %9s %8s %6s %6s %11s %6s %17s %17s %16s %9s%n", "streams", "audio s",
+                    "wall s", "RTF", "load", "segments", "drop", "transcript p50/99", "translated p50/99",
+                    "max q vad/asr/tr", "heap MB");
+
+            int sustainable = 0;
+            for (int streams : streamCounts) {
+                Result result = run(streams, settings);
+                print(result, speed);
+                double load = result.realTimeFactor() * speed;
+                if (load <= MAX_SUSTAINABLE_LOAD && result.segmentsDropped() == 0
+                        && result.segmentsCompleted() == result.segmentsStarted()) {
+                    sustainable = Math.max(sustainable, streams);
+                }
+            }
+            System.out.printf("在 %.1fx 倍速下跟得上的最大并发数: %d 路（相当于约 %.0f 路实时音频流）%n",
+                    speed, sustainable, sustainable * speed);
+        }
+        System.exit(0);
+    }
+
+    private static Result run(int streamCount, Settings settings) throws IOException, InterruptedException {
+        LatencyHistogram transcriptLatency = new LatencyHistogram();
+        LatencyHistogram translationLatency = new LatencyHistogram();
+        CountDownLatch sourcesFinished = new CountDownLatch(streamCount);
+        PipelineConfig defaults = PipelineConfig.defaults();
+
+        RecognizerPool pool = settings.engines() > 0 ? new RecognizerPool(settings.engines(), settings::newRecognizer) : null;
+        List<StreamRun> streams = new ArrayList<>();
+        for (int i = 0; i < streamCount; i++) {
+            AtomicReference<TranscriptionPipeline> pipelineRef = new AtomicReference<>();
+            // 回放结束时像暂停一样结束最后一个语音片段
+            WavFileSource source = new WavFileSource(settings.files(), settings.speed(), () -> {
+                pipelineRef.get().setRecording(false);
+                sourcesFinished.countDown();
+            });
+            SpeechRecognizer recognizer = pool != null ? pool.forStream("stream-" + i) : settings.newRecognizer();
+            PipelineConfig config = new PipelineConfig(
+                    settings.model() != null ? settings.model() : defaults.modelPath(),
+                    defaults.sourceLang(), settings.targets(), defaults.vadFrameMillis(),
+                    defaults.vadEnergyThreshold(), defaults.vadSilenceMillis(), null,
+                    defaults.vadStage(), defaults.asrStage(), defaults.translateStage());
+            TranscriptionPipeline pipeline = new TranscriptionPipeline(config, new TranscriptIndex(), source,
+                    recognizer, new TranslatorService(settings.translationUrl()));
+            pipelineRef.set(pipeline);
+            LiveSubtitleExporter exporter = new LiveSubtitleExporter(
+                    settings.outputDir().resolve("streams-" + streamCount).resolve("stream-" + i), "transcript",
+                    EnumSet.allOf(LiveSubtitleExporter.Format.class), LiveSubtitleExporter.DEFAULT_FSYNC_INTERVAL_MILLIS);
+            pipeline.getTranscriptStore().addListener(new LiveExportListener(exporter));
+            StreamRun stream = new StreamRun(pipeline, source, exporter, settings.targets().size(),
+                    transcriptLatency, translationLatency);
+            pipeline.getEventBus().subscribe("load-harness", stream::onEvent);
+            streams.add(stream);
+        }
+
+        Map<String, Integer> maxQueueDepth = new ConcurrentHashMap<>();
+        AtomicLong peakHeap = new AtomicLong();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "load-harness-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduleAtFixedRate(() -> {
+            for (StreamRun stream : streams) {
+                for (Stage<?> stage : stream.pipeline.getStages()) {
+                    maxQueueDepth.merge(stage.getName(), stage.getQueueDepth(), Math::max);
+                }
+            }
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        streams.forEach(stream -> {
+            stream.pipeline.start();
+            stream.pipeline.setRecording(true);
+        });
+        sourcesFinished.await();
+        for (StreamRun stream : streams) {
+            stream.awaitQuiet();
+        }
+        sampler.shutdownNow();
+
+        long startNanos = streams.stream().mapToLong(s -> s.source.getStartNanos()).min().orElse(0);
+        long endNanos = streams.stream().mapToLong(s -> s.lastCompletionNanos).max().orElse(startNanos);
+        int started = 0;
+        int completed = 0;
+        long dropped = 0;
+        for (StreamRun stream : streams) {
+            started += stream.segmentsStarted.get();
+            completed += stream.segmentsCompleted.get();
+            dropped += stream.pipeline.getStage("asr").getDroppedCount();
+            stream.pipeline.shutdown();
+            stream.exporter.close();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+        return new Result(streamCount, streams.get(0).source.getFedMillis() / 1000.0,
+                (endNanos - startNanos) / 1e9, started, completed, dropped, transcriptLatency.snapshot(),
+                translationLatency.snapshot(), maxQueueDepth, peakHeap.get());
+    }
+
+    /**
+     * 一路音频流：它的流水线和按片段统计的延迟。事件由该流水线的订阅者线程依次传入。
+     */
+    private static final class StreamRun {
+
+        /**
+         * 一个片段的进度：最终转录何时到达（音频结束时间），以及已到达的译文数。
+         */
+        private static final class SegmentState {
+            long endTimeMillis = -1;
+            int translations;
+            long lastTranslationNanos;
+        }
+
+        final TranscriptionPipeline pipeline;
+        final WavFileSource source;
+        final LiveSubtitleExporter exporter;
+        private final int targetCount;
+        private final LatencyHistogram transcriptLatency;
+        private final LatencyHistogram translationLatency;
+        private final Map<Long, SegmentState> segments = new HashMap<>();
+        final AtomicInteger segmentsStarted = new AtomicInteger();
+        final AtomicInteger segmentsCompleted = new AtomicInteger();
+        volatile long lastEventNanos = System.nanoTime();
+        volatile long lastCompletionNanos;
+
+        StreamRun(TranscriptionPipeline pipeline, WavFileSource source, LiveSubtitleExporter exporter,
+                  int targetCount, LatencyHistogram transcriptLatency, LatencyHistogram translationLatency) {
+            this.pipeline = pipeline;
+            this.source = source;
+            this.exporter = exporter;
+            this.targetCount = targetCount;
+            this.transcriptLatency = transcriptLatency;
+            this.translationLatency = translationLatency;
+        }
+
+        void onEvent(PipelineEvent event) {
+            long now = System.nanoTime();
+            lastEventNanos = now;
+            if (event instanceof PipelineEvent.SegmentStarted) {
+                segmentsStarted.incrementAndGet();
+            } else if (event instanceof PipelineEvent.FinalTranscript transcript) {
+                SegmentState state = segments.computeIfAbsent(transcript.segment().sequence(), s -> new SegmentState());
+                state.endTimeMillis = transcript.segment().endTimeMillis();
+                transcriptLatency.record(now - source.wallClockNanosOf(state.endTimeMillis));
+                complete(transcript.segment().sequence(), state);
+            } else if (event instanceof PipelineEvent.Translated translated) {
+                SegmentState state = segments.computeIfAbsent(translated.sequence(), s -> new SegmentState());
+                state.translations++;
+                state.lastTranslationNanos = now;
+                complete(translated.sequence(), state);
+            }
+        }
+
+        // 译文可能先于最终转录到达订阅者（二者分别重排序），两者都到齐后才记录
+        private void complete(long sequence, SegmentState state) {
+            if (state.endTimeMillis >= 0 && state.translations == targetCount) {
+                translationLatency.record(state.lastTranslationNanos - source.wallClockNanosOf(state.endTimeMillis));
+                segments.remove(sequence);
+                segmentsCompleted.incrementAndGet();
+                lastCompletionNanos = state.lastTranslationNanos;
+            }
+        }
+
+        /**
+         * 等待音频全部送入后，流水线把积压的片段处理完。
+         */
+        void awaitQuiet() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+            while (System.currentTimeMillis() < deadline) {
+                boolean idle = pipeline.getStages().stream()
+                        .allMatch(stage -> stage.getQueueDepth() == 0 && stage.getActiveCount() == 0);
+                boolean quiet = System.nanoTime() - lastEventNanos > TimeUnit.MILLISECONDS.toNanos(QUIET_MILLIS);
+                if (idle && quiet && pipeline.awaitTranslations(0)) {
+                    return;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private static void print(Result result, double speed) {
+        LatencyHistogram.Snapshot transcript = result.transcriptLatency();
+        LatencyHistogram.Snapshot translated = result.translationLatency();
+        Map<String, Integer> depth = result.maxQueueDepth();
+        System.out.printf("%7d %9.1f %8.1f %6.3f %6.2f %5d/%-5d %6d %8.0f/%-8.0f %8.0f/%-8.0f %5d/%-4d/%-5d %9.0f%n",
+                result.streams(), result.audioSeconds(), result.wallSeconds(), result.realTimeFactor(),
+                result.realTimeFactor() * speed,
+                result.segmentsCompleted(), result.segmentsStarted(), result.segmentsDropped(),
+                transcript.p50Millis(), transcript.p99Millis(), translated.p50Millis(), translated.p99Millis(),
+                depth.getOrDefault("vad", 0), depth.getOrDefault("asr", 0), depth.getOrDefault("translate", 0),
+                result.peakHeapBytes() / (1024.0 * 1024.0));
+    }
+
+    private static List<Path> listWavFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> entries = Files.list(path)) {
+            List<Path> files = entries.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".wav"))
+                    .sorted(Comparator.naturalOrder())
+                    .collect(Collectors.toList());
+            if (files.isEmpty()) {
+                throw new IOException("目录中没有 WAV 文件: " + path);
+            }
+            return files;
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("无法解析的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
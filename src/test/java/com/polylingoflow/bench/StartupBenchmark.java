@@ -0,0 +1,196 @@
+package com.polylingoflow.bench;
+
+import com.polylingoflow.audio.WavFileSource;
+import com.polylingoflow.metrics.StartupTimeline;
+import com.polylingoflow.pipeline.PipelineConfig;
+import com.polylingoflow.pipeline.TranscriptionPipeline;
+import com.polylingoflow.search.TranscriptIndex;
+import com.polylingoflow.translate.TranslatorService;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 可重复的冷启动基准测试：多次启动新的 JVM，测量从进程启动到各个启动里程碑（{@link StartupTimeline}）的时间，
+ * 用于发现启动性能的退化，以及比较是否使用 AppCDS 归档。
+ *
+ * 用法：
+ * <pre>
+ * java -cp ... com.polylingoflow.bench.StartupBenchmark [--runs 10] [--wav speech.wav] \
+ *     [--jvm-args "-XX:SharedArchiveFile=target/polylingoflow.jsa"] [--stub-rtf 0.1]
+ * </pre>
+ * 每次运行在子进程中执行 {@code probe} 模式：构造一条完整的流水线（WAV 回放 → VAD → 识别桩 → 翻译），
+ * 开始录音，等到第一个最终转录后退出。子进程打印各里程碑的墙钟时刻，父进程减去自己启动子进程的时刻，
+ * 因此结果包含 JVM 启动和类加载。报告每个里程碑的最小值和中位数：
+ * {@code main}（JVM 启动和类加载）、{@code first-chunk}（第一个音频块进入流水线）、
+ * {@code first-transcript}（第一个最终转录）。界面的 {@code first-frame} 由 {@code MainUI} 记录，只出现在界面程序的日志中。
+ *
+ * 未指定 {@code --wav} 时使用合成的音频：开头0.3秒静音，然后是1秒的音调。
+ * Maven 的 {@code appcds} 配置使用 {@code probe} 模式作为训练运行来生成 AppCDS 归档。
+ */
+public final class StartupBenchmark {
+
+    private static final String PROBE = "probe";
+    private static final String REPORT_PREFIX = "startup-milestone ";
+    private static final List<String> MILESTONES = List.of(StartupTimeline.MAIN, StartupTimeline.FIRST_CHUNK,
+            StartupTimeline.FIRST_TRANSCRIPT);
+    private static final long PROBE_TIMEOUT_SECONDS = 60;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && PROBE.equals(args[0])) {
+            probe(parseOptions(Arrays.copyOfRange(args, 1, args.length)));
+            return;
+        }
+        Map<String, String> options = parseOptions(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+        List<String> jvmArgs = options.containsKey("jvm-args")
+                ? Arrays.asList(options.get("jvm-args").trim().split("\\s+")) : List.of();
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupBenchmark.class.getName());
+        command.add(PROBE);
+        for (String key : List.of("wav", "stub-rtf")) {
+            if (options.containsKey(key)) {
+                command.add("--" + key);
+                command.add(options.get(key));
+            }
+        }
+
+        System.out.printf("%d 次冷启动；JVM 参数: %s%n", runs, jvmArgs.isEmpty() ? "（无）" : String.join(" ", jvmArgs));
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        MILESTONES.forEach(milestone -> results.put(milestone, new ArrayList<>()));
+        for (int run = 0; run < runs; run++) {
+            Map<String, Long> millis = launch(command);
+            MILESTONES.forEach(milestone -> {
+                if (millis.containsKey(milestone)) {
+                    results.get(milestone).add(millis.get(milestone));
+                }
+            });
+        }
+
+        System.out.printf("%-18s %6s %8s %8s%n", "milestone", "runs", "min ms", "p50 ms");
+        results.forEach((milestone, values) -> {
+            values.sort(null);
+            System.out.printf("%-18s %6d %8s %8s%n", milestone, values.size(),
+                    values.isEmpty() ? "-" : values.get(0), values.isEmpty() ? "-" : values.get(values.size() / 2));
+        });
+    }
+
+    /**
+     * 启动一个子进程并收集它报告的里程碑。
+     *
+     * @return 里程碑 → 距启动子进程的毫秒数。
+     */
+    private static Map<String, Long> launch(List<String> command) throws IOException, InterruptedException {
+        long launchedAt = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, Long> millis = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(REPORT_PREFIX)) {
+                    String[] parts = line.substring(REPORT_PREFIX.length()).split(" ");
+                    millis.put(parts[0], Long.parseLong(parts[1]) - launchedAt);
+                }
+            }
+        }
+        if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("启动探测进程超时");
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException("启动探测进程失败，退出码 " + process.exitValue());
+        }
+        return millis;
+    }
+
+    /**
+     * 子进程：启动流水线，等到第一个最终转录，打印各里程碑后退出。
+     */
+    private static void probe(Map<String, String> options) throws IOException, InterruptedException {
+        StartupTimeline.mark(StartupTimeline.MAIN);
+        Path wav = options.containsKey("wav") ? Paths.get(options.get("wav")) : syntheticWav();
+        try (StubTranslationServer server = new StubTranslationServer(0)) {
+            PipelineConfig defaults = PipelineConfig.defaults();
+            PipelineConfig config = new PipelineConfig(defaults.modelPath(), defaults.sourceLang(), List.of("zh"),
+                    defaults.vadFrameMillis(), defaults.vadEnergyThreshold(), defaults.vadSilenceMillis(), null,
+                    defaults.vadStage(), defaults.asrStage(), defaults.translateStage());
+            AtomicReference<TranscriptionPipeline> pipelineRef = new AtomicReference<>();
+            // 回放结束时像暂停一样结束最后一个语音片段
+            TranscriptionPipeline pipeline = new TranscriptionPipeline(config, new TranscriptIndex(),
+                    new WavFileSource(List.of(wav), 1, () -> pipelineRef.get().setRecording(false)),
+                    new StubSpeechRecognizer(Double.parseDouble(options.getOrDefault("stub-rtf", "0.1"))),
+                    new TranslatorService(server.getUrl()));
+            pipelineRef.set(pipeline);
+            pipeline.start();
+            pipeline.setRecording(true);
+            if (!StartupTimeline.await(StartupTimeline.FIRST_TRANSCRIPT, PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("等待第一个转录超时");
+                System.exit(1);
+            }
+            // 让第一个转录的翻译也完成，训练运行因此覆盖 OkHttp 和 Gson 的类
+            pipeline.awaitTranslations(TimeUnit.SECONDS.toMillis(5));
+            for (String milestone : MILESTONES) {
+                System.out.println(REPORT_PREFIX + milestone + " " + StartupTimeline.epochMillis(milestone));
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 写出一个合成的 WAV 文件：0.3秒静音，之后是1秒440Hz音调。
+     */
+    private static Path syntheticWav() throws IOException {
+        int sampleRate = 16000;
+        byte[] pcm = new byte[(int) (sampleRate * 1.3) * 2];
+        for (int i = (int) (sampleRate * 0.3); i < pcm.length / 2; i++) {
+            short sample = (short) (8000 * Math.sin(2 * Math.PI * 440 * i / sampleRate));
+            pcm[2 * i] = (byte) sample;
+            pcm[2 * i + 1] = (byte) (sample >> 8);
+        }
+        AudioFormat format = new AudioFormat(sampleRate, 16, 1, true, false);
+        Path file = Files.createTempFile("startup-probe", ".wav");
+        file.toFile().deleteOnExit();
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format, pcm.length / 2)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, file.toFile());
+        }
+        return file;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("无法解析的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
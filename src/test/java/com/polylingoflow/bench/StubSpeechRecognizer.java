@@ -0,0 +1,70 @@
+package com.polylingoflow.bench;
+
+import com.polylingoflow.whisper.SpeechRecognizer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * 确定性的语音识别桩，用于在没有模型和本地库的机器上运行负载测试。
+ *
+ * 每次调用按 {@code 音频时长 × 模拟实时率} 占用CPU（忙等，模拟推理的计算量），
+ * 返回的文本只由音频内容决定：每400毫秒音频产生一个单词，单词由该窗口内的采样值哈希后从固定词表中选取。
+ * 与 Whisper 上下文一样，同一个实例上的调用是串行的。
+ */
+public class StubSpeechRecognizer implements SpeechRecognizer {
+
+    private static final int BYTES_PER_MILLI = 32;
+    private static final int WORD_MILLIS = 400;
+    private static final String[] VOCABULARY = {
+            "the", "meeting", "starts", "at", "nine", "please", "review", "budget", "numbers", "before",
+            "we", "ship", "release", "next", "week", "thanks", "everyone", "for", "joining", "today"
+    };
+
+    private final double simulatedRealTimeFactor;
+
+    /**
+     * @param simulatedRealTimeFactor 每秒音频占用的CPU秒数，例如0.1表示比实时快十倍；0表示不占用。
+     */
+    public StubSpeechRecognizer(double simulatedRealTimeFactor) {
+        if (simulatedRealTimeFactor < 0) {
+            throw new IllegalArgumentException("模拟实时率不能为负数: " + simulatedRealTimeFactor);
+        }
+        this.simulatedRealTimeFactor = simulatedRealTimeFactor;
+    }
+
+    @Override
+    public void initialize(Path modelPath) {
+        // 桩实现不需要模型
+    }
+
+    @Override
+    public synchronized String transcribe(ByteBuffer pcm16leAudioData, long correlationId, boolean partial) {
+        ByteBuffer samples = pcm16leAudioData.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        long audioMillis = samples.remaining() / BYTES_PER_MILLI;
+        long deadline = System.nanoTime() + (long) (audioMillis * simulatedRealTimeFactor * 1_000_000);
+
+        StringBuilder text = new StringBuilder();
+        int wordBytes = WORD_MILLIS * BYTES_PER_MILLI;
+        while (samples.remaining() >= 2) {
+            int hash = 17;
+            for (int i = 0; i < wordBytes / 2 && samples.remaining() >= 2; i++) {
+                hash = 31 * hash + (samples.getShort() >> 6); // 忽略低位，对微小噪声不敏感
+            }
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(VOCABULARY[Math.floorMod(hash, VOCABULARY.length)]);
+        }
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void close() {
+        // 没有需要释放的资源
+    }
+}
@@ -0,0 +1,122 @@
+package com.polylingoflow.bench;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地的 LibreTranslate 兼容翻译服务桩（JDK 自带的 HttpServer），用于不依赖网络的负载测试。
+ *
+ * 每个请求等待固定的延迟（模拟网络和服务端耗时）后返回 {@code "[目标语言] 原文"}，结果只由输入决定。
+ */
+public class StubTranslationServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StubTranslationServer.class);
+
+    static {
+        // 关闭 Nagle 算法，否则每次往返都会多出约40ms的延迟确认等待。必须在第一次创建 HttpServer 之前设置。
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private record TranslationResponse(String translatedText) {}
+
+    private final Gson gson = new Gson();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * 在回环地址的随机端口上启动服务。
+     *
+     * @param latencyMillis 每个请求的模拟延迟（毫秒）。
+     * @throws IOException 如果无法绑定端口。
+     */
+    public StubTranslationServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        // 处理线程大部分时间在模拟延迟中休眠，使用不限数量的线程，避免服务端本身成为瓶颈
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stub-translation-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/translate", exchange -> {
+            Map<String, String> form;
+            try (InputStream body = exchange.getRequestBody()) {
+                form = parseForm(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            sleep(this.latencyMillis);
+            requests.incrementAndGet();
+            String text = "[" + form.getOrDefault("target", "?") + "] " + form.getOrDefault("q", "");
+            byte[] response = gson.toJson(new TranslationResponse(text)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        log.info("翻译服务桩已启动: {}（延迟 {} 毫秒）", getUrl(), latencyMillis);
+    }
+
+    /**
+     * @return 翻译端点的URL，可直接传给 {@code TranslatorService(String)}。
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/translate";
+    }
+
+    /**
+     * @return 已处理的请求数。
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.polylingoflow.pipeline;
+
+import com.polylingoflow.export.TranscriptionSegment;
+import com.polylingoflow.transcript.TranscriptStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ReorderBuffer} 的迟到结果：所在序列号被跳过之后才到达的结果被丢弃，转录记录保持按序列号递增。
+ */
+class ReorderBufferTest {
+
+    private static final long TIMEOUT_MILLIS = 50;
+    private static final long WAIT_MILLIS = 5_000;
+
+    @Test
+    void lateResultAfterTimeoutIsDropped() throws InterruptedException {
+        TranscriptStore store = new TranscriptStore();
+        store.setTranslation(2, "zh", "二");
+        try (ReorderBuffer<TranscriptionSegment> buffer = new ReorderBuffer<>("test", 8, TIMEOUT_MILLIS,
+                store::append)) {
+            buffer.submit(1, segment(1));
+            // 序列号0等待超时后被跳过，1被交付
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while (store.size() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, store.size(), "超时后应交付序列号1");
+            assertEquals(2, buffer.getNextSequence());
+
+            buffer.submit(0, segment(0));
+            buffer.submit(2, segment(2));
+
+            assertEquals(1, buffer.getDroppedLate());
+            assertEquals(List.of(1L, 2L), store.segments().stream().map(TranscriptionSegment::sequence).toList());
+            assertEquals(1, store.indexOfSequence(2));
+            assertEquals("二", store.get(1).translation("zh"), "较晚片段的暂存翻译不应被迟到的结果清掉");
+            assertTrue(store.indexOfSequence(0) < 0);
+        }
+    }
+
+    private static TranscriptionSegment segment(long sequence) {
+        return new TranscriptionSegment(sequence, sequence * 1000, sequence * 1000 + 500, "片段" + sequence);
+    }
+}